@@ -12,6 +12,7 @@ public class AndroidLauncher extends AndroidApplication {
 	protected void onCreate (Bundle savedInstanceState) {
 		super.onCreate(savedInstanceState);
 		AndroidApplicationConfiguration config = new AndroidApplicationConfiguration();
+		EMGflappy.Platform = new ThreadedGamePlatform();
 		initialize(new EMGflappy(), config);
 	}
 }
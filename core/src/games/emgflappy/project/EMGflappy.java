@@ -1,5 +1,6 @@
 package games.emgflappy.project;
 
+import com.badlogic.gdx.Application;
 import com.badlogic.gdx.Game;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
@@ -11,28 +12,51 @@ import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Sprite;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.TimeUtils;
 import games.emgflappy.project.UI.ScreenManager;
 import games.emgflappy.project.audio.FlappyAudio;
+import games.emgflappy.project.input.emg.EmgInput;
+import games.emgflappy.project.input.emg.EmgMixer;
+import games.emgflappy.project.input.emg.EmgSource;
 import games.emgflappy.project.objects.Flappy;
+import games.emgflappy.project.telemetry.TelemetryLog;
+import games.emgflappy.project.utils.EmgCalibration;
+import games.emgflappy.project.utils.LatencyMonitor;
+import games.emgflappy.project.utils.NativeTracker;
 import games.emgflappy.project.utils.Options;
+import games.emgflappy.project.world.CourseFile;
+import games.emgflappy.project.world.CourseSource;
 import games.emgflappy.project.world.FlappyWorld;
+import games.emgflappy.project.world.SaveWriter;
+import games.emgflappy.project.world.SeededCourse;
 
 import java.util.Collection;
-import java.util.Deque;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.Map;
 
 /**
  * Rehabilitation game made with libGDX
  */
-public class EMGflappy extends Game implements InputProcessor {
+public class EMGflappy extends Game implements InputProcessor, EmgInput.Listener {
 
+	public static GamePlatform Platform = new SyncGamePlatform(); // Set this in GameApplication to ThreadedGamePlatform where threads are available (the default works on every backend, html included)
 	public static boolean LoadGame = false; // Set this to true in GameApplication to load old game save
+	public static Long CourseSeed = null; // Set this in GameApplication to play a fixed course (null -> new random course each game)
+	public static String CourseFilePath = null; // Set this in GameApplication to play a pre-generated course file (local storage, overrides CourseSeed)
+	public static EmgSource EmgInputSource = null; // Set this in GameApplication to control Flappy with EMG (touch input keeps working too)
+	public static EmgMixer EmgInputMixer = null; // Set this in GameApplication to map EMG channels to lift and speed (null -> mean of all channels lifts Flappy)
+	public static boolean RecordTelemetry = false; // Set this to true in GameApplication to record each session to a binary telemetry file (local storage)
+	public static boolean ExportSaveJson = false; // Set this to true in GameApplication to write each game save also as json (debugging, saves are loaded from the binary file)
+	public static float AutosaveInterval = 20.f; // Seconds of play between automatic game saves, a crash loses at most this much (0 disables autosave)
+	public static boolean TrackNativeObjects = false; // Set this to true in GameApplication to count live Box2D objects (shown on the latency overlay, leaks are logged when the game is disposed)
+	public static boolean ShowLatency = false; // Set this to true in GameApplication to show input-to-motion latency on the HUD (it's always measured)
 
 	private static final int WorldWidth = 500; // World width
 	private static final int WorldHeight = 50; // World height
 	private static final String TAG = EMGflappy.class.getSimpleName();
+	private static final String TelemetryFilePrefix = "EMGflappy_session_";
+	private static final String TelemetryFileSuffix = ".emgt";
 	private static Vector2 HUDSize = new Vector2(8, 4); // HUD size in world units
 	private static Vector2 HUDPosition = new Vector2(0.f, 0.f); // HUD position in visible viewport (0.f, 0.f is the left bottom edge)
 	private static Map<FlappyTextures, Texture> textures;
@@ -46,8 +70,14 @@ public class EMGflappy extends Game implements InputProcessor {
 	private Camera camera;
 	private SpriteBatch batch;
 	private FlappyWorld flappyWorld;
-	private long time;
-	private Deque<Sprite> backgroundSprites;
+	private EmgInput emgInput; // null when EMG control is not used
+	private LatencyMonitor latencyMonitor;
+	private TelemetryLog telemetry; // null when sessions aren't recorded
+	private SaveWriter saveWriter; // Writes game saves and options (without stalling the game thread where the platform has threads)
+	private long time; // Timestamp of the previous render cycle in nanoseconds
+	private float autosaveTime; // Seconds played since the previous save
+	private long restartNanos; // Duration of the latest restart
+	private Array<Sprite> backgroundSprites; // libGDX Array reuses its iterators, iterating doesn't allocate each frame
 	private int worldCounter;
 
 
@@ -100,6 +130,7 @@ public class EMGflappy extends Game implements InputProcessor {
 	 */
 	@Override
 	public void create() {
+		NativeTracker.Enabled = EMGflappy.TrackNativeObjects; // Before any Box2D object is created
 		Options.getInstance().readOptions();
 		FlappyAudio.loadAudioFiles();
 		ScreenManager.init(this);
@@ -111,9 +142,24 @@ public class EMGflappy extends Game implements InputProcessor {
 		EMGflappy.loadTextures();
 		hud = new HUD(HUDPosition, HUDSize, ViewPortSizeX, ViewPortSizeY);
 		if (Options.getInstance().FixViewPortSizes) ViewPortSizeX = EMGflappy.ViewPortSizeXWhenFixed;
-		flappyWorld =  new FlappyWorld(ViewPortSizeX, ViewPortSizeY, EMGflappy.FirstObstaclePositionX, WorldWidth, EMGflappy.LoadGame);
+		flappyWorld =  new FlappyWorld(ViewPortSizeX, ViewPortSizeY, EMGflappy.FirstObstaclePositionX, WorldWidth, EMGflappy.LoadGame, createCourse(), EMGflappy.Platform.createCourseGenerator());
+		saveWriter = EMGflappy.Platform.createSaveWriter(FlappyWorld.getSavePath(), EMGflappy.ExportSaveJson ? FlappyWorld.getJsonExportPath() : null);
+		latencyMonitor = new LatencyMonitor();
+		flappyWorld.getSimulation().setLatencyMonitor(latencyMonitor);
+		if (EMGflappy.RecordTelemetry) {
+			telemetry = EMGflappy.Platform.createTelemetry(TelemetryFilePrefix + TimeUtils.millis() + TelemetryFileSuffix);
+			flappyWorld.getSimulation().setTelemetry(telemetry);
+		}
 		Gdx.input.setInputProcessor(this);
-		time = System.currentTimeMillis();
+		if (EMGflappy.EmgInputSource != null) {
+			EmgMixer mixer = EMGflappy.EmgInputMixer != null ? EMGflappy.EmgInputMixer : EmgMixer.average(EMGflappy.EmgInputSource.getChannelCount());
+			emgInput = new EmgInput(EMGflappy.Platform, EMGflappy.EmgInputSource, mixer);
+			EmgCalibration calibration = EmgCalibration.read(Options.getInstance().Patient);
+			if (calibration != null) calibration.apply(emgInput.getProcessor());
+			emgInput.setTelemetry(telemetry);
+			emgInput.start();
+		}
+		time = TimeUtils.nanoTime();
 		worldCounter = 1;
 		float flappyX = flappyWorld.getFlappyPositionX();
 		while(flappyX >= (float) (worldCounter * WorldWidth) - ViewPortSizeX) worldCounter++; // This is only needed when the world was loaded
@@ -132,14 +178,70 @@ public class EMGflappy extends Game implements InputProcessor {
 	 * Restart game
 	 */
 	public void restart() {
-		flappyWorld.dispose();
+		long startTime = TimeUtils.nanoTime();
 		Flappy.setFlappyPressed(false);
-		flappyWorld = new FlappyWorld(ViewPortSizeX, ViewPortSizeY, EMGflappy.FirstObstaclePositionX, WorldWidth, false);
+		flappyWorld.reset(EMGflappy.FirstObstaclePositionX, WorldWidth, createCourse());
+		flappyWorld.getSimulation().setTelemetry(telemetry); // Starts a new session in the recording
 		flappyWorld.extendWorld(WorldWidth, ViewPortSizeX, ViewPortSizeY);
 		backgroundSprites.clear();
-		time = System.currentTimeMillis();
+		time = TimeUtils.nanoTime();
+		autosaveTime = 0.f;
 		worldCounter = 1;
 		initBackground();
+		restartNanos = TimeUtils.nanoTime() - startTime;
+		Gdx.app.log(TAG, "Restart took " + restartNanos / 1000 + " us");
+	}
+
+	/**
+	 * Get how long the latest restart took
+	 * @return Nanoseconds, 0 if the game hasn't been restarted
+	 */
+	public long getRestartNanos() {
+		return restartNanos;
+	}
+
+	/**
+	 * Get timestamp of the input event which is currently processed
+	 * Input.getCurrentEventTime is only used on Android where the backend stamps events with
+	 * System.nanoTime (the TimeUtils.nanoTime clock), other backends use their own clocks (e.g.
+	 * LWJGL2 event times come from the LWJGL timer) so their events are stamped when processed
+	 * @return Event time in nanoseconds (TimeUtils.nanoTime clock)
+	 */
+	private static long getInputEventTime() {
+		if (Gdx.app.getType() == Application.ApplicationType.Android) {
+			long eventTime = Gdx.input.getCurrentEventTime();
+			if (eventTime != 0) return eventTime;
+		}
+		return TimeUtils.nanoTime();
+	}
+
+	/**
+	 * Create CourseSource for a new game according to CourseFilePath and CourseSeed
+	 * @return CourseSource
+	 */
+	private CourseSource createCourse() {
+		if (EMGflappy.CourseFilePath != null) {
+			try {
+				return CourseFile.read(Gdx.files.local(EMGflappy.CourseFilePath));
+			} catch (RuntimeException e) {
+				Gdx.app.log(TAG, e.getMessage());
+			}
+		}
+		return new SeededCourse(EMGflappy.CourseSeed != null ? EMGflappy.CourseSeed : TimeUtils.millis());
+	}
+
+	/**
+	 * Save the game every AutosaveInterval seconds of play, saving only captures a snapshot here
+	 * (the file is written by the SaveWriter, on its own thread where the platform has threads)
+	 * @param elapsedTime Seconds played since the previous frame
+	 */
+	private void autosave(float elapsedTime) {
+		if (EMGflappy.AutosaveInterval <= 0.f || flappyWorld.getFlappyHP() <= 0) return;
+		autosaveTime += elapsedTime;
+		if (autosaveTime >= EMGflappy.AutosaveInterval) {
+			flappyWorld.autosave(saveWriter);
+			autosaveTime = 0.f;
+		}
 	}
 
 	/**
@@ -151,11 +253,14 @@ public class EMGflappy extends Game implements InputProcessor {
 
 	/**
 	 * Pause game (save game state)
+	 * The saves are written before returning because the application may be killed while paused
 	 */
 	@Override
 	public void pause() {
-		flappyWorld.save();
-		Options.getInstance().writeOptions();
+		flappyWorld.save(saveWriter);
+		autosaveTime = 0.f;
+		Options.getInstance().writeOptions(saveWriter);
+		saveWriter.flush();
 		if (getScreen() == null) ScreenManager.showPauseScreen();
 	}
 
@@ -164,7 +269,7 @@ public class EMGflappy extends Game implements InputProcessor {
 	 */
 	@Override
 	public void resume() {
-		time = System.currentTimeMillis();
+		time = TimeUtils.nanoTime();
 	}
 
 	/**
@@ -175,6 +280,30 @@ public class EMGflappy extends Game implements InputProcessor {
 		Gdx.input.setInputProcessor(this);
 	}
 
+	/**
+	 * Get input-to-motion latency measurements
+	 * @return latencyMonitor
+	 */
+	public LatencyMonitor getLatencyMonitor() {
+		return latencyMonitor;
+	}
+
+	/**
+	 * Get EMG input (used by CalibrationScreen)
+	 * @return EmgInput or null when EMG control is not used
+	 */
+	public EmgInput getEmgInput() {
+		return emgInput;
+	}
+
+	/**
+	 * Get SaveWriter (used by CalibrationScreen)
+	 * @return saveWriter
+	 */
+	public SaveWriter getSaveWriter() {
+		return saveWriter;
+	}
+
 	/**
 	 * Method called when the screen is resized
 	 * @param width New screen width
@@ -199,7 +328,23 @@ public class EMGflappy extends Game implements InputProcessor {
 	 */
 	@Override
 	public void render() {
-		// Input processing
+		long timeNow = TimeUtils.nanoTime();
+		float elapsedTime = (float) (timeNow - time) / 1000000000.f; // nanos to s
+		time = timeNow;
+		if (!ScreenManager.updatePhysics()) elapsedTime = 0.f;
+		if (emgInput != null) emgInput.update(ScreenManager.updatePhysics() ? this : null);
+
+		if (ScreenManager.updatePhysics()) {
+			// Update physics when not showing a menu Screen, camera follows interpolated Flappy
+			float flappyX = flappyWorld.physicsStep(elapsedTime, timeNow);
+
+			camera.position.set(flappyX, camera.position.y, camera.position.z);
+			moveBackground(elapsedTime);
+			if (extendWorld(flappyX))
+				flappyWorld.extendWorld(WorldWidth, ViewPortSizeX, ViewPortSizeY);
+			autosave(elapsedTime);
+		} else flappyWorld.setFlappyPressed(false, timeNow);
+
 		camera.update();
 		Gdx.gl.glClearColor(0, 0, 0, 1);
 		Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
@@ -208,28 +353,15 @@ public class EMGflappy extends Game implements InputProcessor {
 		for (Sprite sprite : backgroundSprites) {
 			sprite.draw(batch);
 		}
-		long timeNow = System.currentTimeMillis();
-		float elapsedTime = ((float) (timeNow - time)) / 1000.f; // millis to s
-		time = timeNow;
-		if (!ScreenManager.updatePhysics()) elapsedTime = 0.f;
-
-		flappyWorld.draw(batch, elapsedTime, ViewPortSizeX);
+		flappyWorld.draw(batch, elapsedTime, camera.position.x, ViewPortSizeX);
 		batch.end();
 
-		if (ScreenManager.updatePhysics()) {
-			// Update physics when not showing a menu Screen
-			float flappyX = flappyWorld.physicsStep(elapsedTime);
-
-			camera.position.set(flappyX, camera.position.y, camera.position.z);
-			camera.update();
-			moveBackground(elapsedTime);
-			if (extendWorld(flappyX))
-				flappyWorld.extendWorld(WorldWidth, ViewPortSizeX, ViewPortSizeY);
-		} else Flappy.setFlappyPressed(false);
 		int hp = flappyWorld.getFlappyHP();
 		if (hp <= 0 && getScreen() == null) ScreenManager.showEndScreen();
 		hud.draw(batch, hp, Flappy.getMaxFlappyHP());
+		if (EMGflappy.ShowLatency || NativeTracker.Enabled) hud.drawLatency(batch, latencyMonitor, saveWriter);
 		ScreenManager.renderScreen();
+		latencyMonitor.onFrameSubmitted(TimeUtils.nanoTime()); // Buffer swap follows right after render
 	}
 
 	/**
@@ -242,21 +374,35 @@ public class EMGflappy extends Game implements InputProcessor {
 		hud.dispose();
 		batch.dispose();
 		flappyWorld.dispose();
+		if (emgInput != null) emgInput.dispose();
+		if (telemetry != null) telemetry.dispose();
+		saveWriter.dispose(); // Writes the remaining saves
 		EMGflappy.disposeTextures();
 		FlappyAudio.disposeAudio();
 	}
 
 	// Input processing
 
+	/**
+	 * Control Flappy proportionally to EMG activation
+	 * @param activation Activation in the range of [0, 1], 0 releases Flappy
+	 * @param speed Horizontal speed multiplier, 1 is the normal speed
+	 * @param time Timestamp of the sample which caused the change in nanoseconds
+	 */
+	@Override
+	public void onEmgActivation(float activation, float speed, long time) {
+		flappyWorld.setFlappyActivation(activation, speed, time);
+	}
+
 	@Override
 	public boolean touchDown(int screenX, int screenY, int pointer, int button) {
-		Flappy.setFlappyPressed(true);
+		flappyWorld.setFlappyPressed(true, getInputEventTime());
 		return true;
 	}
 
 	@Override
 	public boolean touchUp(int screenX, int screenY, int pointer, int button) {
-		Flappy.setFlappyPressed(false);
+		flappyWorld.setFlappyPressed(false, getInputEventTime());
 		return true;
 	}
 
@@ -305,14 +451,14 @@ public class EMGflappy extends Game implements InputProcessor {
 	 * Note: there needs to be two images created so that the images fill the whole screen
 	 */
 	private void initBackground() {
-		backgroundSprites = new LinkedList<>();
+		backgroundSprites = new Array<>(2);
 		Sprite background = new Sprite(getTexture(FlappyTextures.BackGround));
 		background.setSize(WorldWidth, WorldHeight);
 		Sprite backgroundContinues = new Sprite(background);
 		background.setPosition(-WorldWidth, 0.f);
 		backgroundContinues.setPosition(0.f, 0.f);
-		backgroundSprites.addLast(background);
-		backgroundSprites.addLast(backgroundContinues);
+		backgroundSprites.add(background);
+		backgroundSprites.add(backgroundContinues);
 	}
 
 	/**
@@ -322,13 +468,13 @@ public class EMGflappy extends Game implements InputProcessor {
 	 * @return true if world needs to be extended, otherwise false
 	 */
 	private boolean extendWorld(float flappyX) {
-		float backgroundEndX = backgroundSprites.getLast().getX() + backgroundSprites.getLast().getWidth();
+		float backgroundEndX = backgroundSprites.peek().getX() + backgroundSprites.peek().getWidth();
 		if (flappyX >= backgroundEndX - ViewPortSizeX) {
 			Sprite background = new Sprite(getTexture(FlappyTextures.BackGround));
 			background.setSize(WorldWidth, WorldHeight);
 			background.setPosition(backgroundEndX, 0.f);
-			backgroundSprites.removeFirst(); // This isn't needed anymore, it's well outside of the visible region
-			backgroundSprites.addLast(background);
+			backgroundSprites.removeIndex(0); // This isn't needed anymore, it's well outside of the visible region
+			backgroundSprites.add(background);
 		}
 		if (flappyX >= (float) (worldCounter * WorldWidth) - ViewPortSizeX) {
 			worldCounter++;
@@ -0,0 +1,49 @@
+package games.emgflappy.project;
+
+import games.emgflappy.project.input.emg.EmgReader;
+import games.emgflappy.project.input.emg.EmgSampleRing;
+import games.emgflappy.project.input.emg.EmgSource;
+import games.emgflappy.project.telemetry.TelemetryLog;
+import games.emgflappy.project.world.CourseGenerator;
+import games.emgflappy.project.world.SaveWriter;
+
+/**
+ * Creates the platform specific services which EMGflappy calls through: course generation, game
+ * saves, session telemetry and EMG reading
+ * ThreadedGamePlatform runs them on their own threads (desktop, android, ios), SyncGamePlatform
+ * runs them on the game thread where threads and java.io aren't available (html)
+ * Set EMGflappy.Platform in GameApplication
+ */
+public interface GamePlatform {
+
+    /**
+     * Create generator for obstacle layouts
+     * @return CourseGenerator
+     */
+    CourseGenerator createCourseGenerator();
+
+    /**
+     * Create writer for game saves
+     * @param worldPath Path in local storage where world saves are written
+     * @param jsonPath Path in local storage where world saves are also written as json for
+     *                 debugging, null to write only the binary save
+     * @return SaveWriter
+     */
+    SaveWriter createSaveWriter(String worldPath, String jsonPath);
+
+    /**
+     * Create and start session telemetry recording
+     * @param path Path in local storage where the session is recorded
+     * @return TelemetryLog or null if sessions can't be recorded on this platform
+     */
+    TelemetryLog createTelemetry(String path);
+
+    /**
+     * Create reader which moves frames from an EmgSource to an EmgSampleRing, call start on it
+     * to begin reading
+     * @param source EmgSource to be read
+     * @param ring EmgSampleRing with as many channels as the source
+     * @return EmgReader
+     */
+    EmgReader createEmgReader(EmgSource source, EmgSampleRing ring);
+}
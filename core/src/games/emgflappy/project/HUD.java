@@ -1,13 +1,22 @@
 package games.emgflappy.project;
 
 
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Camera;
 import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.NinePatch;
 import com.badlogic.gdx.graphics.g2d.Sprite;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.TimeUtils;
+import games.emgflappy.project.utils.LatencyHistogram;
+import games.emgflappy.project.utils.LatencyMonitor;
+import games.emgflappy.project.utils.NativeTracker;
+import games.emgflappy.project.utils.TextFormat;
+import games.emgflappy.project.world.SaveWriter;
 
 /**
  * Class which creates a heads-up display (HUD) on the screen
@@ -19,6 +28,8 @@ public class HUD implements Disposable {
     private static float HorizontalSplit = 0.5f; // How much horizontal space is received for the image when compared to the HP bar (must be in the range of [0.f, 1.f])
     private static float HorizontalEmptySpace = 0.03f; // How much space is between the end of image and HP bar (must be in the range of [0.f, 1.f - HorizontalSlip])
     private static float HPBarVerticalSize = 0.1f; // How much space the HP bar takes vertically when compared to HUD vertical size (must be in the range of [0.f, 1.f])
+    private static long LatencyTextInterval = 500000000L; // How often (in nanoseconds) the latency overlay text is updated
+    private static float LatencyTextMargin = 10.f; // Distance of the latency overlay from the top left corner in pixels
 
     private Camera camera;
     private float x;
@@ -29,6 +40,10 @@ public class HUD implements Disposable {
     private NinePatch greenHP;
     private NinePatch redHP;
     private Sprite sprite;
+    private BitmapFont font; // Created when the latency overlay is drawn the first time
+    private Matrix4 textProjection; // Pixel coordinates for the latency overlay
+    private String latencyText;
+    private long latencyTextTime; // When latencyText was updated in nanoseconds
 
 
     /**
@@ -59,7 +74,9 @@ public class HUD implements Disposable {
      * Dispose HUD, call this when the game is finished
      */
     @Override
-    public void dispose() {}
+    public void dispose() {
+        if (font != null) font.dispose();
+    }
 
     /**
      * Draw HUD (HUD should be drawn last so that it's on top of everything else)
@@ -82,6 +99,62 @@ public class HUD implements Disposable {
         batch.end();
     }
 
+    /**
+     * Draw input-to-motion latency overlay (p50 / p99 of each stage and of game saves) to the top
+     * left corner, live native Box2D object counts are shown too when NativeTracker is enabled
+     * The text is rebuilt every LatencyTextInterval so that drawing doesn't allocate each frame
+     * @param batch Where the overlay is drawn to
+     * @param monitor LatencyMonitor which is shown
+     * @param saveWriter SaveWriter whose capture and write times are shown
+     */
+    public void drawLatency(SpriteBatch batch, LatencyMonitor monitor, SaveWriter saveWriter) {
+        if (font == null) {
+            font = new BitmapFont();
+            textProjection = new Matrix4();
+            latencyTextTime = Long.MIN_VALUE;
+        }
+        long now = TimeUtils.nanoTime();
+        if (now - latencyTextTime >= LatencyTextInterval) {
+            latencyTextTime = now;
+            latencyText = "Latency p50 / p99 ms (n)" +
+                    "\ninput -> physics " + formatLatency(monitor.getHistogram(LatencyMonitor.InputToPhysics)) +
+                    "\nphysics -> frame " + formatLatency(monitor.getHistogram(LatencyMonitor.PhysicsToFrame)) +
+                    "\ninput -> frame " + formatLatency(monitor.getHistogram(LatencyMonitor.InputToFrame)) +
+                    "\nsave capture " + formatLatency(saveWriter.getCaptureTimes()) +
+                    "\nsave write " + formatLatency(saveWriter.getWriteTimes());
+            if (NativeTracker.Enabled) latencyText += "\n" + formatNativeCounts();
+        }
+        textProjection.setToOrtho2D(0.f, 0.f, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+        batch.setProjectionMatrix(textProjection);
+        batch.begin();
+        font.draw(batch, latencyText, LatencyTextMargin, Gdx.graphics.getHeight() - LatencyTextMargin);
+        batch.end();
+    }
+
+    /**
+     * Format live native object counts for the overlay
+     * @return Live count of each NativeTracker kind
+     */
+    private static String formatNativeCounts() {
+        StringBuilder text = new StringBuilder("native");
+        for (int kind = 0; kind < NativeTracker.Kinds; kind++) {
+            text.append(' ').append(NativeTracker.getName(kind)).append(' ').append(NativeTracker.getLiveCount(kind));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Format percentiles of a LatencyHistogram for the overlay
+     * @param histogram LatencyHistogram
+     * @return p50 / p99 in milliseconds and the sample count
+     */
+    private static String formatLatency(LatencyHistogram histogram) {
+        StringBuilder text = new StringBuilder();
+        TextFormat.appendDecimal(text, histogram.getPercentile(0.5f) / 1e6, 1).append(" / ");
+        TextFormat.appendDecimal(text, histogram.getPercentile(0.99f) / 1e6, 1);
+        return text.append(" (").append(histogram.getCount()).append(')').toString();
+    }
+
     /**
      * Set new viewport, call this from EMGflappy after a viewport has changed
      * @param ViewPortSizeX New EMGflappy ViewPortSizeX
@@ -0,0 +1,61 @@
+package games.emgflappy.project;
+
+import com.badlogic.gdx.Gdx;
+import games.emgflappy.project.input.emg.EmgReader;
+import games.emgflappy.project.input.emg.EmgSampleRing;
+import games.emgflappy.project.input.emg.EmgSource;
+import games.emgflappy.project.input.emg.PolledEmgReader;
+import games.emgflappy.project.telemetry.TelemetryLog;
+import games.emgflappy.project.world.CourseGenerator;
+import games.emgflappy.project.world.InlineCourseGenerator;
+import games.emgflappy.project.world.SaveWriter;
+import games.emgflappy.project.world.SyncSaveWriter;
+
+/**
+ * GamePlatform without threads (html): courses are generated, saves are written and EMG sources
+ * are read on the game thread, sessions aren't recorded
+ */
+public class SyncGamePlatform implements GamePlatform {
+
+    /**
+     * Create generator which generates each chunk when it is requested
+     * @return InlineCourseGenerator
+     */
+    @Override
+    public CourseGenerator createCourseGenerator() {
+        return new InlineCourseGenerator();
+    }
+
+    /**
+     * Create writer which writes saves immediately
+     * @param worldPath Path in local storage where world saves are written
+     * @param jsonPath Path in local storage for the json debug export, null to not export
+     * @return SyncSaveWriter
+     */
+    @Override
+    public SaveWriter createSaveWriter(String worldPath, String jsonPath) {
+        return new SyncSaveWriter(worldPath, jsonPath);
+    }
+
+    /**
+     * Sessions can't be recorded without threads and file channels
+     * @param path Ignored
+     * @return null
+     */
+    @Override
+    public TelemetryLog createTelemetry(String path) {
+        Gdx.app.log(SyncGamePlatform.class.getSimpleName(), "Telemetry isn't supported on this platform");
+        return null;
+    }
+
+    /**
+     * Create reader which reads the source when EmgInput is updated, the source must not block
+     * @param source EmgSource to be read
+     * @param ring EmgSampleRing with as many channels as the source
+     * @return PolledEmgReader
+     */
+    @Override
+    public EmgReader createEmgReader(EmgSource source, EmgSampleRing ring) {
+        return new PolledEmgReader(source, ring);
+    }
+}
@@ -0,0 +1,65 @@
+package games.emgflappy.project;
+
+import com.badlogic.gdx.Gdx;
+import games.emgflappy.project.input.emg.EmgReader;
+import games.emgflappy.project.input.emg.EmgSampleRing;
+import games.emgflappy.project.input.emg.EmgSource;
+import games.emgflappy.project.input.emg.ThreadedEmgReader;
+import games.emgflappy.project.telemetry.TelemetryLog;
+import games.emgflappy.project.telemetry.TelemetryWriter;
+import games.emgflappy.project.world.CourseGenerator;
+import games.emgflappy.project.world.SaveWriter;
+import games.emgflappy.project.world.ThreadedCourseGenerator;
+import games.emgflappy.project.world.ThreadedSaveWriter;
+
+/**
+ * GamePlatform for JRE backends (desktop, android, ios): courses are generated, saves and
+ * telemetry are written and EMG sources are read on their own threads so that the game thread
+ * never stalls
+ * Excluded from the html build
+ */
+public class ThreadedGamePlatform implements GamePlatform {
+
+    /**
+     * Create generator with a worker thread
+     * @return ThreadedCourseGenerator
+     */
+    @Override
+    public CourseGenerator createCourseGenerator() {
+        return new ThreadedCourseGenerator();
+    }
+
+    /**
+     * Create writer with a writer thread
+     * @param worldPath Path in local storage where world saves are written
+     * @param jsonPath Path in local storage for the json debug export, null to not export
+     * @return ThreadedSaveWriter
+     */
+    @Override
+    public SaveWriter createSaveWriter(String worldPath, String jsonPath) {
+        return new ThreadedSaveWriter(Gdx.files.local(worldPath).file(), jsonPath != null ? Gdx.files.local(jsonPath).file() : null);
+    }
+
+    /**
+     * Create and start a TelemetryWriter
+     * @param path Path in local storage where the session is recorded
+     * @return TelemetryWriter
+     */
+    @Override
+    public TelemetryLog createTelemetry(String path) {
+        TelemetryWriter telemetry = new TelemetryWriter(Gdx.files.local(path).file());
+        telemetry.start();
+        return telemetry;
+    }
+
+    /**
+     * Create reader with a reader thread
+     * @param source EmgSource to be read
+     * @param ring EmgSampleRing with as many channels as the source
+     * @return ThreadedEmgReader
+     */
+    @Override
+    public EmgReader createEmgReader(EmgSource source, EmgSampleRing ring) {
+        return new ThreadedEmgReader(source, ring);
+    }
+}
@@ -0,0 +1,260 @@
+package games.emgflappy.project.UI;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.scenes.scene2d.InputEvent;
+import com.badlogic.gdx.scenes.scene2d.ui.Label;
+import com.badlogic.gdx.scenes.scene2d.ui.Table;
+import com.badlogic.gdx.scenes.scene2d.ui.TextButton;
+import com.badlogic.gdx.scenes.scene2d.ui.TextField;
+import com.badlogic.gdx.scenes.scene2d.utils.ClickListener;
+import games.emgflappy.project.input.emg.EmgInput;
+import games.emgflappy.project.input.emg.EmgStatistics;
+import games.emgflappy.project.utils.EmgCalibration;
+import games.emgflappy.project.utils.Options;
+import games.emgflappy.project.utils.TextFormat;
+import games.emgflappy.project.world.SaveWriter;
+
+/**
+ * Screen for calibrating EMG: records the rest level and the maximum voluntary contraction (MVC)
+ * of every channel and stores them for the current patient (Options.Patient)
+ * The patient can be changed here: the new patient is written to Options and their calibration is
+ * taken into use (the default normalization if they haven't been calibrated)
+ * Envelopes are collected with EmgStatistics while EMGflappy keeps draining EmgInput, so
+ * calibration uses the same signal conditioning as the game
+ */
+public class CalibrationScreen extends AbstractScreen {
+
+    private static float SettleDuration = 1.f; // Seconds ignored at the beginning of each phase (patient reacts to the instruction)
+    private static float RestDuration = 5.f; // Seconds of recorded rest
+    private static float ContractionDuration = 5.f; // Seconds of recorded maximum contraction
+    private static float LevelPercentile = 0.95f; // Percentile of the envelope used as the rest and MVC level (robust against spikes)
+
+    private enum Phase { Idle, Rest, Contraction, Done }
+
+    private final EmgInput emgInput; // null when EMG control is not used
+    private final SaveWriter saveWriter;
+    private final EmgStatistics statistics;
+    private final float[] rest;
+    private final float[] restDeviation;
+    private final float[] mvc;
+    private Phase phase;
+    private float elapsed; // Seconds since the current phase started
+    private Label instructionLabel;
+    private Label resultLabel;
+    private TextField patientField;
+    private TextButton startButton;
+    private TextButton saveButton;
+
+    /**
+     * Constructor for CalibrationScreen
+     * @param emgInput EmgInput of the game, null if EMG control is not used
+     * @param saveWriter SaveWriter of the game, writes Options and calibrations
+     */
+    public CalibrationScreen(EmgInput emgInput, SaveWriter saveWriter) {
+        super();
+        this.emgInput = emgInput;
+        this.saveWriter = saveWriter;
+        int channels = emgInput != null ? emgInput.getChannelCount() : 0;
+        statistics = new EmgStatistics(channels);
+        rest = new float[channels];
+        restDeviation = new float[channels];
+        mvc = new float[channels];
+        phase = Phase.Idle;
+    }
+
+    /**
+     * Show CalibrationScreen
+     */
+    @Override
+    public void show() {
+        Gdx.input.setInputProcessor(stage);
+        Table table = new Table(skin);
+        table.setBackground("dialogDim");
+        table.setFillParent(true);
+
+        Label title = new Label("Calibration", skin, "bigLabel");
+        Label patientLabel = new Label("Patient", skin, "normalLabel");
+        patientField = new TextField(Options.getInstance().Patient, skin);
+        patientField.setTextFieldListener(new TextField.TextFieldListener() {
+            @Override
+            public void keyTyped(TextField textField, char c) {
+                if (c == '\n' || c == '\r') {
+                    setPatient(textField.getText());
+                    stage.unfocus(textField);
+                }
+            }
+        });
+        instructionLabel = new Label(emgInput != null ? "Press Start and relax" : "No EMG source", skin, "normalLabel");
+        resultLabel = new Label("", skin);
+
+        startButton = new TextButton("Start", skin, "pauseButton");
+        startButton.addListener(new ClickListener() {
+            @Override
+            public void clicked(InputEvent event, float x, float y) {
+                super.clicked(event, x, y);
+                if (startButton.isDisabled()) return;
+                setPatient(patientField.getText());
+                startPhase(Phase.Rest);
+            }
+        });
+        startButton.setColor(Color.BLUE);
+        startButton.setDisabled(emgInput == null);
+
+        saveButton = new TextButton("Save", skin, "pauseButton");
+        saveButton.addListener(new ClickListener() {
+            @Override
+            public void clicked(InputEvent event, float x, float y) {
+                super.clicked(event, x, y);
+                if (!saveButton.isDisabled()) save();
+            }
+        });
+        saveButton.setColor(Color.BLUE);
+        saveButton.setDisabled(true);
+
+        TextButton backButton = new TextButton("Back", skin, "pauseButton");
+        backButton.addListener(new ClickListener() {
+            @Override
+            public void clicked(InputEvent event, float x, float y) {
+                super.clicked(event, x, y);
+                setPatient(patientField.getText());
+                ScreenManager.showOptionsScreen();
+            }
+        });
+        backButton.setColor(Color.BLUE);
+
+        table.add(title).colspan(3);
+        table.row().padTop(100.f);
+        table.add(patientLabel).right().padRight(20.f);
+        table.add(patientField).colspan(2).left().width(AbstractScreen.ButtonWidth);
+        table.row().padTop(50.f);
+        table.add(instructionLabel).colspan(3);
+        table.row().padTop(50.f);
+        table.add(resultLabel).colspan(3);
+        table.row().padTop(100.f);
+        table.add(startButton).size(AbstractScreen.ButtonWidth, AbstractScreen.ButtonHeight);
+        table.add(saveButton).size(AbstractScreen.ButtonWidth, AbstractScreen.ButtonHeight);
+        table.add(backButton).size(AbstractScreen.ButtonWidth, AbstractScreen.ButtonHeight);
+        stage.addActor(table);
+    }
+
+    /**
+     * Advance calibration and render the screen
+     * @param delta Time elapsed since previous render cycle (in seconds)
+     */
+    @Override
+    public void render(float delta) {
+        updatePhase(delta);
+        Gdx.graphics.getGL20().glEnable(GL20.GL_BLEND);
+        stage.act(delta);
+        stage.draw();
+    }
+
+    /**
+     * Stop collecting statistics and dispose resources
+     */
+    @Override
+    public void dispose() {
+        if (emgInput != null) emgInput.setStatistics(null);
+        super.dispose();
+    }
+
+    /**
+     * Start a calibration phase
+     * @param next Phase which is started
+     */
+    private void startPhase(Phase next) {
+        phase = next;
+        elapsed = 0.f;
+        emgInput.setStatistics(null); // Collecting starts after SettleDuration
+        statistics.reset();
+        startButton.setDisabled(next != Phase.Done);
+        saveButton.setDisabled(true);
+        patientField.setDisabled(next == Phase.Rest || next == Phase.Contraction);
+        switch (next) {
+            case Rest:
+                instructionLabel.setText("Relax the muscle");
+                resultLabel.setText("");
+                break;
+            case Contraction:
+                instructionLabel.setText("Contract as hard as you can");
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Advance the current phase, the levels are read from the statistics when a phase ends
+     * @param delta Time elapsed since previous render cycle (in seconds)
+     */
+    private void updatePhase(float delta) {
+        if (phase == Phase.Idle || phase == Phase.Done) return;
+        float previous = elapsed;
+        elapsed += delta;
+        if (previous < SettleDuration && elapsed >= SettleDuration) emgInput.setStatistics(statistics);
+        float duration = phase == Phase.Rest ? RestDuration : ContractionDuration;
+        if (elapsed < SettleDuration + duration) return;
+        int channels = statistics.getChannelCount();
+        if (phase == Phase.Rest) {
+            for (int c = 0; c < channels; c++) {
+                rest[c] = statistics.getPercentile(c, LevelPercentile);
+                restDeviation[c] = statistics.getStandardDeviation(c);
+            }
+            startPhase(Phase.Contraction);
+            return;
+        }
+        StringBuilder result = new StringBuilder();
+        boolean valid = statistics.getCount(0) > 0;
+        for (int c = 0; c < channels; c++) {
+            mvc[c] = statistics.getPercentile(c, LevelPercentile);
+            valid &= mvc[c] > rest[c];
+            result.append("Ch ").append(c + 1).append(": rest ");
+            TextFormat.appendSignificant(result, rest[c], 3).append(" (sd ");
+            TextFormat.appendSignificant(result, restDeviation[c], 2).append(")  MVC ");
+            TextFormat.appendSignificant(result, mvc[c], 3).append("  mean ");
+            TextFormat.appendSignificant(result, statistics.getMean(c), 3).append('\n');
+        }
+        startPhase(Phase.Done);
+        instructionLabel.setText(valid ? "Done, press Save to use the calibration" : "Contraction too weak, try again");
+        resultLabel.setText(result);
+        saveButton.setDisabled(!valid);
+    }
+
+    /**
+     * Change the current patient, writes Options and takes the calibration of the patient into use
+     * A calibration which hasn't been saved yet can't be saved for the new patient anymore
+     * @param patient Patient identifier, empty names are ignored
+     */
+    private void setPatient(String patient) {
+        patient = patient.trim();
+        Options options = Options.getInstance();
+        if (patient.isEmpty() || patient.equals(options.Patient)) {
+            patientField.setText(options.Patient);
+            return;
+        }
+        options.Patient = patient;
+        options.writeOptions(saveWriter);
+        saveButton.setDisabled(true);
+        if (emgInput == null) return;
+        EmgCalibration calibration = EmgCalibration.read(patient);
+        if (calibration != null) {
+            calibration.apply(emgInput.getProcessor());
+        } else {
+            for (int c = 0; c < emgInput.getChannelCount(); c++) emgInput.getProcessor().setNormalization(c, 0.f, 1.f);
+        }
+        instructionLabel.setText(calibration != null ? "Using the saved calibration of " + patient : "No calibration for " + patient);
+    }
+
+    /**
+     * Store the calibration for the current patient and take it into use
+     */
+    private void save() {
+        EmgCalibration calibration = new EmgCalibration(rest.clone(), mvc.clone(), restDeviation.clone());
+        calibration.write(Options.getInstance().Patient, saveWriter);
+        calibration.apply(emgInput.getProcessor());
+        instructionLabel.setText("Calibration saved");
+        saveButton.setDisabled(true);
+    }
+}
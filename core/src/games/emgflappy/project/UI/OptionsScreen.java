@@ -109,6 +109,16 @@ public class OptionsScreen extends AbstractScreen {
         });
         resumeButton.setColor(Color.BLUE);
 
+        TextButton calibrateButton = new TextButton("Calibrate", skin, "pauseButton");
+        calibrateButton.addListener(new ClickListener() {
+            @Override
+            public void clicked(InputEvent event, float x, float y) {
+                super.clicked(event, x, y);
+                ScreenManager.showCalibrationScreen();
+            }
+        });
+        calibrateButton.setColor(Color.BLUE);
+
         TextButton quitButton = new TextButton("Quit", skin, "pauseButton");
         quitButton.addListener(new ClickListener() {
             @Override
@@ -137,6 +147,8 @@ public class OptionsScreen extends AbstractScreen {
         table.row();
         table.add(viewportTable);
         table.row().padTop(100.f);
+        table.add(calibrateButton).size(AbstractScreen.ButtonWidth, AbstractScreen.ButtonHeight).colspan(2);
+        table.row();
         table.add(resumeButton).size(AbstractScreen.ButtonWidth, AbstractScreen.ButtonHeight).padTop(200.f);
         table.add(quitButton).size(AbstractScreen.ButtonWidth, AbstractScreen.ButtonHeight).padTop(200.f);
         table.pack();
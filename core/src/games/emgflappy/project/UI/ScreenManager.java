@@ -106,6 +106,17 @@ public final class ScreenManager {
         }
     }
 
+    /**
+     * Show CalibrationScreen for recording EMG rest and MVC levels
+     */
+    public static void showCalibrationScreen() {
+        if (game != null) {
+            if (ScreenManager.screen != null) ScreenManager.screen.dispose();
+            ScreenManager.screen = new CalibrationScreen(game.getEmgInput(), game.getSaveWriter());
+            game.setScreen(ScreenManager.screen);
+        }
+    }
+
     /**
      * Show EndScreen after game is over
      */
@@ -0,0 +1,135 @@
+package games.emgflappy.project.input;
+
+/**
+ * FIFO queue of timestamped control events: activation (touch press = 1, release = 0, EMG in between)
+ * and horizontal speed multiplier (1 is the normal speed, changed by multi-channel EMG)
+ * Events are stored in primitive ring buffers so adding and polling them doesn't allocate
+ * (the buffers only grow if many events are queued between physics steps)
+ * Note: not thread-safe, use from the thread which processes input and steps the simulation
+ */
+public class InputEventQueue {
+
+    private static final int InitialCapacity = 16;
+
+    private long[] times; // Event timestamps in nanoseconds (TimeUtils.nanoTime clock)
+    private float[] activations;
+    private float[] speeds;
+    private int head; // Index of the oldest event
+    private int size;
+    private float lastActivation; // Activation after the latest added event, used to skip duplicates
+    private float lastSpeed; // Speed after the latest added event
+
+    /**
+     * Constructor for InputEventQueue
+     */
+    public InputEventQueue() {
+        times = new long[InitialCapacity];
+        activations = new float[InitialCapacity];
+        speeds = new float[InitialCapacity];
+        head = 0;
+        size = 0;
+        lastActivation = 0.f;
+        lastSpeed = 1.f;
+    }
+
+    /**
+     * Add event which keeps the current speed, events which don't change the activation are ignored
+     * @param time Event timestamp in nanoseconds, events should be added in time order
+     * @param activation Activation in the range of [0, 1], 0 releases Flappy
+     */
+    public void add(long time, float activation) {
+        add(time, activation, lastSpeed);
+    }
+
+    /**
+     * Add event to the queue, events which don't change the activation or speed are ignored
+     * @param time Event timestamp in nanoseconds, events should be added in time order
+     * @param activation Activation in the range of [0, 1], 0 releases Flappy
+     * @param speed Horizontal speed multiplier, 1 is the normal speed
+     */
+    public void add(long time, float activation, float speed) {
+        if (activation == lastActivation && speed == lastSpeed) return;
+        if (size == times.length) grow();
+        int i = (head + size) % times.length;
+        times[i] = time;
+        activations[i] = activation;
+        speeds[i] = speed;
+        size++;
+        lastActivation = activation;
+        lastSpeed = speed;
+    }
+
+    /**
+     * Check whether the queue is empty
+     * @return true if there are no events
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Get timestamp of the oldest event
+     * @return Timestamp in nanoseconds
+     */
+    public long peekTime() {
+        if (size == 0) throw new IllegalStateException("InputEventQueue is empty");
+        return times[head];
+    }
+
+    /**
+     * Get speed of the oldest event, call this before poll
+     * @return Speed multiplier
+     */
+    public float peekSpeed() {
+        if (size == 0) throw new IllegalStateException("InputEventQueue is empty");
+        return speeds[head];
+    }
+
+    /**
+     * Remove the oldest event
+     * @return Activation of the event
+     */
+    public float poll() {
+        if (size == 0) throw new IllegalStateException("InputEventQueue is empty");
+        float value = activations[head];
+        head = (head + 1) % times.length;
+        size--;
+        return value;
+    }
+
+    /**
+     * Remove all events, the state is reset to released at the normal speed
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+        lastActivation = 0.f;
+        lastSpeed = 1.f;
+    }
+
+    /**
+     * Get amount of queued events
+     * @return size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Double the capacity of the ring buffers
+     */
+    private void grow() {
+        long[] newTimes = new long[times.length * 2];
+        float[] newActivations = new float[times.length * 2];
+        float[] newSpeeds = new float[times.length * 2];
+        for (int i = 0; i < size; i++) {
+            newTimes[i] = times[(head + i) % times.length];
+            newActivations[i] = activations[(head + i) % times.length];
+            newSpeeds[i] = speeds[(head + i) % times.length];
+        }
+        times = newTimes;
+        activations = newActivations;
+        speeds = newSpeeds;
+        head = 0;
+    }
+}
@@ -0,0 +1,19 @@
+package games.emgflappy.project.input.emg;
+
+import java.io.IOException;
+
+/**
+ * EmgSource which can write its frames straight into an EmgSampleRing with its own timestamps,
+ * EmgReaders use this instead of read so that frames aren't copied through a batch array
+ */
+public interface DirectEmgSource extends EmgSource {
+
+    /**
+     * Read frames straight into the ring, the same blocking rules as in read apply
+     * @param ring EmgSampleRing where the frames are offered, the caller is its only producer
+     * @param maxFrames How many frames are offered at most
+     * @return Amount of frames offered (0 if none were available), -1 when the source has ended
+     * @throws IOException if reading fails
+     */
+    int read(EmgSampleRing ring, int maxFrames) throws IOException;
+}
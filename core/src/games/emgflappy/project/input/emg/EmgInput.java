@@ -0,0 +1,216 @@
+package games.emgflappy.project.input.emg;
+
+import com.badlogic.gdx.utils.Disposable;
+import games.emgflappy.project.GamePlatform;
+import games.emgflappy.project.telemetry.TelemetryLog;
+
+/**
+ * EMG control for Flappy: an EmgReader (GamePlatform.createEmgReader) fills an EmgSampleRing and
+ * the game thread drains it once per frame with update, which never blocks or allocates
+ * Every drained frame goes through the EmgProcessor and the EmgMixer, the resulting proportional
+ * controls are reported at most once per ActivationInterval of sample time when they have changed
+ */
+public class EmgInput implements Disposable {
+
+    private static final int RingCapacity = 4096; // Frames, ~1 s at 4 kHz so that a few slow frames don't drop samples
+    private static float DeadZone = 0.1f; // Normalized activation below this is treated as rest (0), the rest is rescaled to [0, 1]
+    private static float ActivationStep = 0.02f; // Smallest activation (or speed) change which is reported
+    private static long ActivationInterval = 4000000L; // Nanoseconds of sample time between reported activations at most (a quarter of a physics step)
+
+    /**
+     * Receives EMG control changes on the game thread
+     */
+    public interface Listener {
+        /**
+         * Called when EMG controls have changed
+         * @param activation Activation in the range of [0, 1], 0 releases Flappy
+         * @param speed Horizontal speed multiplier, 1 is the normal speed
+         * @param time Timestamp of the sample which caused the change in nanoseconds
+         */
+        void onEmgActivation(float activation, float speed, long time);
+    }
+
+    private final EmgSampleRing ring;
+    private final EmgReader reader;
+    private final EmgProcessor processor;
+    private final EmgMixer mixer;
+    private final int channels;
+    private final float[] frames; // Drained samples, reused each update
+    private final long[] frameTimes; // Drained timestamps, reused each update
+    private float activation; // Latest reported activation
+    private float speed; // Latest reported speed multiplier
+    private long reportTime; // Timestamp of the latest reported activation
+    private EmgStatistics statistics; // Collects envelopes during calibration, null otherwise
+    private TelemetryLog telemetry; // Records raw frames, null when the session isn't recorded
+
+    /**
+     * Constructor for EmgInput with the default EmgProcessor where the mean of all channels lifts
+     * Flappy, call start to begin reading
+     * @param platform GamePlatform which creates the EmgReader
+     * @param source EmgSource which is read
+     */
+    public EmgInput(GamePlatform platform, EmgSource source) {
+        this(platform, source, EmgMixer.average(source.getChannelCount()));
+    }
+
+    /**
+     * Constructor for EmgInput with the default EmgProcessor, call start to begin reading
+     * @param platform GamePlatform which creates the EmgReader
+     * @param source EmgSource which is read
+     * @param mixer EmgMixer with the same channel count as the source
+     */
+    public EmgInput(GamePlatform platform, EmgSource source, EmgMixer mixer) {
+        this(platform, source, new EmgProcessor(source.getChannelCount(), source.getSampleRate()), mixer);
+    }
+
+    /**
+     * Constructor for EmgInput, call start to begin reading
+     * @param platform GamePlatform which creates the EmgReader
+     * @param source EmgSource which is read
+     * @param processor EmgProcessor with the same channel count as the source
+     * @param mixer EmgMixer with the same channel count as the source
+     */
+    public EmgInput(GamePlatform platform, EmgSource source, EmgProcessor processor, EmgMixer mixer) {
+        channels = source.getChannelCount();
+        if (processor.getChannelCount() != channels || mixer.getChannelCount() != channels) {
+            throw new IllegalArgumentException("EmgProcessor and EmgMixer channel counts must match the EMG source");
+        }
+        this.processor = processor;
+        this.mixer = mixer;
+        ring = new EmgSampleRing(RingCapacity, channels);
+        reader = platform.createEmgReader(source, ring);
+        frames = new float[ring.capacity() * channels];
+        frameTimes = new long[ring.capacity()];
+        activation = 0.f;
+        speed = 1.f;
+        reportTime = Long.MIN_VALUE;
+    }
+
+    /**
+     * Start reading the source
+     */
+    public void start() {
+        reader.start();
+    }
+
+    /**
+     * Stop reading and close the source
+     */
+    @Override
+    public void dispose() {
+        reader.dispose();
+    }
+
+    /**
+     * Drain frames read since the previous update, call this once per frame on the game thread
+     * Frames are always processed (so that the filters stay settled and calibration works while the game
+     * is paused), only reporting depends on the listener
+     * @param listener Listener notified about activation changes, null to only process the frames
+     *                 (e.g. while the game is paused)
+     * @return Amount of drained frames
+     */
+    public int update(Listener listener) {
+        reader.poll();
+        int count = ring.drain(frames, frameTimes, frameTimes.length);
+        for (int i = 0; i < count; i++) {
+            processor.process(frames, i * channels);
+            if (telemetry != null) telemetry.logEmg(frameTimes[i], frames, i * channels, channels);
+            if (statistics != null) {
+                for (int c = 0; c < channels; c++) statistics.add(c, processor.getEnvelope(c));
+            }
+            if (listener == null) {
+                activation = 0.f; // The game releases Flappy while paused
+                continue;
+            }
+            mixer.mix(processor);
+            float value = mixer.getOutput(EmgMixer.Lift);
+            value = value > DeadZone ? (value - DeadZone) / (1.f - DeadZone) : 0.f;
+            float valueSpeed = mixer.getOutput(EmgMixer.Speed);
+            long time = frameTimes[i];
+            boolean changed = Math.abs(value - activation) >= ActivationStep || (value == 0.f) != (activation == 0.f)
+                    || Math.abs(valueSpeed - speed) >= ActivationStep;
+            if (changed && time - reportTime >= ActivationInterval) {
+                activation = value;
+                speed = valueSpeed;
+                reportTime = time;
+                listener.onEmgActivation(activation, speed, time);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get the latest reported activation
+     * @return Activation in the range of [0, 1]
+     */
+    public float getActivation() {
+        return activation;
+    }
+
+    /**
+     * Get the latest reported speed multiplier
+     * @return Speed multiplier, 1 is the normal speed
+     */
+    public float getSpeed() {
+        return speed;
+    }
+
+    /**
+     * Get the mixing matrix (e.g. to change the mapping of a protocol)
+     * @return mixer
+     */
+    public EmgMixer getMixer() {
+        return mixer;
+    }
+
+    /**
+     * Get the signal conditioning chain (e.g. to set normalization after calibration)
+     * @return processor
+     */
+    public EmgProcessor getProcessor() {
+        return processor;
+    }
+
+    /**
+     * Collect envelope statistics of every processed frame (calibration)
+     * @param statistics EmgStatistics with the same channel count as the source, null to stop collecting
+     */
+    public void setStatistics(EmgStatistics statistics) {
+        if (statistics != null && statistics.getChannelCount() != channels) {
+            throw new IllegalArgumentException("EmgStatistics channel count doesn't match the EMG source");
+        }
+        this.statistics = statistics;
+    }
+
+    /**
+     * Record every drained raw frame
+     * @param telemetry TelemetryLog or null to stop recording
+     */
+    public void setTelemetry(TelemetryLog telemetry) {
+        this.telemetry = telemetry;
+    }
+
+    /**
+     * Get amount of EMG channels
+     * @return channels
+     */
+    public int getChannelCount() {
+        return channels;
+    }
+
+    /**
+     * Check whether the reader is still receiving frames
+     * @return false if the source has ended or failed
+     */
+    public boolean isReading() {
+        return reader.isRunning();
+    }
+
+    /**
+     * Get how many frames have been dropped because the game thread didn't keep up
+     * @return Dropped frame count
+     */
+    public long getDroppedCount() {
+        return ring.getDroppedCount();
+    }
+}
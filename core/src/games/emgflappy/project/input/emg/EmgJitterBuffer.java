@@ -0,0 +1,160 @@
+package games.emgflappy.project.input.emg;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Jitter buffer for EMG frames received over the network
+ * Frames are stored by their frame index (sample counter of the sender) so packets arriving out
+ * of order are put back in order, frames are played out at the nominal sampling rate the playout delay after
+ * the first frame arrived
+ * Lost frames repeat the previous frame, late frames (index already played out) are dropped and
+ * when the buffer runs empty playout restarts with the next packet
+ * Note: not thread-safe, use from the thread which reads the network (selector thread)
+ */
+public class EmgJitterBuffer {
+
+    private final int channels;
+    private final int mask; // capacity - 1, capacity is a power of two
+    private final long[] tags; // Frame index stored in each slot, -1 for empty
+    private final float[] samples;
+    private final float[] previous; // Latest played out frame, repeated for lost frames
+    private final long interval; // Nanoseconds between frames
+    private final long delay; // Playout delay in nanoseconds
+
+    private boolean playing;
+    private long nextFrame; // Index of the next frame to be played out
+    private long newestFrame; // Largest received frame index
+    private long baseFrame; // Frame index which is played out at baseTime
+    private long baseTime;
+    private long lostCount;
+    private long lateCount;
+
+    /**
+     * Constructor for EmgJitterBuffer
+     * @param channels Samples per frame
+     * @param sampleRate Sampling rate of the sender in Hz
+     * @param delaySeconds Playout delay, should cover the expected network jitter
+     */
+    public EmgJitterBuffer(int channels, int sampleRate, float delaySeconds) {
+        this.channels = channels;
+        interval = 1000000000L / sampleRate;
+        delay = (long) (delaySeconds * 1000000000L);
+        int minCapacity = (int) Math.max(4, delay / interval * 4); // Room for the delay and bursts after it
+        int capacity = Integer.highestOneBit(minCapacity);
+        if (capacity < minCapacity) capacity <<= 1;
+        mask = capacity - 1;
+        tags = new long[capacity];
+        samples = new float[capacity * channels];
+        previous = new float[channels];
+        reset();
+    }
+
+    /**
+     * Remove all frames, playout starts again from the next received frame
+     */
+    public void reset() {
+        for (int i = 0; i < tags.length; i++) tags[i] = -1;
+        playing = false;
+    }
+
+    /**
+     * Store one frame, reads channels floats from src (its position is advanced)
+     * @param frameIndex Frame index from the sender
+     * @param src Buffer positioned at the first sample of the frame
+     * @param arrivalTime Arrival time of the packet in nanoseconds
+     */
+    public void put(long frameIndex, ByteBuffer src, long arrivalTime) {
+        if (!playing || Math.abs(frameIndex - nextFrame) > mask) {
+            // First frame, sender is far ahead (e.g. after it was paused) or sender restarted its
+            // frame counter: restart playout
+            reset();
+            playing = true;
+            nextFrame = frameIndex;
+            newestFrame = frameIndex;
+            baseFrame = frameIndex;
+            baseTime = arrivalTime + delay;
+        }
+        if (frameIndex < nextFrame) {
+            lateCount++;
+            src.position(src.position() + channels * 4);
+            return;
+        }
+        int slot = (int) frameIndex & mask;
+        tags[slot] = frameIndex;
+        for (int c = 0; c < channels; c++) samples[slot * channels + c] = src.getFloat();
+        if (frameIndex > newestFrame) newestFrame = frameIndex;
+    }
+
+    /**
+     * Play out frames which are due
+     * @param now Current time in nanoseconds
+     * @param frames Destination for the interleaved samples
+     * @param maxFrames How many frames are played out at most
+     * @return Amount of frames played out
+     */
+    public int take(long now, float[] frames, int maxFrames) {
+        int count = 0;
+        while (count < maxFrames && playOut(now)) {
+            System.arraycopy(previous, 0, frames, count * channels, channels);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Play out frames which are due straight into an EmgSampleRing, frames are timestamped with
+     * their playout time
+     * @param now Current time in nanoseconds
+     * @param ring EmgSampleRing where the frames are offered, the caller must be its only producer
+     * @param maxFrames How many frames are played out at most
+     * @return Amount of frames played out (frames the full ring dropped included)
+     */
+    public int take(long now, EmgSampleRing ring, int maxFrames) {
+        int count = 0;
+        while (count < maxFrames) {
+            long time = baseTime + (nextFrame - baseFrame) * interval; // Playout time of nextFrame
+            if (!playOut(now)) break;
+            ring.offer(time, previous, 0);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Move the next frame to previous if it is due, a lost frame leaves previous as it is
+     * @param now Current time in nanoseconds
+     * @return false if no frame is due or the buffer ran empty
+     */
+    private boolean playOut(long now) {
+        if (!playing || baseTime + (nextFrame - baseFrame) * interval > now) return false;
+        if (nextFrame > newestFrame) {
+            playing = false; // Buffer ran empty (sender stopped or delay too short): wait for the next packet and buffer again
+            return false;
+        }
+        int slot = (int) nextFrame & mask;
+        if (tags[slot] == nextFrame) {
+            System.arraycopy(samples, slot * channels, previous, 0, channels);
+            tags[slot] = -1;
+        } else {
+            lostCount++;
+        }
+        nextFrame++;
+        return true;
+    }
+
+    /**
+     * Get how many frames were missing when they should have been played out
+     * @return lostCount
+     */
+    public long getLostCount() {
+        return lostCount;
+    }
+
+    /**
+     * Get how many frames arrived after they should have been played out
+     * @return lateCount
+     */
+    public long getLateCount() {
+        return lateCount;
+    }
+}
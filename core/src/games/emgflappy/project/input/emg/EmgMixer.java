@@ -0,0 +1,155 @@
+package games.emgflappy.project.input.emg;
+
+/**
+ * Mixing matrix which maps normalized EMG channel activations to Flappy controls
+ * Each output is offset + sum(weight * activation) clamped to its range: Lift scales Flappy's
+ * upward force ([0, 1]) and Speed scales Flappy's horizontal velocity ([MinSpeed, MaxSpeed], 1 is
+ * the normal speed)
+ * Weights are stored row by row (one row per output) in a single primitive array, so mixing N channels
+ * is one pass over N floats per output
+ * Agonist / antagonist pairs are mapped with weights of opposite sign, e.g. lift = a0 - a1
+ */
+public class EmgMixer {
+
+    public static final int Lift = 0; // Output index of the upward force activation
+    public static final int Speed = 1; // Output index of the horizontal speed multiplier
+    public static final int Outputs = 2;
+
+    private static float MinSpeed = 0.5f; // Slowest horizontal speed as a multiplier of Flappy's normal speed
+    private static float MaxSpeed = 2.f; // Fastest horizontal speed as a multiplier of Flappy's normal speed
+
+    private final int channels;
+    private final float[] weights; // Outputs * channels, row per output
+    private final float[] offsets; // Output value when all channels are at rest
+    private final float[] mins;
+    private final float[] maxs;
+    private final float[] outputs; // Latest mixed outputs
+
+    /**
+     * Create mixer where the mean of all channels lifts Flappy and the speed is constant
+     * (the mapping used before multi-channel control)
+     * @param channels Amount of EMG channels
+     * @return EmgMixer
+     */
+    public static EmgMixer average(int channels) {
+        EmgMixer mixer = new EmgMixer(channels);
+        for (int c = 0; c < channels; c++) mixer.setWeight(Lift, c, 1.f / channels);
+        return mixer;
+    }
+
+    /**
+     * Create mixer for agonist / antagonist pairs: channels 0 and 1 raise and lower the lift,
+     * channels 2 and 3 speed up and slow down Flappy, further pairs alternate the same way (4 and 5
+     * lift, 6 and 7 speed, ...) and the agonists and the antagonists of an output are averaged
+     * With an odd channel count the last channel has no antagonist and only raises its output
+     * @param channels Amount of EMG channels, at least 2
+     * @return EmgMixer
+     */
+    public static EmgMixer pairs(int channels) {
+        if (channels < 2) throw new IllegalArgumentException("Agonist / antagonist mapping needs at least 2 channels");
+        EmgMixer mixer = new EmgMixer(channels);
+        int[] agonists = new int[Outputs];
+        int[] antagonists = new int[Outputs];
+        for (int c = 0; c < channels; c++) {
+            if (c % 2 == 0) agonists[pairOutput(c)]++;
+            else antagonists[pairOutput(c)]++;
+        }
+        for (int c = 0; c < channels; c++) {
+            int output = pairOutput(c);
+            boolean agonist = c % 2 == 0;
+            float weight;
+            if (output == Lift) weight = agonist ? 1.f : -1.f;
+            else weight = agonist ? MaxSpeed - 1.f : MinSpeed - 1.f;
+            mixer.setWeight(output, c, weight / (agonist ? agonists[output] : antagonists[output]));
+        }
+        return mixer;
+    }
+
+    /**
+     * Get output controlled by a channel in the pairs mapping
+     * @param channel Channel index
+     * @return Lift for pairs 0, 2, 4, ... and Speed for pairs 1, 3, 5, ...
+     */
+    private static int pairOutput(int channel) {
+        return (channel / 2) % 2 == 0 ? Lift : Speed;
+    }
+
+    /**
+     * Constructor for EmgMixer, all weights are 0 (Flappy is never lifted and moves at the normal speed)
+     * @param channels Amount of EMG channels
+     */
+    public EmgMixer(int channels) {
+        if (channels < 1) throw new IllegalArgumentException("channels must be positive");
+        this.channels = channels;
+        weights = new float[Outputs * channels];
+        offsets = new float[Outputs];
+        mins = new float[Outputs];
+        maxs = new float[Outputs];
+        outputs = new float[Outputs];
+        mins[Lift] = 0.f;
+        maxs[Lift] = 1.f;
+        mins[Speed] = MinSpeed;
+        maxs[Speed] = MaxSpeed;
+        offsets[Speed] = 1.f;
+        for (int o = 0; o < Outputs; o++) outputs[o] = offsets[o];
+    }
+
+    /**
+     * Set matrix element
+     * @param output Lift or Speed
+     * @param channel Channel index
+     * @param weight How much the channel activation changes the output
+     */
+    public void setWeight(int output, int channel, float weight) {
+        weights[output * channels + channel] = weight;
+    }
+
+    /**
+     * Get matrix element
+     * @param output Lift or Speed
+     * @param channel Channel index
+     * @return weight
+     */
+    public float getWeight(int output, int channel) {
+        return weights[output * channels + channel];
+    }
+
+    /**
+     * Set output value when all channels are at rest
+     * @param output Lift or Speed
+     * @param offset Offset added to the weighted sum
+     */
+    public void setOffset(int output, float offset) {
+        offsets[output] = offset;
+    }
+
+    /**
+     * Mix the latest channel activations of an EmgProcessor
+     * @param processor EmgProcessor with the same channel count
+     */
+    public void mix(EmgProcessor processor) {
+        for (int o = 0; o < Outputs; o++) {
+            float sum = offsets[o];
+            int row = o * channels;
+            for (int c = 0; c < channels; c++) sum += weights[row + c] * processor.getActivation(c);
+            outputs[o] = Math.min(Math.max(sum, mins[o]), maxs[o]);
+        }
+    }
+
+    /**
+     * Get the latest mixed output
+     * @param output Lift or Speed
+     * @return Output value clamped to its range
+     */
+    public float getOutput(int output) {
+        return outputs[output];
+    }
+
+    /**
+     * Get amount of EMG channels
+     * @return channels
+     */
+    public int getChannelCount() {
+        return channels;
+    }
+}
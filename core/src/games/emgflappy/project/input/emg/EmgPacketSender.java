@@ -0,0 +1,85 @@
+package games.emgflappy.project.input.emg;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Sends EMG frames in the NetworkEmgSource packet format, stands in for the EMG bridge when
+ * testing over the loopback interface
+ */
+public class EmgPacketSender {
+
+    private final WritableByteChannel channel;
+    private final int channels;
+    private final int maxFrames; // Frames per packet at most so that packets fit MaxPacketSize
+    private final ByteBuffer buffer;
+    private long nextFrame; // Frame index of the next sent frame
+
+    /**
+     * Create sender which sends UDP packets
+     * @param host Receiver host (e.g. "localhost")
+     * @param port Receiver port
+     * @param channels Samples per frame
+     * @return EmgPacketSender
+     * @throws IOException if the socket can't be opened
+     */
+    public static EmgPacketSender udp(String host, int port, int channels) throws IOException {
+        DatagramChannel datagram = DatagramChannel.open();
+        datagram.connect(new InetSocketAddress(host, port));
+        return new EmgPacketSender(datagram, channels);
+    }
+
+    /**
+     * Constructor for EmgPacketSender
+     * @param channel Channel where packets are written to (connected DatagramChannel or SocketChannel)
+     * @param channels Samples per frame
+     */
+    public EmgPacketSender(WritableByteChannel channel, int channels) {
+        this.channel = channel;
+        this.channels = channels;
+        maxFrames = Math.min((NetworkEmgSource.MaxPacketSize - NetworkEmgSource.HeaderSize) / (channels * 4), 0xffff);
+        buffer = ByteBuffer.allocateDirect(NetworkEmgSource.MaxPacketSize).order(ByteOrder.BIG_ENDIAN);
+        nextFrame = 0;
+    }
+
+    /**
+     * Send frames, frames are numbered continuously (large blocks are split to several packets)
+     * @param frames Interleaved samples
+     * @param offset Index of the first sample in frames
+     * @param frameCount Amount of frames
+     * @throws IOException if sending fails
+     */
+    public void send(float[] frames, int offset, int frameCount) throws IOException {
+        while (frameCount > 0) {
+            int count = Math.min(frameCount, maxFrames);
+            buffer.clear();
+            buffer.putInt(NetworkEmgSource.Magic).putLong(nextFrame).putShort((short) channels).putShort((short) count);
+            for (int i = 0; i < count * channels; i++) buffer.putFloat(frames[offset + i]);
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            nextFrame += count;
+            offset += count * channels;
+            frameCount -= count;
+        }
+    }
+
+    /**
+     * Skip frame indices without sending them (simulates lost packets)
+     * @param frameCount Amount of skipped frames
+     */
+    public void skip(int frameCount) {
+        nextFrame += frameCount;
+    }
+
+    /**
+     * Close the channel
+     * @throws IOException if closing fails
+     */
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,193 @@
+package games.emgflappy.project.input.emg;
+
+/**
+ * Streaming EMG signal conditioning: band-pass, full-wave rectification, envelope and normalization
+ * Every stage keeps its state in primitive arrays (one slot per channel), processing a sample is
+ * O(1) and never allocates
+ * Band-pass is a second order high-pass followed by a second order low-pass (RBJ biquads), the
+ * envelope is either the moving RMS or the moving average of the rectified signal
+ */
+public class EmgProcessor {
+
+    private static final float DefaultLowCutoff = 20.f; // Hz, removes motion artifacts and baseline drift
+    private static final float DefaultHighCutoff = 450.f; // Hz, most of the surface EMG power is below this
+    private static final float DefaultWindowSeconds = 0.1f; // Envelope window length
+
+    private final int channels;
+    private final boolean rms;
+    private final int window; // Envelope window length in samples
+
+    // Biquad coefficients (b0, b1, b2, a1, a2) for the high-pass and low-pass stages
+    private final float[] highPass;
+    private final float[] lowPass;
+    // Biquad state (transposed direct form II), two values per channel and stage
+    private final float[] highPassState;
+    private final float[] lowPassState;
+
+    private final float[] windowSamples; // Rectified (or squared) samples in the envelope window, channels * window
+    private final double[] windowSums; // Running sum of windowSamples per channel
+    private int windowIndex;
+    private int windowFill;
+
+    private final float[] rest; // Envelope at rest per channel
+    private final float[] range; // Envelope at maximum contraction minus rest per channel
+    private final float[] envelope; // Latest envelope per channel
+    private final float[] activation; // Latest normalized envelope per channel
+
+    /**
+     * Constructor for EmgProcessor with default cutoffs (20 - 450 Hz) and a 100 ms RMS window
+     * @param channels Samples per frame
+     * @param sampleRate Sampling rate in Hz, at least 1 kHz for the default cutoffs
+     */
+    public EmgProcessor(int channels, int sampleRate) {
+        this(channels, sampleRate, DefaultLowCutoff, Math.min(DefaultHighCutoff, sampleRate * 0.45f), DefaultWindowSeconds, true);
+    }
+
+    /**
+     * Constructor for EmgProcessor
+     * @param channels Samples per frame
+     * @param sampleRate Sampling rate in Hz
+     * @param lowCutoff Band-pass lower cutoff frequency in Hz
+     * @param highCutoff Band-pass upper cutoff frequency in Hz, below sampleRate / 2
+     * @param windowSeconds Envelope window length in seconds
+     * @param rms true for a moving RMS envelope, false for a moving average of the rectified signal
+     */
+    public EmgProcessor(int channels, int sampleRate, float lowCutoff, float highCutoff, float windowSeconds, boolean rms) {
+        if (channels < 1 || sampleRate < 1) throw new IllegalArgumentException("channels and sampleRate must be positive");
+        if (lowCutoff <= 0.f || highCutoff <= lowCutoff || highCutoff >= sampleRate * 0.5f) {
+            throw new IllegalArgumentException("Band-pass must satisfy 0 < lowCutoff < highCutoff < sampleRate / 2");
+        }
+        this.channels = channels;
+        this.rms = rms;
+        window = Math.max(1, Math.round(windowSeconds * sampleRate));
+        highPass = biquad(lowCutoff, sampleRate, true);
+        lowPass = biquad(highCutoff, sampleRate, false);
+        highPassState = new float[channels * 2];
+        lowPassState = new float[channels * 2];
+        windowSamples = new float[channels * window];
+        windowSums = new double[channels];
+        rest = new float[channels];
+        range = new float[channels];
+        envelope = new float[channels];
+        activation = new float[channels];
+        for (int c = 0; c < channels; c++) range[c] = 1.f;
+        reset();
+    }
+
+    /**
+     * Clear filter and envelope state (normalization is kept)
+     */
+    public void reset() {
+        for (int i = 0; i < highPassState.length; i++) {
+            highPassState[i] = 0.f;
+            lowPassState[i] = 0.f;
+        }
+        for (int i = 0; i < windowSamples.length; i++) windowSamples[i] = 0.f;
+        for (int c = 0; c < channels; c++) {
+            windowSums[c] = 0.0;
+            envelope[c] = 0.f;
+            activation[c] = 0.f;
+        }
+        windowIndex = 0;
+        windowFill = 0;
+    }
+
+    /**
+     * Set normalization of a channel: rest maps to activation 0 and mvc to activation 1
+     * @param channel Channel index
+     * @param rest Envelope at rest (baseline)
+     * @param mvc Envelope at maximum voluntary contraction
+     */
+    public void setNormalization(int channel, float rest, float mvc) {
+        this.rest[channel] = rest;
+        range[channel] = Math.max(mvc - rest, 1e-9f);
+    }
+
+    /**
+     * Process one frame
+     * @param frames Array containing raw samples
+     * @param offset Index of the first sample of the frame in frames
+     * @return Mean activation of the channels in the range of [0, 1]
+     */
+    public float process(float[] frames, int offset) {
+        float sum = 0.f;
+        int slot = windowIndex * channels;
+        for (int c = 0; c < channels; c++) {
+            float x = filter(highPass, highPassState, c, frames[offset + c]);
+            x = Math.abs(filter(lowPass, lowPassState, c, x));
+            if (rms) x *= x;
+            windowSums[c] += x - windowSamples[slot + c];
+            windowSamples[slot + c] = x;
+            float mean = (float) Math.max(windowSums[c], 0.0) / (windowFill < window ? windowFill + 1 : window);
+            envelope[c] = rms ? (float) Math.sqrt(mean) : mean;
+            activation[c] = Math.min(Math.max((envelope[c] - rest[c]) / range[c], 0.f), 1.f);
+            sum += activation[c];
+        }
+        if (windowFill < window) windowFill++;
+        windowIndex = windowIndex + 1 == window ? 0 : windowIndex + 1;
+        return sum / channels;
+    }
+
+    /**
+     * Get the latest envelope of a channel (before normalization)
+     * @param channel Channel index
+     * @return Envelope in sample units
+     */
+    public float getEnvelope(int channel) {
+        return envelope[channel];
+    }
+
+    /**
+     * Get the latest normalized activation of a channel
+     * @param channel Channel index
+     * @return Activation in the range of [0, 1]
+     */
+    public float getActivation(int channel) {
+        return activation[channel];
+    }
+
+    /**
+     * Get samples per frame
+     * @return channels
+     */
+    public int getChannelCount() {
+        return channels;
+    }
+
+    /**
+     * Run one biquad stage for one channel
+     * @param coefficients b0, b1, b2, a1, a2
+     * @param state Stage state, two values per channel
+     * @param channel Channel index
+     * @param x Input sample
+     * @return Output sample
+     */
+    private static float filter(float[] coefficients, float[] state, int channel, float x) {
+        int s = channel * 2;
+        float y = coefficients[0] * x + state[s];
+        state[s] = coefficients[1] * x - coefficients[3] * y + state[s + 1];
+        state[s + 1] = coefficients[2] * x - coefficients[4] * y;
+        return y;
+    }
+
+    /**
+     * Compute second order Butterworth (Q = 1/sqrt(2)) high-pass or low-pass coefficients
+     * See for reference: https://www.w3.org/TR/audio-eq-cookbook/
+     * @param cutoff Cutoff frequency in Hz
+     * @param sampleRate Sampling rate in Hz
+     * @param highPass true for high-pass, false for low-pass
+     * @return Normalized coefficients b0, b1, b2, a1, a2
+     */
+    private static float[] biquad(float cutoff, int sampleRate, boolean highPass) {
+        double w0 = 2.0 * Math.PI * cutoff / sampleRate;
+        double cos = Math.cos(w0);
+        double alpha = Math.sin(w0) / Math.sqrt(2.0);
+        double a0 = 1.0 + alpha;
+        double b1 = highPass ? -(1.0 + cos) : 1.0 - cos;
+        double b0 = highPass ? (1.0 + cos) / 2.0 : (1.0 - cos) / 2.0;
+        return new float[] {
+                (float) (b0 / a0), (float) (b1 / a0), (float) (b0 / a0),
+                (float) (-2.0 * cos / a0), (float) ((1.0 - alpha) / a0)
+        };
+    }
+}
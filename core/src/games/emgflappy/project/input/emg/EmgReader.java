@@ -0,0 +1,28 @@
+package games.emgflappy.project.input.emg;
+
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Moves frames from an EmgSource to an EmgSampleRing, the reader is the only producer of the ring
+ * ThreadedEmgReader reads on its own thread, PolledEmgReader reads on the game thread from poll
+ * for platforms without threads (html), GamePlatform.createEmgReader selects the implementation
+ */
+public interface EmgReader extends Disposable {
+
+    /**
+     * Open the source and start reading
+     */
+    void start();
+
+    /**
+     * Read frames which are available now, called by EmgInput on the game thread before draining
+     * the ring (does nothing when the reader has its own thread)
+     */
+    void poll();
+
+    /**
+     * Check whether the reader is still reading
+     * @return false after the source has ended, failed or the reader has been disposed
+     */
+    boolean isRunning();
+}
@@ -0,0 +1,109 @@
+package games.emgflappy.project.input.emg;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-producer/single-consumer ring buffer for timestamped EMG sample frames
+ * A frame holds one sample per channel, frames are stored interleaved in a float array and their
+ * timestamps in a long array so offering and draining never allocate or block
+ * Note: exactly one thread may offer and exactly one (other) thread may drain
+ */
+public final class EmgSampleRing {
+
+    private final int channels;
+    private final int mask; // capacity - 1, capacity is a power of two
+    private final float[] samples;
+    private final long[] times;
+    private final AtomicLong head; // Next frame to be drained, written only by the consumer
+    private final AtomicLong tail; // Next frame to be offered, written only by the producer
+    private volatile long dropped; // Frames rejected because the ring was full, written only by the producer
+
+    /**
+     * Constructor for EmgSampleRing
+     * @param capacity Minimum amount of frames the ring holds, rounded up to a power of two
+     * @param channels Samples per frame
+     */
+    public EmgSampleRing(int capacity, int channels) {
+        if (capacity < 1 || channels < 1) throw new IllegalArgumentException("capacity and channels must be positive");
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) size <<= 1;
+        this.channels = channels;
+        mask = size - 1;
+        samples = new float[size * channels];
+        times = new long[size];
+        head = new AtomicLong(0);
+        tail = new AtomicLong(0);
+        dropped = 0;
+    }
+
+    /**
+     * Add one frame (producer thread only)
+     * @param time Timestamp of the frame in nanoseconds (TimeUtils.nanoTime clock)
+     * @param frame Array containing the samples
+     * @param offset Index of the first sample of the frame in frame
+     * @return true if the frame was added, false if the ring was full and the frame was dropped
+     */
+    public boolean offer(long time, float[] frame, int offset) {
+        long t = tail.get();
+        if (t - head.get() > mask) {
+            dropped++;
+            return false;
+        }
+        int i = (int) t & mask;
+        System.arraycopy(frame, offset, samples, i * channels, channels);
+        times[i] = time;
+        tail.lazySet(t + 1); // Publishes the frame to the consumer
+        return true;
+    }
+
+    /**
+     * Move available frames to the given arrays (consumer thread only)
+     * @param frames Destination for the interleaved samples, must hold maxFrames * channels samples
+     * @param frameTimes Destination for the frame timestamps, must hold maxFrames timestamps
+     * @param maxFrames How many frames are moved at most
+     * @return Amount of frames moved
+     */
+    public int drain(float[] frames, long[] frameTimes, int maxFrames) {
+        long h = head.get();
+        int count = (int) Math.min(tail.get() - h, maxFrames);
+        for (int n = 0; n < count; n++) {
+            int i = (int) (h + n) & mask;
+            System.arraycopy(samples, i * channels, frames, n * channels, channels);
+            frameTimes[n] = times[i];
+        }
+        head.lazySet(h + count); // Frees the slots for the producer
+        return count;
+    }
+
+    /**
+     * Get amount of frames waiting to be drained
+     * @return size
+     */
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * Get amount of frames the ring holds
+     * @return capacity
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Get samples per frame
+     * @return channels
+     */
+    public int getChannelCount() {
+        return channels;
+    }
+
+    /**
+     * Get how many frames have been dropped because the consumer didn't keep up
+     * @return dropped
+     */
+    public long getDroppedCount() {
+        return dropped;
+    }
+}
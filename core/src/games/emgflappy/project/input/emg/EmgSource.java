@@ -0,0 +1,40 @@
+package games.emgflappy.project.input.emg;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Source of raw EMG sample frames (sensor hardware, recorded file, loopback etc.)
+ * Sources are read by an EmgReader, a frame holds one sample per channel
+ */
+public interface EmgSource extends Closeable {
+
+    /**
+     * Get amount of channels (samples per frame)
+     * @return channel count
+     */
+    int getChannelCount();
+
+    /**
+     * Get nominal sampling rate
+     * @return Frames per second
+     */
+    int getSampleRate();
+
+    /**
+     * Open the source, called from the EmgReader before the first read
+     * @throws IOException if the source can't be opened
+     */
+    void open() throws IOException;
+
+    /**
+     * Read frames, this may block until at least one frame is available (but should return
+     * regularly, e.g. every few milliseconds, so that the reader can be stopped), sources read by
+     * PolledEmgReader must not block
+     * @param frames Destination for the interleaved samples
+     * @param maxFrames How many frames are read at most
+     * @return Amount of frames read (0 if none were available), -1 when the source has ended
+     * @throws IOException if reading fails
+     */
+    int read(float[] frames, int maxFrames) throws IOException;
+}
@@ -0,0 +1,143 @@
+package games.emgflappy.project.input.emg;
+
+import games.emgflappy.project.utils.LogHistogram;
+
+/**
+ * Streaming per-channel statistics in fixed memory: count, min, max, mean and variance with
+ * Welford's online algorithm and percentiles from a log-spaced histogram
+ * Log-spaced bins keep the relative percentile error constant (set by BinsPerDecade) without knowing the
+ * signal amplitude beforehand, so arbitrarily long calibration holds use the same memory
+ */
+public class EmgStatistics {
+
+    private static final int BinsPerDecade = 64; // Histogram resolution, relative error is about 10^(1/64) - 1 = 3.7 %
+    private static final double MinValue = 1e-6; // Smallest value with its own bin, smaller values go to the first bin
+    private static final int Decades = 12; // Histogram covers [MinValue, MinValue * 10^Decades]
+
+    private final int channels;
+    private final long[] counts;
+    private final double[] means;
+    private final double[] m2; // Sums of squared differences from the mean (Welford)
+    private final float[] mins;
+    private final float[] maxs;
+    private final LogHistogram[] histograms;
+
+    /**
+     * Constructor for EmgStatistics
+     * @param channels Amount of channels
+     */
+    public EmgStatistics(int channels) {
+        this.channels = channels;
+        counts = new long[channels];
+        means = new double[channels];
+        m2 = new double[channels];
+        mins = new float[channels];
+        maxs = new float[channels];
+        histograms = new LogHistogram[channels];
+        for (int c = 0; c < channels; c++) histograms[c] = new LogHistogram(MinValue, BinsPerDecade, Decades);
+        reset();
+    }
+
+    /**
+     * Forget all values
+     */
+    public void reset() {
+        for (int c = 0; c < channels; c++) {
+            counts[c] = 0;
+            means[c] = 0.0;
+            m2[c] = 0.0;
+            mins[c] = Float.MAX_VALUE;
+            maxs[c] = -Float.MAX_VALUE;
+            histograms[c].reset();
+        }
+    }
+
+    /**
+     * Add value, O(1)
+     * @param channel Channel index
+     * @param value Value (envelopes are non-negative, negative values count as 0 in percentiles)
+     */
+    public void add(int channel, float value) {
+        long n = ++counts[channel];
+        double delta = value - means[channel];
+        means[channel] += delta / n;
+        m2[channel] += delta * (value - means[channel]);
+        if (value < mins[channel]) mins[channel] = value;
+        if (value > maxs[channel]) maxs[channel] = value;
+        histograms[channel].add(value);
+    }
+
+    /**
+     * Get amount of added values
+     * @param channel Channel index
+     * @return count
+     */
+    public long getCount(int channel) {
+        return counts[channel];
+    }
+
+    /**
+     * Get mean of the values
+     * @param channel Channel index
+     * @return mean, 0 if there are no values
+     */
+    public float getMean(int channel) {
+        return (float) means[channel];
+    }
+
+    /**
+     * Get sample variance of the values
+     * @param channel Channel index
+     * @return variance, 0 if there are less than two values
+     */
+    public float getVariance(int channel) {
+        return counts[channel] > 1 ? (float) (m2[channel] / (counts[channel] - 1)) : 0.f;
+    }
+
+    /**
+     * Get sample standard deviation of the values
+     * @param channel Channel index
+     * @return standard deviation
+     */
+    public float getStandardDeviation(int channel) {
+        return (float) Math.sqrt(getVariance(channel));
+    }
+
+    /**
+     * Get smallest value
+     * @param channel Channel index
+     * @return min, 0 if there are no values
+     */
+    public float getMin(int channel) {
+        return counts[channel] > 0 ? mins[channel] : 0.f;
+    }
+
+    /**
+     * Get largest value
+     * @param channel Channel index
+     * @return max, 0 if there are no values
+     */
+    public float getMax(int channel) {
+        return counts[channel] > 0 ? maxs[channel] : 0.f;
+    }
+
+    /**
+     * Estimate percentile from the histogram (interpolated inside the bin, clamped to [min, max])
+     * @param channel Channel index
+     * @param fraction Percentile as a fraction, e.g. 0.95f
+     * @return Estimated value, 0 if there are no values
+     */
+    public float getPercentile(int channel, float fraction) {
+        if (counts[channel] == 0) return 0.f;
+        float value = (float) histograms[channel].getPercentile(fraction);
+        return Math.min(Math.max(value, getMin(channel)), getMax(channel));
+    }
+
+    /**
+     * Get amount of channels
+     * @return channels
+     */
+    public int getChannelCount() {
+        return channels;
+    }
+}
@@ -0,0 +1,104 @@
+package games.emgflappy.project.input.emg;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * EmgSource which replays a recording in real time, stands in for the sensor in tests and demos
+ * File format: interleaved little-endian 32-bit float samples, no header
+ */
+public class FileReplaySource implements EmgSource {
+
+    private static final long IdleSleepMillis = 1; // How long read sleeps when no frame is due yet
+
+    private final FileHandle file;
+    private final int channels;
+    private final int sampleRate;
+    private final boolean loop;
+    private float[] recording;
+    private int frameCount;
+    private long emitted; // Frames emitted since startTime
+    private long startTime;
+
+    /**
+     * Constructor for FileReplaySource
+     * @param file Recording to be replayed
+     * @param channels Amount of channels in the recording
+     * @param sampleRate Sampling rate of the recording (frames per second)
+     * @param loop Whether to start again from the beginning after the recording ends
+     */
+    public FileReplaySource(FileHandle file, int channels, int sampleRate, boolean loop) {
+        this.file = file;
+        this.channels = channels;
+        this.sampleRate = sampleRate;
+        this.loop = loop;
+    }
+
+    @Override
+    public int getChannelCount() {
+        return channels;
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Load the whole recording to memory
+     * @throws IOException if the file can't be read
+     */
+    @Override
+    public void open() throws IOException {
+        try {
+            FloatBuffer buffer = ByteBuffer.wrap(file.readBytes()).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+            frameCount = buffer.remaining() / channels;
+            recording = new float[frameCount * channels];
+            buffer.get(recording);
+        } catch (GdxRuntimeException e) {
+            throw new IOException("Can't read EMG recording: " + file.path(), e);
+        }
+        emitted = 0;
+        startTime = TimeUtils.nanoTime();
+    }
+
+    /**
+     * Read frames which are due according to the sampling rate
+     * @param frames Destination for the interleaved samples
+     * @param maxFrames How many frames are read at most
+     * @return Amount of frames read, -1 after the recording has ended (when not looping)
+     * @throws IOException if the reading thread is interrupted
+     */
+    @Override
+    public int read(float[] frames, int maxFrames) throws IOException {
+        if (frameCount == 0 || (!loop && emitted >= frameCount)) return -1;
+        long due = (TimeUtils.nanoTime() - startTime) * sampleRate / 1000000000L - emitted;
+        if (due <= 0) {
+            try {
+                Thread.sleep(IdleSleepMillis);
+            } catch (InterruptedException e) {
+                throw new IOException("EMG replay interrupted", e);
+            }
+            return 0;
+        }
+        int count = (int) Math.min(due, maxFrames);
+        if (!loop) count = (int) Math.min(count, frameCount - emitted);
+        for (int n = 0; n < count; n++) {
+            int frame = (int) ((emitted + n) % frameCount);
+            System.arraycopy(recording, frame * channels, frames, n * channels, channels);
+        }
+        emitted += count;
+        return count;
+    }
+
+    @Override
+    public void close() {
+        recording = null;
+    }
+}
@@ -0,0 +1,84 @@
+package games.emgflappy.project.input.emg;
+
+import java.io.IOException;
+
+/**
+ * In-process EmgSource: frames written by another thread (e.g. a test or a signal generator) are
+ * read by the ThreadedEmgReader as if they came from the sensor
+ * Note: exactly one thread may write
+ */
+public class LoopbackSource implements EmgSource {
+
+    private static final long IdleSleepMillis = 1; // How long read sleeps when no frame is available
+
+    private final int channels;
+    private final int sampleRate;
+    private final EmgSampleRing pipe;
+    private final long[] times; // Drained timestamps, not used by readers of this source
+    private volatile boolean closed;
+
+    /**
+     * Constructor for LoopbackSource
+     * @param channels Samples per frame
+     * @param sampleRate Nominal sampling rate of the written frames
+     * @param capacity How many frames can wait to be read
+     */
+    public LoopbackSource(int channels, int sampleRate, int capacity) {
+        this.channels = channels;
+        this.sampleRate = sampleRate;
+        pipe = new EmgSampleRing(capacity, channels);
+        times = new long[pipe.capacity()];
+        closed = false;
+    }
+
+    /**
+     * Write one frame (writer thread)
+     * @param frame Array containing the samples
+     * @param offset Index of the first sample of the frame in frame
+     * @return false if the frame was dropped because the reader didn't keep up
+     */
+    public boolean write(float[] frame, int offset) {
+        return pipe.offer(0L, frame, offset);
+    }
+
+    @Override
+    public int getChannelCount() {
+        return channels;
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public void open() {
+        closed = false;
+    }
+
+    /**
+     * Read written frames, sleeps shortly if there are none
+     * @param frames Destination for the interleaved samples
+     * @param maxFrames How many frames are read at most
+     * @return Amount of frames read, -1 after close
+     * @throws IOException if the reading thread is interrupted
+     */
+    @Override
+    public int read(float[] frames, int maxFrames) throws IOException {
+        if (closed) return -1;
+        int count = pipe.drain(frames, times, Math.min(maxFrames, times.length));
+        if (count == 0) {
+            try {
+                Thread.sleep(IdleSleepMillis);
+            } catch (InterruptedException e) {
+                throw new IOException("EMG loopback interrupted", e);
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+}
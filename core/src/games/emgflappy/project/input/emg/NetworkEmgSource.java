@@ -0,0 +1,268 @@
+package games.emgflappy.project.input.emg;
+
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+/**
+ * EmgSource which receives frames from an EMG bridge over UDP or TCP
+ * Channels are non-blocking and polled with a Selector by the ThreadedEmgReader thread (it acts as the
+ * selector thread), so the render thread never touches sockets
+ * Packets are decoded straight from a direct ByteBuffer into the EmgJitterBuffer, which plays
+ * them out straight into the EmgSampleRing of the reader, no byte arrays or objects are created
+ * per packet
+ * Packet format (big-endian): magic, first frame index (long), channels (short), frames (short)
+ * and the interleaved float samples, over TCP packets are sent back to back
+ * Packets larger than MaxPacketSize are rejected, a TCP stream which doesn't continue with a valid
+ * packet header is resynchronized to the next magic
+ */
+public class NetworkEmgSource implements DirectEmgSource {
+
+    public static final int Magic = 0x454d474e; // "EMGN"
+    public static final int HeaderSize = 4 + 8 + 2 + 2;
+    public static final int MaxPacketSize = 65507; // Largest UDP payload
+
+    private static final long SelectTimeoutMillis = 2; // How long read waits for data at most
+    private static float JitterDelay = 0.03f; // Playout delay in seconds
+
+    private final boolean tcp;
+    private final SocketAddress address; // Local address for UDP, bridge address for TCP
+    private final int channels;
+    private final int sampleRate;
+    private final EmgJitterBuffer jitterBuffer;
+    private final ByteBuffer buffer;
+    private Selector selector;
+    private SelectableChannel channel;
+    private long malformedCount;
+
+    /**
+     * Create UDP source which receives packets sent to a local port
+     * Note: the channel is never connected to the sender because connecting discards the datagrams
+     * which are already queued
+     * @param port Local port
+     * @param channels Samples per frame
+     * @param sampleRate Sampling rate of the sender in Hz
+     * @return NetworkEmgSource
+     */
+    public static NetworkEmgSource udp(int port, int channels, int sampleRate) {
+        return new NetworkEmgSource(false, new InetSocketAddress(port), channels, sampleRate);
+    }
+
+    /**
+     * Create TCP source which connects to the EMG bridge
+     * @param host Bridge host
+     * @param port Bridge port
+     * @param channels Samples per frame
+     * @param sampleRate Sampling rate of the sender in Hz
+     * @return NetworkEmgSource
+     */
+    public static NetworkEmgSource tcp(String host, int port, int channels, int sampleRate) {
+        return new NetworkEmgSource(true, new InetSocketAddress(host, port), channels, sampleRate);
+    }
+
+    /**
+     * Constructor for NetworkEmgSource
+     * @param tcp true for TCP, false for UDP
+     * @param address Local address for UDP, bridge address for TCP
+     * @param channels Samples per frame
+     * @param sampleRate Sampling rate of the sender in Hz
+     */
+    private NetworkEmgSource(boolean tcp, SocketAddress address, int channels, int sampleRate) {
+        this.tcp = tcp;
+        this.address = address;
+        this.channels = channels;
+        this.sampleRate = sampleRate;
+        jitterBuffer = new EmgJitterBuffer(channels, sampleRate, JitterDelay);
+        buffer = ByteBuffer.allocateDirect(MaxPacketSize * 2).order(ByteOrder.BIG_ENDIAN);
+    }
+
+    @Override
+    public int getChannelCount() {
+        return channels;
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Open the socket (TCP connection is finished in read)
+     * @throws IOException if the socket can't be opened
+     */
+    @Override
+    public void open() throws IOException {
+        selector = Selector.open();
+        buffer.clear();
+        if (tcp) {
+            SocketChannel socket = SocketChannel.open();
+            socket.configureBlocking(false);
+            channel = socket;
+            if (socket.connect(address)) socket.register(selector, SelectionKey.OP_READ);
+            else socket.register(selector, SelectionKey.OP_CONNECT);
+        } else {
+            DatagramChannel datagram = DatagramChannel.open();
+            datagram.configureBlocking(false);
+            datagram.socket().bind(address);
+            channel = datagram;
+            datagram.register(selector, SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Receive available packets and play out frames which are due from the jitter buffer
+     * @param frames Destination for the interleaved samples
+     * @param maxFrames How many frames are read at most
+     * @return Amount of frames read, -1 if the TCP connection was closed
+     * @throws IOException if receiving fails
+     */
+    @Override
+    public int read(float[] frames, int maxFrames) throws IOException {
+        if (!receive()) return -1;
+        return jitterBuffer.take(TimeUtils.nanoTime(), frames, maxFrames);
+    }
+
+    /**
+     * Receive available packets and play out frames which are due straight into the ring
+     * @param ring EmgSampleRing where the frames are offered
+     * @param maxFrames How many frames are played out at most
+     * @return Amount of frames played out, -1 if the TCP connection was closed
+     * @throws IOException if receiving fails
+     */
+    @Override
+    public int read(EmgSampleRing ring, int maxFrames) throws IOException {
+        if (!receive()) return -1;
+        return jitterBuffer.take(TimeUtils.nanoTime(), ring, maxFrames);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) channel.close();
+        if (selector != null) selector.close();
+    }
+
+    /**
+     * Get how many packets were ignored because of an unknown format, size or channel count (over
+     * TCP each resynchronization counts as one)
+     * @return malformedCount
+     */
+    public long getMalformedCount() {
+        return malformedCount;
+    }
+
+    /**
+     * Get jitter buffer statistics (lost and late frames)
+     * @return jitterBuffer
+     */
+    public EmgJitterBuffer getJitterBuffer() {
+        return jitterBuffer;
+    }
+
+    /**
+     * Wait for the socket at most SelectTimeoutMillis and receive pending data
+     * @return false if the TCP connection was closed
+     * @throws IOException if receiving fails
+     */
+    private boolean receive() throws IOException {
+        if (selector.select(SelectTimeoutMillis) == 0) return true;
+        selector.selectedKeys().clear();
+        return tcp ? receiveStream() : receiveDatagrams();
+    }
+
+    /**
+     * Receive all pending datagrams
+     * @return true (UDP sources don't end)
+     * @throws IOException if receiving fails
+     */
+    private boolean receiveDatagrams() throws IOException {
+        DatagramChannel datagram = (DatagramChannel) channel;
+        while (true) {
+            buffer.clear();
+            if (datagram.receive(buffer) == null) return true;
+            buffer.flip();
+            if (!decode(TimeUtils.nanoTime())) malformedCount++;
+        }
+    }
+
+    /**
+     * Finish connecting and receive pending stream data
+     * @return false if the connection was closed
+     * @throws IOException if receiving fails
+     */
+    private boolean receiveStream() throws IOException {
+        SocketChannel socket = (SocketChannel) channel;
+        if (socket.isConnectionPending()) {
+            if (!socket.finishConnect()) return true;
+            socket.register(selector, SelectionKey.OP_READ);
+            return true;
+        }
+        int read = socket.read(buffer);
+        if (read < 0) return false;
+        buffer.flip();
+        long now = TimeUtils.nanoTime();
+        while (buffer.remaining() >= HeaderSize) {
+            if (decode(now)) continue;
+            if (packetSize(buffer.position()) > 0) break; // Incomplete packet, the rest arrives later
+            malformedCount++;
+            resync();
+        }
+        buffer.compact();
+        return true;
+    }
+
+    /**
+     * Skip stream data up to the next magic after the buffer position, when there is none only
+     * the last bytes which may start a magic are kept
+     */
+    private void resync() {
+        int limit = buffer.limit();
+        int position = buffer.position() + 1;
+        while (position + 4 <= limit && buffer.getInt(position) != Magic) position++;
+        buffer.position(position);
+    }
+
+    /**
+     * Get size of the packet whose header starts at index (the header must be in the buffer)
+     * @param index Buffer index of the header
+     * @return Packet size in bytes, -1 if there is no valid header at index
+     */
+    private int packetSize(int index) {
+        if (buffer.getInt(index) != Magic) return -1;
+        int packetChannels = buffer.getShort(index + 12) & 0xffff;
+        int frameCount = buffer.getShort(index + 14) & 0xffff;
+        long size = HeaderSize + (long) packetChannels * frameCount * 4;
+        return size <= MaxPacketSize ? (int) size : -1;
+    }
+
+    /**
+     * Decode one packet at the buffer position into the jitter buffer
+     * @param arrivalTime Arrival time of the packet in nanoseconds
+     * @return false if there is no complete valid packet at the position (position is not moved)
+     */
+    private boolean decode(long arrivalTime) {
+        int start = buffer.position();
+        if (buffer.remaining() < HeaderSize) return false;
+        int size = packetSize(start);
+        if (size < 0 || buffer.remaining() < size) return false;
+        long firstFrame = buffer.getLong(start + 4);
+        int packetChannels = buffer.getShort(start + 12) & 0xffff;
+        int frameCount = buffer.getShort(start + 14) & 0xffff;
+        if (packetChannels != channels) {
+            buffer.position(start + size);
+            malformedCount++;
+            return true;
+        }
+        buffer.position(start + HeaderSize);
+        for (int i = 0; i < frameCount; i++) jitterBuffer.put(firstFrame + i, buffer, arrivalTime);
+        return true;
+    }
+}
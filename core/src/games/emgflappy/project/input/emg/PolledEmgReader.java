@@ -0,0 +1,114 @@
+package games.emgflappy.project.input.emg;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.io.IOException;
+
+/**
+ * EmgReader which reads the EmgSource on the game thread when EmgInput polls it, used on platforms
+ * without threads (html)
+ * The source must not block in read (return 0 when no frames are available), frames are
+ * timestamped and back-dated like in ThreadedEmgReader, a DirectEmgSource writes its frames to the
+ * ring itself
+ */
+public class PolledEmgReader implements EmgReader {
+
+    private static final int BatchFrames = 64; // How many frames are read from the source at once at most
+    private static final int MaxBatchesPerPoll = 16; // Bounds the time spent in poll if the source is far ahead
+
+    private final EmgSource source;
+    private final EmgSampleRing ring;
+    private final DirectEmgSource direct; // source if it writes to the ring itself, otherwise null
+    private final float[] batch;
+    private final long sampleInterval; // Nanoseconds between frames
+    private boolean running;
+
+    /**
+     * Constructor for PolledEmgReader
+     * @param source EmgSource to be read, read must not block
+     * @param ring EmgSampleRing where the frames are written to, must have as many channels as the source
+     */
+    public PolledEmgReader(EmgSource source, EmgSampleRing ring) {
+        if (source.getChannelCount() != ring.getChannelCount()) {
+            throw new IllegalArgumentException("EmgSource and EmgSampleRing channel counts differ");
+        }
+        this.source = source;
+        this.ring = ring;
+        direct = source instanceof DirectEmgSource ? (DirectEmgSource) source : null;
+        batch = new float[BatchFrames * source.getChannelCount()];
+        sampleInterval = 1000000000L / Math.max(source.getSampleRate(), 1);
+    }
+
+    /**
+     * Open the source
+     */
+    @Override
+    public void start() {
+        try {
+            source.open();
+            running = true;
+        } catch (IOException e) {
+            Gdx.app.log(PolledEmgReader.class.getSimpleName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Read frames which are available now
+     */
+    @Override
+    public void poll() {
+        if (!running) return;
+        int channels = source.getChannelCount();
+        try {
+            for (int b = 0; b < MaxBatchesPerPoll; b++) {
+                if (direct != null) {
+                    int frames = direct.read(ring, BatchFrames);
+                    if (frames < 0) {
+                        dispose();
+                        return;
+                    }
+                    if (frames < BatchFrames) break;
+                    continue;
+                }
+                int frames = source.read(batch, BatchFrames);
+                if (frames < 0) {
+                    dispose();
+                    return;
+                }
+                long time = TimeUtils.nanoTime() - (frames - 1) * sampleInterval;
+                for (int i = 0; i < frames; i++) {
+                    ring.offer(time, batch, i * channels);
+                    time += sampleInterval;
+                }
+                if (frames < BatchFrames) break;
+            }
+        } catch (IOException e) {
+            Gdx.app.log(PolledEmgReader.class.getSimpleName(), e.getMessage());
+            dispose();
+        }
+    }
+
+    /**
+     * Stop reading and close the source
+     */
+    @Override
+    public void dispose() {
+        if (!running) return;
+        running = false;
+        try {
+            source.close();
+        } catch (IOException e) {
+            Gdx.app.log(PolledEmgReader.class.getSimpleName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Check whether the reader is still reading
+     * @return false after the source has ended, failed or the reader has been disposed
+     */
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,130 @@
+package games.emgflappy.project.input.emg;
+
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.io.IOException;
+
+/**
+ * EmgReader with a reader thread which moves frames from an EmgSource to an EmgSampleRing
+ * Frames are timestamped when they are read, frames read in the same batch are back-dated by the
+ * sampling interval so that the last frame has the read time, a DirectEmgSource writes its frames
+ * to the ring itself
+ * Note: the reader is the only producer of the ring
+ * JRE only (threads), excluded from the html build
+ */
+public class ThreadedEmgReader implements EmgReader {
+
+    private static final int BatchFrames = 64; // How many frames are read from the source at once at most
+
+    private final EmgSource source;
+    private final EmgSampleRing ring;
+    private final DirectEmgSource direct; // source if it writes to the ring itself, otherwise null
+    private final Thread thread;
+    private final float[] batch;
+    private final long sampleInterval; // Nanoseconds between frames
+    private volatile boolean running;
+    private volatile IOException failure;
+
+    /**
+     * Constructor for ThreadedEmgReader
+     * @param source EmgSource to be read
+     * @param ring EmgSampleRing where the frames are written to, must have as many channels as the source
+     */
+    public ThreadedEmgReader(EmgSource source, EmgSampleRing ring) {
+        if (source.getChannelCount() != ring.getChannelCount()) {
+            throw new IllegalArgumentException("EmgSource and EmgSampleRing channel counts differ");
+        }
+        this.source = source;
+        this.ring = ring;
+        direct = source instanceof DirectEmgSource ? (DirectEmgSource) source : null;
+        batch = new float[BatchFrames * source.getChannelCount()];
+        sampleInterval = 1000000000L / Math.max(source.getSampleRate(), 1);
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                read();
+            }
+        }, ThreadedEmgReader.class.getSimpleName());
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+    }
+
+    /**
+     * Start reading the source
+     */
+    @Override
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * Nothing to do, the reader thread reads the source
+     */
+    @Override
+    public void poll() {
+    }
+
+    /**
+     * Stop the reader thread and close the source
+     */
+    @Override
+    public void dispose() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Check whether the reader is still reading
+     * @return false after the source has ended, failed or the reader has been disposed
+     */
+    @Override
+    public boolean isRunning() {
+        return running && thread.isAlive();
+    }
+
+    /**
+     * Get exception which stopped the reader
+     * @return IOException or null
+     */
+    public IOException getFailure() {
+        return failure;
+    }
+
+    /**
+     * Reader thread loop
+     */
+    private void read() {
+        int channels = source.getChannelCount();
+        try {
+            source.open();
+            while (running) {
+                if (direct != null) {
+                    if (direct.read(ring, BatchFrames) < 0) break;
+                    continue;
+                }
+                int frames = source.read(batch, BatchFrames);
+                if (frames < 0) break;
+                long time = TimeUtils.nanoTime() - (frames - 1) * sampleInterval;
+                for (int i = 0; i < frames; i++) {
+                    ring.offer(time, batch, i * channels);
+                    time += sampleInterval;
+                }
+            }
+        } catch (IOException e) {
+            if (running) failure = e;
+        } finally {
+            running = false;
+            try {
+                source.close();
+            } catch (IOException e) {
+                if (failure == null) failure = e;
+            }
+        }
+    }
+}
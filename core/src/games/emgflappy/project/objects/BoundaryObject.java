@@ -4,6 +4,7 @@ import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.physics.box2d.PolygonShape;
 import com.badlogic.gdx.physics.box2d.Shape;
 import com.badlogic.gdx.utils.Disposable;
+import games.emgflappy.project.utils.NativeTracker;
 
 /**
  * Class creating FlappyWorld static boundaries: these object are not drawn
@@ -24,7 +25,7 @@ public class BoundaryObject implements Disposable {
         bodyDef = new BodyDef();
         bodyDef.type = BodyDef.BodyType.StaticBody;
         bodyDef.fixedRotation = true;
-        shape = new PolygonShape();
+        shape = NativeTracker.createPolygonShape();
         shape.setAsBox(width / 2.f, height / 2.f);
         bodyDef.position.set(x + width / 2.f, y + height / 2.f);
     }
@@ -34,7 +35,7 @@ public class BoundaryObject implements Disposable {
      */
     @Override
     public void dispose() {
-        shape.dispose();
+        NativeTracker.disposeShape(shape);
     }
 
     /**
@@ -1,63 +1,59 @@
 package games.emgflappy.project.objects;
 
 
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.Animation;
-import com.badlogic.gdx.graphics.g2d.Sprite;
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.physics.box2d.FixtureDef;
 import com.badlogic.gdx.physics.box2d.PolygonShape;
 import com.badlogic.gdx.utils.Json;
-import games.emgflappy.project.EMGflappy;
-import games.emgflappy.project.FlappyTextures;
-import games.emgflappy.project.UI.ScreenManager;
 import games.emgflappy.project.audio.AudioType;
 import games.emgflappy.project.audio.FlappyAudio;
+import games.emgflappy.project.utils.NativeTracker;
 
 public class Flappy extends FlappyObject {
 
     private static float FlappyDensity = 0.5f;
     private static float FlappyFriction = 0.f;
     private static float FlappyRestitution = 0.f;
-    private static float FlappyAccelerationY = 20.f; // How much acceleration is applied to Flappy in y dimension after it's touched each update cycle
+    private static float FlappyAccelerationY = 20.f; // How much acceleration is applied to Flappy in y dimension at full activation (touch) each update cycle
     private static float FlappyVelocityX = 5.f; // Linear velocity for Flappy in x dimension
-    private static float FlappyFrameTime = 0.25f; // How many seconds one Flappy animation frame takes @see setFlappyPressed
 
     private static boolean FlappyPressed = false; /** When FlappyPressed is set to true force is applied to Flappy */
     private static float FlappySize = 0.08f; /** Scale of the flappy texture (used for width and height) relating to ViewPortSize @see EMGFlappy */
     private static int FlappyHP = 50; // How many hit points Flappy has (set this to MAX_VALUE for 'never ending' game loop)
     private static int CollisionDamage = 10; // How much damage is caused colliding with another object
     private static float CollisionDamageInterval = 1.f; // How often (in seconds) further damage is caused when collision continues
-    private static float AnimationLength = 0.33f * CollisionDamageInterval; // How long the animation is (generally good idea to keep it < CollisionDamageInterval)
 
     private PolygonShape shape;
-    private Sprite[] sprites;
-    private int currentSprite;
-    private float frameTime;
+    private float activation; // Control activation [0, 1] inside the simulation, updated from timestamped input events at physics step boundaries
+    private float speed; // Multiplier of FlappyVelocityX, updated like activation
     private boolean colliding;
     private int HP;
-    private long collisionTime;
+    private float collisionTime;
     private FlappyObstacle obstacle;
-    private Animation<TextureRegion> featherAnimation;
-    private float animationTime;
     private int hits;
 
     /**
-     * Set FlappyPressed to enable/disable force applied on Flappy
+     * Set FlappyPressed which tells whether the user is currently pressing (wing flapping audio
+     * and animation follow it), force is applied according to the simulation's input events
      * Call this after user touch inputs starts/stops
      * @param pressed Whether the flappy is pressed/touched or not
      */
     public static void setFlappyPressed(boolean pressed) {
         if (pressed != Flappy.FlappyPressed) {
             Flappy.FlappyPressed = pressed;
-            Flappy.FlappyFrameTime = pressed ? 0.10f : 0.25f;
             FlappyAudio.playLooping(AudioType.WingFlappingAudio, pressed);
         }
     }
 
+    /**
+     * Check whether Flappy is currently pressed (force is applied)
+     * @return FlappyPressed
+     */
+    public static boolean isFlappyPressed() {
+        return Flappy.FlappyPressed;
+    }
+
     /**
      * Get Flappy CollisionDamageInterval (GameApplication needs this for computing score)
      * @return Flappy.CollisionDamageInterval
@@ -92,106 +88,67 @@ public class Flappy extends FlappyObject {
     public Flappy(float x, float y, float ViewPortSizeX, float ViewPortSizeY) {
         super(x, y, BodyDef.BodyType.DynamicBody);
         type = ObjectType.Flappy;
-        shape = new PolygonShape();
-        float width = ViewPortSizeX * Flappy.FlappySize;
-        float height = ViewPortSizeY * Flappy.FlappySize;
+        shape = NativeTracker.createPolygonShape();
+        width = ViewPortSizeX * Flappy.FlappySize;
+        height = ViewPortSizeY * Flappy.FlappySize;
         shape.setAsBox(width * 0.5f, height * 0.5f);
         // fixtureDef is created in super class constructor
         fixtureDef.shape = shape;
         fixtureDef.density = Flappy.FlappyDensity;
         fixtureDef.friction = Flappy.FlappyFriction;
         fixtureDef.restitution = Flappy.FlappyRestitution;
-
-        sprites = new Sprite[]{ new Sprite(EMGflappy.getTexture(FlappyTextures.FlappyFrame1)),
-                                new Sprite(EMGflappy.getTexture(FlappyTextures.FlappyFrame2)),
-                                new Sprite(EMGflappy.getTexture(FlappyTextures.FlappyFrame3)),
-                                new Sprite(EMGflappy.getTexture(FlappyTextures.FlappyFrame4))};
-        for (Sprite sprite : sprites) {
-            sprite.setSize(width, height);
-        }
-        currentSprite = 0;
-        frameTime = 0.f;
         HP = Flappy.FlappyHP;
+        activation = 0.f;
+        speed = 1.f;
         obstacle = null;
-        animationTime = Flappy.AnimationLength + 1.f;
+        collisionTime = 0.f;
         hits = 0;
         setPositionFlappyCoordinates(new Vector2(x, y));
-        createAnimation();
-    }
-
-    /**
-     * Dispose object resources
-     */
-    @Override
-    public void dispose() {
-        shape.dispose();
-    }
-
-    /**
-     * Transform FlappyObject coordinates to Box2D coordinates
-     * @param pos Position in FlappyObject coordinates (left bottom edge)
-     * @return Position of the center of the object (Box2D coordinates)
-     */
-    @Override
-    public Vector2 coordinateTransform(Vector2 pos) {
-        return new Vector2(pos.x + sprites[currentSprite].getWidth() * 0.5f, pos.y + sprites[currentSprite].getHeight() * 0.5f);
     }
 
     /**
-     * Transform Box2D coordinates (center of the object) to FlappyObject coordinate system
-     * (left bottom edge)
-     * @param pos Position in Box2D coordinates (center of the object)
-     * @return Position of the left bottom edge (FlappyObject coordinates)
+     * Move Flappy back to a start position for a new game without recreating its body: the body
+     * is moved with setTransform, its velocity is zeroed and HP, controls and collision state are
+     * restored
+     * @param x New position in x dimension
+     * @param y New position in y dimension
+     * @param HP New HP
      */
-    @Override
-    public Vector2 inverseCoordinateTransform(Vector2 pos) {
-        return new Vector2(pos.x - sprites[currentSprite].getWidth() * 0.5f, pos.y - sprites[currentSprite].getHeight() * 0.5f);
+    public void respawn(float x, float y, int HP) {
+        setPositionFlappyCoordinates(new Vector2(x, y));
+        if (body != null) {
+            body.setTransform(bodyDef.position, 0.f);
+            body.setLinearVelocity(0.f, 0.f);
+            body.setAngularVelocity(0.f);
+            body.setAwake(true);
+        }
+        this.HP = HP;
+        activation = 0.f;
+        speed = 1.f;
+        colliding = false;
+        obstacle = null;
+        collisionTime = 0.f;
+        hits = 0;
     }
 
     /**
-     * Get object end position (right top edge)
-     * @return Position of the right top edge
+     * Dispose object resources
      */
     @Override
-    public Vector2 getEndPosition() {
-        return new Vector2(x + sprites[currentSprite].getWidth(), y + sprites[currentSprite].getHeight());
+    public void dispose() {
+        NativeTracker.disposeShape(shape);
     }
 
     /**
-     * Draw object
-     * @param batch On which the object is drawn to
-     * @param elapsedTime Time elapsed since previous render cycle in seconds
-     * @return true if Flappy is destroyed (game should end), otherwise false
+     * Advance Flappy state by one simulation update: causes further damage while the collision
+     * continues
+     * @param elapsedTime Simulated time elapsed since previous update in seconds
+     * @return true if Flappy is still alive, false if Flappy is destroyed (game should end)
      */
-    @Override
-    public boolean draw(SpriteBatch batch, float elapsedTime) {
-        // Draw Flappy
-        frameTime += elapsedTime;
-        if (frameTime >= Flappy.FlappyFrameTime) {
-            currentSprite = currentSprite + 1 < sprites.length ? currentSprite + 1 : 0;
-            frameTime = 0.f;
-        }
-        sprites[currentSprite].setPosition(getPositionX(), getPositionY());
-        sprites[currentSprite].draw(batch);
-
-        animationTime += elapsedTime;
-
-        // Cause damage if colliding
+    public boolean update(float elapsedTime) {
         if (colliding) {
-            if (ScreenManager.isPaused()) collisionTime = System.currentTimeMillis(); // do not damage Flappy if the game is paused (this is approximately correct, it will reset current damage cycle)
-            float damageTime = (float) (System.currentTimeMillis() - collisionTime) / 1000.f; // to s
-            while (damageTime > Flappy.CollisionDamageInterval) {
-                damageFlappy();
-                damageTime -= Flappy.CollisionDamageInterval;
-            }
-        }
-        // Draw animation (damageFlappy call needs to be before this one)
-        if (animationTime < Flappy.AnimationLength) {
-            TextureRegion currentAnimationFrame = featherAnimation.getKeyFrame(animationTime, false);
-            Sprite animationSprite = new Sprite(currentAnimationFrame);
-            animationSprite.setSize(sprites[currentSprite].getWidth(), sprites[currentSprite].getHeight());
-            animationSprite.setPosition(x, y);
-            animationSprite.draw(batch);
+            collisionTime += elapsedTime;
+            if (collisionTime > Flappy.CollisionDamageInterval) damageFlappy();
         }
         return HP > 0;
     }
@@ -204,17 +161,16 @@ public class Flappy extends FlappyObject {
      */
     @Override
     public void onViewPortChanged(float ViewPortSizeX, float ViewPortSizeY) {
-        float width = ViewPortSizeX * Flappy.FlappySize;
-        float height = ViewPortSizeY * Flappy.FlappySize;
+        width = ViewPortSizeX * Flappy.FlappySize;
+        height = ViewPortSizeY * Flappy.FlappySize;
         shape.setAsBox(width * 0.5f, height * 0.5f);
-        for (Sprite sprite : sprites) sprite.setSize(width, height);
         fixtureDef = new FixtureDef();
         fixtureDef.shape = shape;
         fixtureDef.density = Flappy.FlappyDensity;
         fixtureDef.friction = Flappy.FlappyFriction;
         fixtureDef.restitution = Flappy.FlappyRestitution;
-        body.destroyFixture(body.getFixtureList().first());
-        body.createFixture(fixtureDef);
+        NativeTracker.destroyFixture(body, body.getFixtureList().first());
+        NativeTracker.createFixture(body, fixtureDef);
         body.setTransform(coordinateTransform(new Vector2(x, y)), body.getAngle());
     }
 
@@ -226,21 +182,61 @@ public class Flappy extends FlappyObject {
 
     /**
      * Apply force to the Flappy
-     * Note: Force are applied to center of Flappy so that it doesn't start rotating
-     * to rotate
+     * Note: Force are applied to center of Flappy so that it doesn't start rotating, Box2D clears
+     * forces after each step so call this once before each step
      */
     public void applyForce() {
         if (body != null) {
             float mass = body.getMass();
-            if (Flappy.FlappyPressed) {
-                body.applyForceToCenter(0.f, FlappyAccelerationY * mass, true);
+            if (activation > 0.f) {
+                body.applyForceToCenter(0.f, FlappyAccelerationY * activation * mass, true);
             }
-            Vector2 velocity = body.getLinearVelocity().cpy();
-            velocity.set(FlappyVelocityX, velocity.y);
-            body.setLinearVelocity(velocity);
+            body.setLinearVelocity(FlappyVelocityX * speed, body.getLinearVelocity().y);
         }
     }
 
+    /**
+     * Set how much force is applied to this Flappy, FlappySimulation calls this when it applies
+     * input events
+     * @param activation Activation in the range of [0, 1] (touch is either 0 or 1, EMG is
+     *                   proportional), FlappyAccelerationY is scaled by this
+     */
+    public void setActivation(float activation) {
+        this.activation = activation;
+    }
+
+    /**
+     * Get how much force is applied to this Flappy
+     * @return activation
+     */
+    public float getActivation() {
+        return activation;
+    }
+
+    /**
+     * Set horizontal speed of this Flappy, FlappySimulation calls this when it applies input events
+     * @param speed Multiplier of FlappyVelocityX, 1 is the normal speed
+     */
+    public void setSpeed(float speed) {
+        this.speed = speed;
+    }
+
+    /**
+     * Get horizontal speed multiplier of this Flappy
+     * @return speed
+     */
+    public float getSpeed() {
+        return speed;
+    }
+
+    /**
+     * Check whether force is applied to this Flappy
+     * @return true if activation is above 0
+     */
+    public boolean isPressed() {
+        return activation > 0.f;
+    }
+
     /**
      * Set Flappy colliding, call this after flappy has started or stopped colliding with some other
      * FlappyObject
@@ -253,6 +249,14 @@ public class Flappy extends FlappyObject {
         if (colliding) damageFlappy();
     }
 
+    /**
+     * Check whether Flappy is currently colliding with some FlappyObstacle
+     * @return colliding
+     */
+    public boolean isColliding() {
+        return colliding;
+    }
+
     /**
      * Get Flappy HP
      * @return HP
@@ -279,32 +283,13 @@ public class Flappy extends FlappyObject {
 
     /**
      * Cause damage to Flappy
-     * Call this in draw before animation is drawn because this resets the animationTime
+     * Note: each hit increases hits, FlappyWorldRenderer uses this to start the feather animation
      */
     private void damageFlappy() {
         if (obstacle != null && obstacle.canDamage()) {
             HP -= Flappy.CollisionDamage;
             hits++;
-            if (animationTime >= Flappy.AnimationLength) animationTime = 0.f;
-        }
-        collisionTime = System.currentTimeMillis();
-    }
-
-    /**
-     * Create feather animation
-     */
-    private void createAnimation() {
-        Texture texture = EMGflappy.getTexture(FlappyTextures.FeatherAnimation);
-        TextureRegion[][] tmp = TextureRegion.split(texture, texture.getWidth() / FlappyTextures.FeatherAnimationSpriteSheetColumns,
-                texture.getHeight() / FlappyTextures.FeatherAnimationSpriteSheetRows);
-        int size = FlappyTextures.FeatherAnimationSpriteSheetRows * FlappyTextures.FeatherAnimationSpriteSheetColumns;
-        TextureRegion[] animationRegion = new TextureRegion[size];
-        int index = 0;
-        for (int i = 0; i < FlappyTextures.FeatherAnimationSpriteSheetRows; i++) {
-            for (int j = 0; j < FlappyTextures.FeatherAnimationSpriteSheetColumns; j++) {
-                animationRegion[index++] = tmp[i][j];
-            }
         }
-        featherAnimation = new Animation<>(Flappy.AnimationLength / size, animationRegion);
+        collisionTime = 0.f;
     }
 }
@@ -1,10 +1,6 @@
 package games.emgflappy.project.objects;
 
 
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import games.emgflappy.project.audio.AudioType;
-import games.emgflappy.project.audio.FlappyAudio;
-
 /**
  * FlappyObstacles that use lightning texture and which are Tunnels in ObstacleType
  */
@@ -31,23 +27,34 @@ public class FlappyLightning extends FlappyObstacle {
         visible = false;
     }
 
-
     /**
-     * Draw lightning periodically
-     * @param batch On which the object is drawn to
-     * @param elapsedTime Time elapsed since previous render cycle in seconds (not used)
-     * @return false FlappyLightning cannot be destroyed
+     * Place a recycled FlappyLightning to a new position, the strike cycle is restarted
+     * @param x Position of left edge coordinate
+     * @param y Position of bottom edge coordinate
+     * @param height Height of the object (in world units)
+     * @param ViewPortSizeX EMGflappy ViewPortSizeX used to set correct size for the object
+     * @param flipY Whether to flip texture in y dimension or not
      */
     @Override
-    public boolean draw(SpriteBatch batch, float elapsedTime) {
-        if (visible) {
-            this.elapsedTime += elapsedTime;
-            if (this.elapsedTime >= FlappyLightning.LightningStrikePeriod) {
-                showLightning = !showLightning;
-                if (showLightning) FlappyAudio.playSound(AudioType.ThunderAudio);
-                this.elapsedTime = 0.f;
-            }
-            if (showLightning) sprite.draw(batch);
+    public void place(float x, float y, float height, float ViewPortSizeX, boolean flipY) {
+        super.place(x, y, height, ViewPortSizeX, flipY);
+        elapsedTime = 0.f;
+        showLightning = false;
+        visible = false;
+    }
+
+    /**
+     * Advance lightning strike cycle, lightning strikes periodically only while it's visible
+     * @param elapsedTime Simulated time elapsed since previous update in seconds
+     * @return true if a lightning strike started during this update, otherwise false
+     */
+    public boolean update(float elapsedTime) {
+        if (!visible) return false;
+        this.elapsedTime += elapsedTime;
+        if (this.elapsedTime >= FlappyLightning.LightningStrikePeriod) {
+            showLightning = !showLightning;
+            this.elapsedTime = 0.f;
+            return showLightning;
         }
         return false;
     }
@@ -60,7 +67,15 @@ public class FlappyLightning extends FlappyObstacle {
      * @param ViewPortSizeX EMGflappy ViewPortSizeX used to detect whether Flappy can see the object
      */
     public void setVisible(float flappyStartX, float flappyEndX, float ViewPortSizeX) {
-        visible = (flappyEndX + ViewPortSizeX / 2.f >= x && flappyStartX <= getEndPosition().x + ViewPortSizeX / 2.f);
+        visible = (flappyEndX + ViewPortSizeX / 2.f >= x && flappyStartX <= x + width + ViewPortSizeX / 2.f);
+    }
+
+    /**
+     * Check whether the lightning is currently striking (it should be drawn)
+     * @return true if the object is visible and lightning is shown, otherwise false
+     */
+    public boolean isStriking() {
+        return visible && showLightning;
     }
 
     /**
@@ -69,6 +84,6 @@ public class FlappyLightning extends FlappyObstacle {
      */
     @Override
     public boolean canDamage() {
-        return visible && showLightning;
+        return isStriking();
     }
 }
@@ -1,6 +1,5 @@
 package games.emgflappy.project.objects;
 
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.BodyDef;
@@ -10,7 +9,9 @@ import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
 
 /**
- * Abstract class for drawable object in FlappyWorld
+ * Abstract class for simulated object in FlappyWorld
+ * Note: FlappyObjects hold only plain simulation data (no textures), they are drawn by
+ * FlappyWorldRenderer
  */
 public abstract class FlappyObject implements Disposable, Json.Serializable {
 
@@ -18,6 +19,10 @@ public abstract class FlappyObject implements Disposable, Json.Serializable {
     protected FixtureDef fixtureDef;
     protected float x; /** FlappyObject coordinate system, left edge, Box2D counterpart uses different coordinate system */
     protected float y; /** FlappyObject coordinate system, bottom edge, Box2D counterpart uses different coordinate system */
+    protected float previousX; /** Position in x dimension before the latest physics step (left edge) */
+    protected float previousY; /** Position in y dimension before the latest physics step (bottom edge) */
+    protected float width; /** Width of the object in world units */
+    protected float height; /** Height of the object in world units */
     protected Body body;
     protected ObjectType type;
 
@@ -31,6 +36,8 @@ public abstract class FlappyObject implements Disposable, Json.Serializable {
     protected FlappyObject(float x, float y, BodyDef.BodyType bodyType) {
         this.x = x;
         this.y = y;
+        previousX = x;
+        previousY = y;
         bodyDef = new BodyDef();
         bodyDef.type = bodyType;
         bodyDef.fixedRotation = true;
@@ -65,7 +72,19 @@ public abstract class FlappyObject implements Disposable, Json.Serializable {
      * @param pos Position in FlappyObject coordinates (left bottom edge)
      * @return Matching center coordinates, x and y
      */
-    public abstract Vector2 coordinateTransform(Vector2 pos);
+    public Vector2 coordinateTransform(Vector2 pos) {
+        return coordinateTransform(pos, new Vector2());
+    }
+
+    /**
+     * Allocation free variant of coordinateTransform(Vector2)
+     * @param pos Position in FlappyObject coordinates (left bottom edge)
+     * @param out Vector2 where the center coordinates are stored to (may be pos)
+     * @return out
+     */
+    public Vector2 coordinateTransform(Vector2 pos, Vector2 out) {
+        return out.set(pos.x + width * 0.5f, pos.y + height * 0.5f);
+    }
 
     /**
      * Coordinate transform from Box2D coordinates (FlappyObject center) to FlappyObject coordinates
@@ -73,15 +92,19 @@ public abstract class FlappyObject implements Disposable, Json.Serializable {
      * @param pos Position in Box2D coordinates (center of the object)
      * @return Bottom edge coordinates, x and y
      */
-    public abstract Vector2 inverseCoordinateTransform(Vector2 pos);
+    public Vector2 inverseCoordinateTransform(Vector2 pos) {
+        return inverseCoordinateTransform(pos, new Vector2());
+    }
 
     /**
-     * Draw object on a SpriteBatch
-     * @param batch On which the object is drawn to
-     * @param elapsedTime Time elapsed since previous render cycle in seconds
-     * @return true if object is destroyed, otherwise false
+     * Allocation free variant of inverseCoordinateTransform(Vector2)
+     * @param pos Position in Box2D coordinates (center of the object)
+     * @param out Vector2 where the bottom edge coordinates are stored to (may be pos)
+     * @return out
      */
-    public abstract boolean draw(SpriteBatch batch, float elapsedTime);
+    public Vector2 inverseCoordinateTransform(Vector2 pos, Vector2 out) {
+        return out.set(pos.x - width * 0.5f, pos.y - height * 0.5f);
+    }
 
     /**
      * Update object size after ViewPortSize has changed
@@ -106,19 +129,82 @@ public abstract class FlappyObject implements Disposable, Json.Serializable {
         return y;
     }
 
+    /**
+     * Get object position in x dimension interpolated between the two latest physics steps
+     * @param alpha Interpolation factor in the range of [0.f, 1.f], @see FlappySimulation.getAlpha
+     * @return Interpolated x (left edge)
+     */
+    public float getInterpolatedPositionX(float alpha) {
+        return previousX + (x - previousX) * alpha;
+    }
+
+    /**
+     * Get object position in y dimension interpolated between the two latest physics steps
+     * @param alpha Interpolation factor in the range of [0.f, 1.f], @see FlappySimulation.getAlpha
+     * @return Interpolated y (bottom edge)
+     */
+    public float getInterpolatedPositionY(float alpha) {
+        return previousY + (y - previousY) * alpha;
+    }
+
+    /**
+     * Store current position as the previous position, call this before each physics step of
+     * a moving object so that rendering can interpolate between the two latest steps
+     */
+    public void storePreviousPosition() {
+        previousX = x;
+        previousY = y;
+    }
+
     /**
      * Get object center position (this is the position in Box2D coordinate system)
      * @return Center position as a Vector
      */
     public Vector2 getCenterPosition() {
-        return coordinateTransform(new Vector2(x, y));
+        return getCenterPosition(new Vector2());
+    }
+
+    /**
+     * Allocation free variant of getCenterPosition()
+     * @param out Vector2 where the center position is stored to
+     * @return out
+     */
+    public Vector2 getCenterPosition(Vector2 out) {
+        return out.set(x + width * 0.5f, y + height * 0.5f);
+    }
+
+    /**
+     * Get object width
+     * @return width (world units)
+     */
+    public float getWidth() {
+        return width;
+    }
+
+    /**
+     * Get object height
+     * @return height (world units)
+     */
+    public float getHeight() {
+        return height;
     }
 
     /**
      * Get object end position
      * @return Vector2 specifying the object right top edge
      */
-    public abstract Vector2 getEndPosition();
+    public Vector2 getEndPosition() {
+        return getEndPosition(new Vector2());
+    }
+
+    /**
+     * Allocation free variant of getEndPosition()
+     * @param out Vector2 where the right top edge position is stored to
+     * @return out
+     */
+    public Vector2 getEndPosition(Vector2 out) {
+        return out.set(x + width, y + height);
+    }
 
     /**
      * Set object position in FlappyObject coordinate system
@@ -128,7 +214,9 @@ public abstract class FlappyObject implements Disposable, Json.Serializable {
     public void setPositionFlappyCoordinates(Vector2 pos) {
         x = pos.x;
         y = pos.y;
-        bodyDef.position.set(coordinateTransform(pos));
+        previousX = x;
+        previousY = y;
+        coordinateTransform(pos, bodyDef.position);
     }
 
     /**
@@ -137,9 +225,8 @@ public abstract class FlappyObject implements Disposable, Json.Serializable {
      * @param pos New position in Box2D coordinate system (center of the object)
      */
     public void setPositionPhysicsCoordinates(Vector2 pos) {
-        Vector2 flappyPos = inverseCoordinateTransform(pos);
-        x = flappyPos.x;
-        y = flappyPos.y;
+        x = pos.x - width * 0.5f;
+        y = pos.y - height * 0.5f;
     }
 
     /**
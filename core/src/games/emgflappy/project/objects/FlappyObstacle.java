@@ -1,27 +1,25 @@
 package games.emgflappy.project.objects;
 
-import com.badlogic.gdx.graphics.g2d.Sprite;
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.BodyDef;
-import com.badlogic.gdx.physics.box2d.FixtureDef;
 import com.badlogic.gdx.physics.box2d.PolygonShape;
 import com.badlogic.gdx.utils.Json;
-import games.emgflappy.project.EMGflappy;
-import games.emgflappy.project.FlappyTextures;
+import com.badlogic.gdx.utils.Pool;
+import games.emgflappy.project.utils.NativeTracker;
 
 import static games.emgflappy.project.objects.ObstacleType.getObstacleWidthScale;
 
 
 /**
  * Class for static obstacles in the game
+ * FlappyObstacles are recycled through FlappyObstaclePool: the same instance, shape and Box2D
+ * body are reused after the obstacle has scrolled out of view
  */
-public class FlappyObstacle extends FlappyObject {
+public class FlappyObstacle extends FlappyObject implements Pool.Poolable {
 
-    protected Sprite sprite;
     private PolygonShape shape;
     private ObstacleType obstacleType;
-    private float height;
+    private boolean flipY;
 
     /**
      * Constructor for FlappyObstacle
@@ -37,20 +35,12 @@ public class FlappyObstacle extends FlappyObject {
         super(x, y, BodyDef.BodyType.StaticBody);
         type = ObjectType.FlappyObstacle;
         this.obstacleType = obstacleType;
+        this.flipY = flipY;
         this.height = height;
-        shape = new PolygonShape();
-        float width = ViewPortSizeX * getObstacleWidthScale(obstacleType);
+        width = ViewPortSizeX * getObstacleWidthScale(obstacleType);
+        shape = NativeTracker.createPolygonShape();
         shape.setAsBox(width * 0.5f, height * 0.5f);
         fixtureDef.shape = shape;
-        if (obstacleType == ObstacleType.Normal) {
-            sprite = flipY ? new Sprite(EMGflappy.getTexture(FlappyTextures.NormalObstacleFlipped)) : new Sprite(EMGflappy.getTexture(FlappyTextures.NormalObstacle));
-        }
-        else {
-            sprite = new Sprite(EMGflappy.getTexture(FlappyTextures.Lightning));
-            sprite.flip(false, flipY);
-        }
-        sprite.setSize(width, height);
-        sprite.setPosition(x, y);
         setPositionFlappyCoordinates(new Vector2(x, y));
     }
 
@@ -59,68 +49,48 @@ public class FlappyObstacle extends FlappyObject {
      */
     @Override
     public void dispose() {
-        shape.dispose();
-    }
-
-    /**
-     * Transform FlappyObject coordinates to Box2D coordinates
-     * @param pos Position in FlappyObject coordinates (left bottom edge)
-     * @return Position of the center of the object (Box2D coordinates)
-     */
-    @Override
-    public Vector2 coordinateTransform(Vector2 pos) {
-        return new Vector2(pos.x + sprite.getWidth() * 0.5f, pos.y + sprite.getHeight() * 0.5f);
-    }
-
-    /**
-     * Transform Box2D coordinates (center of the object) to FlappyObject coordinate system
-     * (left bottom edge)
-     * @param pos Position in Box2D coordinates (center of the object)
-     * @return Position of the left bottom edge (FlappyObject coordinates)
-     */
-    @Override
-    public Vector2 inverseCoordinateTransform(Vector2 pos) {
-        return new Vector2(pos.x - sprite.getWidth() * 0.5f, pos.y - sprite.getHeight() * 0.5f);
+        NativeTracker.disposeShape(shape);
     }
 
     /**
-     * Get object end position (right top edge)
-     * @return Position of the right top edge
+     * Call this method after ViewPortSize has changed
+     * @param ViewPortSizeX New EMGflappy ViewPortSizeX
+     * @param ViewPortSizeY New EMGflappy ViewPortSizeY
      */
     @Override
-    public Vector2 getEndPosition() {
-        return new Vector2(x + sprite.getWidth(), y + sprite.getHeight());
+    public void onViewPortChanged(float ViewPortSizeX, float ViewPortSizeY) {
+        width = ViewPortSizeX * getObstacleWidthScale(obstacleType);
+        updateShape();
     }
 
     /**
-     * Draw object
-     * @param batch On which the object is drawn to
-     * @param elapsedTime Time elapsed since previous render cycle in seconds (not used)
-     * @return false, FlappyObstacle cannot be destroyed
+     * Place a recycled FlappyObstacle to a new position, the existing Box2D body is moved and
+     * activated instead of creating a new one
+     * @param x Position of left edge coordinate
+     * @param y Position of bottom edge coordinate
+     * @param height Height of the object (in world units)
+     * @param ViewPortSizeX EMGflappy ViewPortSizeX used to set correct size for the object
+     * @param flipY Whether to flip texture in y dimension or not
      */
-    @Override
-    public boolean draw(SpriteBatch batch, float elapsedTime) {
-        sprite.draw(batch);
-        return false;
+    public void place(float x, float y, float height, float ViewPortSizeX, boolean flipY) {
+        this.x = x;
+        this.y = y;
+        previousX = x;
+        previousY = y;
+        this.height = height;
+        this.flipY = flipY;
+        width = ViewPortSizeX * getObstacleWidthScale(obstacleType);
+        updateShape();
+        if (body != null) body.setActive(true);
     }
 
     /**
-     * Call this method after ViewPortSize has changed
-     * @param ViewPortSizeX New EMGflappy ViewPortSizeX
-     * @param ViewPortSizeY New EMGflappy ViewPortSizeY
+     * Reset FlappyObstacle after it has been returned to FlappyObstaclePool: the Box2D body is
+     * kept but deactivated so it doesn't take part in collisions
      */
     @Override
-    public void onViewPortChanged(float ViewPortSizeX, float ViewPortSizeY) {
-        float width = ViewPortSizeX * getObstacleWidthScale(obstacleType);
-        shape.setAsBox(width * 0.5f, height * 0.5f);
-        boolean sensor = fixtureDef.isSensor;
-        body.destroyFixture(body.getFixtureList().first());
-        fixtureDef = new FixtureDef();
-        fixtureDef.shape = shape;
-        fixtureDef.isSensor = sensor;
-        body.createFixture(fixtureDef);
-        sprite.setSize(width, height);
-        body.setTransform(coordinateTransform(new Vector2(x, y)), body.getAngle());
+    public void reset() {
+        if (body != null) body.setActive(false);
     }
 
     /**
@@ -138,4 +108,33 @@ public class FlappyObstacle extends FlappyObject {
      * @return true, by default FlappyObstacles can cause damage
      */
     public boolean canDamage() { return true; }
+
+    /**
+     * Get ObstacleType of the FlappyObstacle
+     * @return obstacleType
+     */
+    public ObstacleType getObstacleType() {
+        return obstacleType;
+    }
+
+    /**
+     * Whether the obstacle texture should be flipped in y dimension (upper obstacles)
+     * @return flipY
+     */
+    public boolean isFlippedY() {
+        return flipY;
+    }
+
+    /**
+     * Update Box2D shape and position to match the current size of the object
+     * Note: the fixture shape is modified in place so no native fixtures are recreated
+     */
+    private void updateShape() {
+        shape.setAsBox(width * 0.5f, height * 0.5f);
+        coordinateTransform(bodyDef.position.set(x, y), bodyDef.position);
+        if (body != null) {
+            ((PolygonShape) body.getFixtureList().first().getShape()).setAsBox(width * 0.5f, height * 0.5f);
+            body.setTransform(bodyDef.position, body.getAngle());
+        }
+    }
 }
@@ -0,0 +1,103 @@
+package games.emgflappy.project.objects;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Pool which recycles FlappyObstacles and FlappyLightnings together with their PolygonShapes and
+ * Box2D bodies, this avoids native allocations each time the world is extended
+ * Note: obtained obstacles without a body (getBody() == null) are new and need a Box2D body
+ */
+public class FlappyObstaclePool implements Disposable {
+
+    private Array<FlappyObstacle> freeObstacles;
+    private Array<FlappyLightning> freeLightnings;
+    private Array<FlappyObstacle> allObstacles; // Every obstacle created by the pool (needed for dispose)
+
+    /**
+     * Constructor for FlappyObstaclePool
+     */
+    public FlappyObstaclePool() {
+        freeObstacles = new Array<>();
+        freeLightnings = new Array<>();
+        allObstacles = new Array<>();
+    }
+
+    /**
+     * Dispose all obstacles created by the pool (both in use and free ones)
+     */
+    @Override
+    public void dispose() {
+        for (FlappyObstacle obstacle : allObstacles) {
+            obstacle.dispose();
+        }
+        allObstacles.clear();
+        freeObstacles.clear();
+        freeLightnings.clear();
+    }
+
+    /**
+     * Obtain Normal FlappyObstacle, recycled if possible
+     * @param x Position of left edge coordinate
+     * @param y Position of bottom edge coordinate
+     * @param height Height of the object (in world units)
+     * @param ViewPortSizeX EMGflappy ViewPortSizeX used to set correct size for the object
+     * @param flipY Whether to flip texture in y dimension or not
+     * @return FlappyObstacle placed to the given position
+     */
+    public FlappyObstacle obtainObstacle(float x, float y, float height, float ViewPortSizeX, boolean flipY) {
+        if (freeObstacles.size > 0) {
+            FlappyObstacle obstacle = freeObstacles.pop();
+            obstacle.place(x, y, height, ViewPortSizeX, flipY);
+            return obstacle;
+        }
+        FlappyObstacle obstacle = new FlappyObstacle(ObstacleType.Normal, x, y, height, ViewPortSizeX, flipY);
+        allObstacles.add(obstacle);
+        return obstacle;
+    }
+
+    /**
+     * Obtain FlappyLightning, recycled if possible
+     * @param x Position of left edge coordinate
+     * @param y Position of bottom edge coordinate
+     * @param height Height of the object (in world units)
+     * @param ViewPortSizeX EMGflappy ViewPortSizeX used to set correct size for the object
+     * @return FlappyLightning placed to the given position
+     */
+    public FlappyLightning obtainLightning(float x, float y, float height, float ViewPortSizeX) {
+        if (freeLightnings.size > 0) {
+            FlappyLightning lightning = freeLightnings.pop();
+            lightning.place(x, y, height, ViewPortSizeX, false);
+            return lightning;
+        }
+        FlappyLightning lightning = new FlappyLightning(x, y, height, ViewPortSizeX);
+        allObstacles.add(lightning);
+        return lightning;
+    }
+
+    /**
+     * Return obstacle to the pool, its body is deactivated until the obstacle is obtained again
+     * @param obstacle FlappyObstacle or FlappyLightning obtained from this pool
+     */
+    public void free(FlappyObstacle obstacle) {
+        obstacle.reset();
+        if (obstacle.getType() == ObjectType.FlappyLightning) freeLightnings.add((FlappyLightning) obstacle);
+        else freeObstacles.add(obstacle);
+    }
+
+    /**
+     * Get how many obstacles the pool has created in total
+     * @return Amount of created obstacles
+     */
+    public int getCreatedCount() {
+        return allObstacles.size;
+    }
+
+    /**
+     * Get how many obstacles are currently free for reuse
+     * @return Amount of free obstacles
+     */
+    public int getFreeCount() {
+        return freeObstacles.size + freeLightnings.size;
+    }
+}
@@ -0,0 +1,42 @@
+package games.emgflappy.project.telemetry;
+
+/**
+ * Types of telemetry records, the code is stored in the first byte of each record
+ */
+public enum RecordType {
+    SessionStart(1), // New game: values = Flappy x, y, course start position; aux = course index
+    EmgSamples(2), // Raw EMG frame: values = samples of channels aux .. aux + count - 1 (frames with more than Values channels use several records)
+    FlappyState(3), // After each physics step: values = x, y, velocity x, velocity y, activation; aux = HP
+    ContactBegin(4), // Flappy started colliding: values = x, y; aux = HP
+    ContactEnd(5); // Flappy stopped colliding: values = x, y; aux = HP
+
+    private final byte code;
+
+    /**
+     * Constructor for RecordType
+     * @param code Code stored in the file, never change codes of existing types
+     */
+    RecordType(int code) {
+        this.code = (byte) code;
+    }
+
+    /**
+     * Get code stored in the file
+     * @return code
+     */
+    public byte getCode() {
+        return code;
+    }
+
+    /**
+     * Get RecordType from its code
+     * @param code Code stored in the file
+     * @return RecordType or null if the code is unknown (written by a newer version)
+     */
+    public static RecordType fromCode(byte code) {
+        for (RecordType type : values()) {
+            if (type.code == code) return type;
+        }
+        return null;
+    }
+}
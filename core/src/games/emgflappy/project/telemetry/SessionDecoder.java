@@ -0,0 +1,422 @@
+package games.emgflappy.project.telemetry;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Streaming decoder for files written by SessionEncoder
+ * Usage: while (decoder.next()) { decoder.getType(); decoder.getTime(); decoder.getValue(0); ... }
+ * Records are returned like TelemetryReader returns them (records of a block are merged in
+ * timestamp order), except that an EMG record holds the whole frame
+ * (getValueCount() == getChannelCount(), getAux() == 0)
+ * Only one block is held in memory at a time, seek uses the block index to jump to a timestamp
+ * Files without an index (encoder didn't finish, e.g. after a crash) are indexed by scanning the
+ * block headers and read up to the last whole block
+ */
+public class SessionDecoder implements Closeable {
+
+    private final FileChannel channel;
+    private final int channels;
+    private final float emgQuantum;
+    private final float stateQuantum;
+    private final float activationQuantum;
+    private final long startNanos;
+    private final long startMillis;
+    private long[] indexOffsets;
+    private long[] indexTimes;
+    private int blockCount;
+    private int nextBlock; // Index of the block loaded by the next loadBlock call
+
+    private final ByteBuffer block;
+    private final ByteBuffer[] sections;
+    private final int[] left; // Records left in each section of the loaded block
+    private final int[] sizes; // Byte lengths of the sections of the loaded block
+
+    // Predictors of the loaded block
+    private long emgTime;
+    private long emgDelta;
+    private final long[] emgSamples;
+    private long stateTime;
+    private long stateDelta;
+    private final long[] stateValues;
+    private long runActivation;
+    private int runHP;
+    private int runLeft;
+    private long eventTime;
+
+    // Next record of each section (staged for the timestamp merge)
+    private boolean emgStaged;
+    private long emgStagedTime;
+    private final float[] emgStagedValues;
+    private boolean stateStaged;
+    private long stateStagedTime;
+    private final float[] stateStagedValues;
+    private int stateStagedHP;
+    private boolean eventStaged;
+    private long eventStagedTime;
+    private RecordType eventStagedType;
+    private int eventStagedAux;
+    private int eventStagedCount;
+    private final float[] eventStagedValues;
+
+    // Current record
+    private RecordType type;
+    private long time;
+    private int aux;
+    private int count;
+    private final float[] values;
+
+    /**
+     * Open compressed session file
+     * @param file File written by SessionEncoder
+     * @throws GdxRuntimeException if the file can't be read or it isn't a compressed session
+     */
+    public SessionDecoder(File file) {
+        try {
+            channel = new FileInputStream(file).getChannel();
+            ByteBuffer header = ByteBuffer.allocate(SessionEncoder.HeaderSize);
+            readFully(header, 0);
+            if (header.getInt() != SessionEncoder.Magic || header.getShort() > SessionEncoder.Version) {
+                channel.close();
+                throw new GdxRuntimeException("Not a supported session file: " + file);
+            }
+            channels = header.getShort();
+            emgQuantum = header.getFloat();
+            stateQuantum = header.getFloat();
+            activationQuantum = header.getFloat();
+            startNanos = header.getLong();
+            startMillis = header.getLong();
+            if (!readIndex()) scanIndex();
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Couldn't read session file " + file, e);
+        }
+        int blockCapacity = SessionEncoder.BlockHeaderSize;
+        for (int s = 0; s < SessionEncoder.Sections; s++) blockCapacity += SessionEncoder.SectionCapacity[s];
+        block = ByteBuffer.allocateDirect(blockCapacity);
+        sections = new ByteBuffer[SessionEncoder.Sections];
+        left = new int[SessionEncoder.Sections];
+        sizes = new int[SessionEncoder.Sections];
+        emgSamples = new long[channels];
+        stateValues = new long[4];
+        emgStagedValues = new float[channels];
+        stateStagedValues = new float[TelemetryWriter.Values];
+        eventStagedValues = new float[TelemetryWriter.Values];
+        values = new float[Math.max(channels, TelemetryWriter.Values)];
+        nextBlock = 0;
+    }
+
+    /**
+     * Move to the next record
+     * @return false when there are no more records
+     */
+    public boolean next() {
+        while (!emgStaged && !stateStaged && !eventStaged) {
+            if (nextBlock >= blockCount) return false;
+            loadBlock(nextBlock);
+        }
+        if (eventStaged && (!stateStaged || eventStagedTime <= stateStagedTime) && (!emgStaged || eventStagedTime <= emgStagedTime)) {
+            type = eventStagedType;
+            time = eventStagedTime;
+            aux = eventStagedAux;
+            count = eventStagedCount;
+            System.arraycopy(eventStagedValues, 0, values, 0, count);
+            stageEvent();
+        } else if (stateStaged && (!emgStaged || stateStagedTime <= emgStagedTime)) {
+            type = RecordType.FlappyState;
+            time = stateStagedTime;
+            aux = stateStagedHP;
+            count = TelemetryWriter.Values;
+            System.arraycopy(stateStagedValues, 0, values, 0, count);
+            stageState();
+        } else {
+            type = RecordType.EmgSamples;
+            time = emgStagedTime;
+            aux = 0;
+            count = channels;
+            System.arraycopy(emgStagedValues, 0, values, 0, count);
+            stageEmg();
+        }
+        return true;
+    }
+
+    /**
+     * Position the decoder so that next returns the first record at or after a timestamp
+     * @param target Timestamp in nanoseconds
+     */
+    public void seek(long target) {
+        int low = 0;
+        int high = blockCount - 1;
+        int found = 0;
+        while (low <= high) { // Last block which starts at or before the target
+            int mid = (low + high) >>> 1;
+            if (indexTimes[mid] <= target) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (blockCount == 0) return;
+        loadBlock(found);
+        while (emgStaged && emgStagedTime < target) stageEmg();
+        while (stateStaged && stateStagedTime < target) stageState();
+        while (eventStaged && eventStagedTime < target) stageEvent();
+    }
+
+    /**
+     * Get type of the current record
+     * @return RecordType or null if the type is unknown
+     */
+    public RecordType getType() {
+        return type;
+    }
+
+    /**
+     * Get timestamp of the current record
+     * @return Timestamp in nanoseconds (TimeUtils.nanoTime clock of the recording device)
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Get type specific integer of the current record (HP or course index)
+     * @return aux
+     */
+    public int getAux() {
+        return aux;
+    }
+
+    /**
+     * Get amount of values in the current record
+     * @return count
+     */
+    public int getValueCount() {
+        return count;
+    }
+
+    /**
+     * Get value of the current record (quantized by the encoder)
+     * @param index Value index, less than getValueCount
+     * @return value
+     */
+    public float getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * Get EMG samples per frame
+     * @return channels
+     */
+    public int getChannelCount() {
+        return channels;
+    }
+
+    /**
+     * Get amount of blocks
+     * @return blockCount
+     */
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * Get nanoTime clock reading when the recording started
+     * @return startNanos
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * Get wall-clock time when the recording started
+     * @return Milliseconds since the epoch
+     */
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Read the block index from the end of the file
+     * @return false if the file doesn't end with a valid trailer
+     * @throws IOException if reading fails
+     */
+    private boolean readIndex() throws IOException {
+        long size = channel.size();
+        if (size < SessionEncoder.HeaderSize + SessionEncoder.TrailerSize) return false;
+        ByteBuffer trailer = ByteBuffer.allocate(SessionEncoder.TrailerSize);
+        readFully(trailer, size - SessionEncoder.TrailerSize);
+        long indexOffset = trailer.getLong();
+        int blocks = trailer.getInt();
+        if (trailer.getInt() != SessionEncoder.TrailerMagic || indexOffset + blocks * 16L + SessionEncoder.TrailerSize != size) return false;
+        ByteBuffer index = ByteBuffer.allocate(blocks * 16);
+        readFully(index, indexOffset);
+        indexOffsets = new long[blocks];
+        indexTimes = new long[blocks];
+        for (int b = 0; b < blocks; b++) {
+            indexOffsets[b] = index.getLong();
+            indexTimes[b] = index.getLong();
+        }
+        blockCount = blocks;
+        return true;
+    }
+
+    /**
+     * Build the block index by walking the block headers
+     * @throws IOException if reading fails
+     */
+    private void scanIndex() throws IOException {
+        long size = channel.size();
+        long offset = SessionEncoder.HeaderSize;
+        indexOffsets = new long[64];
+        indexTimes = new long[64];
+        blockCount = 0;
+        ByteBuffer header = ByteBuffer.allocate(12);
+        while (offset + SessionEncoder.BlockHeaderSize <= size) {
+            readFully(header, offset);
+            int blockSize = header.getInt();
+            long firstTime = header.getLong();
+            if (blockSize <= 0 || offset + 4 + blockSize > size) break; // Torn block
+            if (blockCount == indexOffsets.length) {
+                long[] offsets = new long[blockCount * 2];
+                long[] times = new long[blockCount * 2];
+                System.arraycopy(indexOffsets, 0, offsets, 0, blockCount);
+                System.arraycopy(indexTimes, 0, times, 0, blockCount);
+                indexOffsets = offsets;
+                indexTimes = times;
+            }
+            indexOffsets[blockCount] = offset;
+            indexTimes[blockCount] = firstTime;
+            blockCount++;
+            offset += 4 + blockSize;
+        }
+    }
+
+    /**
+     * Read a whole block and stage its first records
+     * @param index Block index
+     */
+    private void loadBlock(int index) {
+        block.clear();
+        try {
+            block.limit(SessionEncoder.BlockHeaderSize);
+            readFully(block, indexOffsets[index]);
+            int size = block.getInt();
+            block.clear();
+            block.limit(4 + size);
+            readFully(block, indexOffsets[index]);
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Couldn't read session block " + index, e);
+        }
+        block.position(4);
+        long blockTime = block.getLong();
+        int offset = SessionEncoder.BlockHeaderSize;
+        for (int s = 0; s < SessionEncoder.Sections; s++) {
+            left[s] = block.getInt();
+            sizes[s] = block.getInt();
+        }
+        for (int s = 0; s < SessionEncoder.Sections; s++) {
+            ByteBuffer section = block.duplicate();
+            section.limit(offset + sizes[s]).position(offset);
+            sections[s] = section;
+            offset += sizes[s];
+        }
+        emgTime = blockTime;
+        emgDelta = 0;
+        for (int c = 0; c < channels; c++) emgSamples[c] = 0;
+        stateTime = blockTime;
+        stateDelta = 0;
+        for (int i = 0; i < stateValues.length; i++) stateValues[i] = 0;
+        runLeft = 0;
+        eventTime = blockTime;
+        nextBlock = index + 1;
+        stageEmg();
+        stageState();
+        stageEvent();
+    }
+
+    /**
+     * Decode the next EMG frame of the loaded block
+     */
+    private void stageEmg() {
+        emgStaged = left[SessionEncoder.EmgSection] > 0;
+        if (!emgStaged) return;
+        left[SessionEncoder.EmgSection]--;
+        ByteBuffer section = sections[SessionEncoder.EmgSection];
+        emgDelta += VarInt.getSigned(section);
+        emgTime += emgDelta;
+        emgStagedTime = emgTime;
+        for (int c = 0; c < channels; c++) {
+            emgSamples[c] += VarInt.getSigned(section);
+            emgStagedValues[c] = (float) (emgSamples[c] * (double) emgQuantum);
+        }
+    }
+
+    /**
+     * Decode the next Flappy state of the loaded block
+     */
+    private void stageState() {
+        stateStaged = left[SessionEncoder.StateSection] > 0;
+        if (!stateStaged) return;
+        left[SessionEncoder.StateSection]--;
+        ByteBuffer section = sections[SessionEncoder.StateSection];
+        stateDelta += VarInt.getSigned(section);
+        stateTime += stateDelta;
+        stateStagedTime = stateTime;
+        for (int i = 0; i < stateValues.length; i++) {
+            stateValues[i] += VarInt.getSigned(section);
+            stateStagedValues[i] = (float) (stateValues[i] * (double) stateQuantum);
+        }
+        if (runLeft == 0) {
+            ByteBuffer runs = sections[SessionEncoder.RunSection];
+            runLeft = (int) VarInt.get(runs);
+            runActivation = VarInt.getSigned(runs);
+            runHP = (int) VarInt.getSigned(runs);
+        }
+        runLeft--;
+        stateStagedValues[4] = (float) (runActivation * (double) activationQuantum);
+        stateStagedHP = runHP;
+    }
+
+    /**
+     * Decode the next event of the loaded block
+     */
+    private void stageEvent() {
+        eventStaged = left[SessionEncoder.EventSection] > 0;
+        if (!eventStaged) return;
+        left[SessionEncoder.EventSection]--;
+        ByteBuffer section = sections[SessionEncoder.EventSection];
+        eventStagedType = RecordType.fromCode(section.get());
+        eventTime += VarInt.getSigned(section);
+        eventStagedTime = eventTime;
+        eventStagedAux = (int) VarInt.getSigned(section);
+        eventStagedCount = section.get();
+        for (int v = 0; v < eventStagedCount; v++) eventStagedValues[v] = section.getFloat();
+    }
+
+    /**
+     * Fill a buffer from the file
+     * @param buffer Buffer which is filled up to its limit, flipped for reading afterwards
+     * @param offset File offset
+     * @throws IOException if the file ends before the buffer is full
+     */
+    private void readFully(ByteBuffer buffer, long offset) throws IOException {
+        buffer.position(0);
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset + buffer.position());
+            if (read < 0) throw new IOException("Unexpected end of session file");
+        }
+        buffer.flip();
+    }
+}
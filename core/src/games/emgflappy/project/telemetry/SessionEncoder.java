@@ -0,0 +1,442 @@
+package games.emgflappy.project.telemetry;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Streaming encoder for compressed session files (the compact counterpart of TelemetryWriter files)
+ * Records are split by kind into sections which are encoded as they arrive:
+ * - EMG frames: timestamp delta-of-delta and per channel sample deltas of quantized samples
+ * - Flappy state: timestamp delta-of-delta and deltas of quantized position and velocity
+ * - Runs: run-length coded (activation, HP) pairs of the Flappy state records (touch press state
+ *   and HP change rarely, so a run usually covers hundreds of steps)
+ * - Events: session starts and contacts with raw values
+ * Integers are zig-zag varints. When a section buffer could overflow the block is written out and
+ * every predictor is reset, so each block decodes on its own and memory stays fixed
+ * File format (big-endian): HeaderSize byte header, blocks (BlockHeaderSize byte header: size of
+ * the rest of the block, first timestamp, record count and byte length of each section, followed by
+ * the sections), the block index (file offset and first timestamp of each block) and a TrailerSize
+ * byte trailer (index offset, block count, TrailerMagic)
+ * Note: not thread-safe, use from one thread (e.g. the thread converting a TelemetryWriter file)
+ */
+public class SessionEncoder implements Closeable {
+
+    static final int Sections = 4;
+    static final int EmgSection = 0;
+    static final int StateSection = 1;
+    static final int RunSection = 2;
+    static final int EventSection = 3;
+    static final int[] SectionCapacity = { 65536, 16384, 4096, 4096 }; // Bytes per block and section
+
+    public static final int Magic = 0x454d475a; // "EMGZ"
+    public static final short Version = 1;
+    public static final int TrailerMagic = 0x454d4749; // "EMGI"
+    public static final int HeaderSize = 4 + 2 + 2 + 4 + 4 + 4 + 8 + 8;
+    public static final int BlockHeaderSize = 4 + 8 + Sections * 4 * 2;
+    public static final int TrailerSize = 8 + 4 + 4;
+    public static final float DefaultEmgQuantum = 1e-6f; // EMG sample resolution (1 uV for samples in volts)
+    public static final float StateQuantum = 1e-4f; // Flappy position and velocity resolution in world units
+    public static final float ActivationQuantum = 1e-3f; // Flappy activation resolution
+
+    private static final int StateValues = 4; // x, y, velocity x, velocity y
+
+    private final FileChannel channel;
+    private final int channels;
+    private final float emgQuantum;
+    private final ByteBuffer[] sections;
+    private final int[] counts;
+    private final ByteBuffer output; // Whole block is assembled here before it's written
+    private long position; // File offset of the next block
+    private long[] indexOffsets;
+    private long[] indexTimes;
+    private int blockCount;
+
+    // Predictors, reset at the start of every block
+    private long blockTime; // First timestamp of the block, Long.MIN_VALUE while the block is empty
+    private long emgTime;
+    private long emgDelta;
+    private final long[] emgSamples;
+    private long stateTime;
+    private long stateDelta;
+    private final long[] stateValues;
+    private long runActivation;
+    private int runHP;
+    private int runLength;
+    private long eventTime;
+
+    /**
+     * Compress a TelemetryWriter file
+     * @param raw File written by TelemetryWriter
+     * @param compressed Where the compressed session is written to
+     * @param emgQuantum EMG sample resolution, e.g. DefaultEmgQuantum
+     * @throws GdxRuntimeException if reading or writing fails
+     */
+    public static void compress(File raw, File compressed, float emgQuantum) {
+        int channels = countEmgChannels(raw);
+        TelemetryReader reader = new TelemetryReader(raw);
+        SessionEncoder encoder = new SessionEncoder(compressed, channels, emgQuantum, reader.getStartNanos(), reader.getStartMillis());
+        float[] frame = new float[Math.max(channels, 1)];
+        try {
+            while (reader.next()) {
+                RecordType type = reader.getType();
+                if (type == null) continue;
+                switch (type) {
+                    case EmgSamples:
+                        int first = reader.getAux();
+                        for (int v = 0; v < reader.getValueCount() && first + v < channels; v++) frame[first + v] = reader.getValue(v);
+                        if (first + reader.getValueCount() >= channels) encoder.logEmg(reader.getTime(), frame, 0);
+                        break;
+                    case FlappyState:
+                        encoder.logFlappyState(reader.getTime(), reader.getValue(0), reader.getValue(1), reader.getValue(2),
+                                reader.getValue(3), reader.getValue(4), reader.getAux());
+                        break;
+                    default:
+                        encoder.logEvent(type, reader.getTime(), reader.getAux(), reader, reader.getValueCount());
+                        break;
+                }
+            }
+        } finally {
+            closeQuietly(reader);
+            encoder.closeOrThrow();
+        }
+    }
+
+    /**
+     * Constructor for SessionEncoder which starts a new session now
+     * @param file Where the compressed session is written to (an existing file is overwritten)
+     * @param channels EMG samples per frame (0 if EMG isn't recorded)
+     * @param emgQuantum EMG sample resolution, e.g. DefaultEmgQuantum
+     */
+    public SessionEncoder(File file, int channels, float emgQuantum) {
+        this(file, channels, emgQuantum, TimeUtils.nanoTime(), TimeUtils.millis());
+    }
+
+    /**
+     * Constructor for SessionEncoder
+     * @param file Where the compressed session is written to (an existing file is overwritten)
+     * @param channels EMG samples per frame (0 if EMG isn't recorded)
+     * @param emgQuantum EMG sample resolution
+     * @param startNanos nanoTime clock reading at the start of the session
+     * @param startMillis Wall-clock time at the start of the session
+     * @throws GdxRuntimeException if the file can't be written
+     */
+    public SessionEncoder(File file, int channels, float emgQuantum, long startNanos, long startMillis) {
+        if (channels < 0 || emgQuantum <= 0.f) throw new IllegalArgumentException("channels must not be negative and emgQuantum must be positive");
+        this.channels = channels;
+        this.emgQuantum = emgQuantum;
+        sections = new ByteBuffer[Sections];
+        int blockCapacity = BlockHeaderSize;
+        for (int s = 0; s < Sections; s++) {
+            sections[s] = ByteBuffer.allocate(SectionCapacity[s]);
+            blockCapacity += SectionCapacity[s];
+        }
+        counts = new int[Sections];
+        output = ByteBuffer.allocateDirect(Math.max(blockCapacity, HeaderSize));
+        emgSamples = new long[channels];
+        stateValues = new long[StateValues];
+        indexOffsets = new long[64];
+        indexTimes = new long[64];
+        blockCount = 0;
+        try {
+            channel = new FileOutputStream(file, false).getChannel();
+            output.putInt(Magic).putShort(Version).putShort((short) channels);
+            output.putFloat(emgQuantum).putFloat(StateQuantum).putFloat(ActivationQuantum);
+            output.putLong(startNanos).putLong(startMillis);
+            writeOutput();
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Couldn't write session file " + file, e);
+        }
+        resetBlock();
+    }
+
+    /**
+     * Add one EMG frame
+     * @param time Timestamp of the frame in nanoseconds
+     * @param frames Array containing the samples
+     * @param offset Index of the first sample of the frame in frames
+     */
+    public void logEmg(long time, float[] frames, int offset) {
+        ensureRoom(EmgSection, VarInt.MaxBytes * (1 + channels));
+        ByteBuffer section = sections[EmgSection];
+        startRecord(time);
+        long delta = time - emgTime;
+        VarInt.putSigned(section, delta - emgDelta);
+        emgDelta = delta;
+        emgTime = time;
+        for (int c = 0; c < channels; c++) {
+            long q = Math.round((double) frames[offset + c] / emgQuantum);
+            VarInt.putSigned(section, q - emgSamples[c]);
+            emgSamples[c] = q;
+        }
+        counts[EmgSection]++;
+    }
+
+    /**
+     * Add Flappy state after a physics step
+     * @param time End of the physics step in nanoseconds
+     * @param x Position in x dimension
+     * @param y Position in y dimension
+     * @param velocityX Velocity in x dimension
+     * @param velocityY Velocity in y dimension
+     * @param activation Control activation
+     * @param HP Flappy HP
+     */
+    public void logFlappyState(long time, float x, float y, float velocityX, float velocityY, float activation, int HP) {
+        ensureRoom(StateSection, VarInt.MaxBytes * (1 + StateValues));
+        ensureRoom(RunSection, VarInt.MaxBytes * 6); // A run may be put now and the pending one when the block is written
+        ByteBuffer section = sections[StateSection];
+        startRecord(time);
+        long delta = time - stateTime;
+        VarInt.putSigned(section, delta - stateDelta);
+        stateDelta = delta;
+        stateTime = time;
+        putState(section, 0, x);
+        putState(section, 1, y);
+        putState(section, 2, velocityX);
+        putState(section, 3, velocityY);
+        counts[StateSection]++;
+        long activationQ = Math.round((double) activation / ActivationQuantum);
+        if (runLength > 0 && (activationQ != runActivation || HP != runHP)) putRun();
+        runActivation = activationQ;
+        runHP = HP;
+        runLength++;
+    }
+
+    /**
+     * Add session start
+     * @param time Timestamp in nanoseconds
+     * @param flappyX Flappy position in x dimension
+     * @param flappyY Flappy position in y dimension
+     * @param startPosition Position where the course starts
+     * @param courseIndex Index of the first course element
+     */
+    public void logSessionStart(long time, float flappyX, float flappyY, float startPosition, int courseIndex) {
+        putEventHeader(RecordType.SessionStart, time, courseIndex, 3);
+        ByteBuffer section = sections[EventSection];
+        section.putFloat(flappyX).putFloat(flappyY).putFloat(startPosition);
+    }
+
+    /**
+     * Add start or end of a Flappy collision
+     * @param time End of the physics step in nanoseconds
+     * @param begin true when the collision started, false when it ended
+     * @param x Flappy position in x dimension
+     * @param y Flappy position in y dimension
+     * @param HP Flappy HP
+     */
+    public void logContact(long time, boolean begin, float x, float y, int HP) {
+        putEventHeader(begin ? RecordType.ContactBegin : RecordType.ContactEnd, time, HP, 2);
+        sections[EventSection].putFloat(x).putFloat(y);
+    }
+
+    /**
+     * Write the last block, the block index and the trailer and close the file
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBlock();
+            long indexOffset = position;
+            for (int b = 0; b < blockCount; b++) {
+                if (output.remaining() < 16) writeOutput();
+                output.putLong(indexOffsets[b]).putLong(indexTimes[b]);
+            }
+            if (output.remaining() < TrailerSize) writeOutput();
+            output.putLong(indexOffset).putInt(blockCount).putInt(TrailerMagic);
+            writeOutput();
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Copy an event record from a TelemetryReader
+     * @param type Event type
+     * @param time Timestamp in nanoseconds
+     * @param aux Type specific integer
+     * @param reader Reader positioned at the record
+     * @param count Amount of values
+     */
+    private void logEvent(RecordType type, long time, int aux, TelemetryReader reader, int count) {
+        putEventHeader(type, time, aux, count);
+        for (int v = 0; v < count; v++) sections[EventSection].putFloat(reader.getValue(v));
+    }
+
+    /**
+     * Put type, timestamp and aux of an event record
+     * @param type Event type
+     * @param time Timestamp in nanoseconds
+     * @param aux Type specific integer
+     * @param count Amount of float values which follow
+     */
+    private void putEventHeader(RecordType type, long time, int aux, int count) {
+        ensureRoom(EventSection, 2 + VarInt.MaxBytes * 2 + TelemetryWriter.Values * 4);
+        ByteBuffer section = sections[EventSection];
+        startRecord(time);
+        section.put(type.getCode());
+        VarInt.putSigned(section, time - eventTime);
+        eventTime = time;
+        VarInt.putSigned(section, aux);
+        section.put((byte) count);
+        counts[EventSection]++;
+    }
+
+    /**
+     * Put quantized state value as a delta from the previous state record
+     * @param section State section
+     * @param index Value index
+     * @param value Value
+     */
+    private void putState(ByteBuffer section, int index, float value) {
+        long q = Math.round((double) value / StateQuantum);
+        VarInt.putSigned(section, q - stateValues[index]);
+        stateValues[index] = q;
+    }
+
+    /**
+     * Put the pending (activation, HP) run
+     */
+    private void putRun() {
+        ByteBuffer section = sections[RunSection];
+        VarInt.put(section, runLength);
+        VarInt.putSigned(section, runActivation);
+        VarInt.putSigned(section, runHP);
+        counts[RunSection]++;
+        runLength = 0;
+    }
+
+    /**
+     * Set the block start time when the first record of a block is added
+     * @param time Timestamp of the record
+     */
+    private void startRecord(long time) {
+        if (blockTime != Long.MIN_VALUE) return;
+        blockTime = time;
+        emgTime = time;
+        stateTime = time;
+        eventTime = time;
+    }
+
+    /**
+     * Write the block out if a section doesn't have room for a record
+     * @param section Section index
+     * @param bytes Largest possible size of the record
+     */
+    private void ensureRoom(int section, int bytes) {
+        if (sections[section].remaining() < bytes) flushBlock();
+    }
+
+    /**
+     * Write the current block and start a new one
+     */
+    private void flushBlock() {
+        if (runLength > 0) putRun();
+        if (blockTime == Long.MIN_VALUE) return;
+        if (blockCount == indexOffsets.length) {
+            long[] offsets = new long[blockCount * 2];
+            long[] times = new long[blockCount * 2];
+            System.arraycopy(indexOffsets, 0, offsets, 0, blockCount);
+            System.arraycopy(indexTimes, 0, times, 0, blockCount);
+            indexOffsets = offsets;
+            indexTimes = times;
+        }
+        indexOffsets[blockCount] = position;
+        indexTimes[blockCount] = blockTime;
+        blockCount++;
+        int size = BlockHeaderSize - 4;
+        for (int s = 0; s < Sections; s++) size += sections[s].position();
+        output.putInt(size).putLong(blockTime);
+        for (int s = 0; s < Sections; s++) output.putInt(counts[s]).putInt(sections[s].position());
+        for (int s = 0; s < Sections; s++) {
+            sections[s].flip();
+            output.put(sections[s]);
+        }
+        try {
+            writeOutput();
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Couldn't write session block", e);
+        }
+        resetBlock();
+    }
+
+    /**
+     * Clear sections and predictors for a new block
+     */
+    private void resetBlock() {
+        for (int s = 0; s < Sections; s++) {
+            sections[s].clear();
+            counts[s] = 0;
+        }
+        blockTime = Long.MIN_VALUE;
+        emgDelta = 0;
+        for (int c = 0; c < channels; c++) emgSamples[c] = 0;
+        stateDelta = 0;
+        for (int i = 0; i < StateValues; i++) stateValues[i] = 0;
+        runLength = 0;
+    }
+
+    /**
+     * Write the output buffer to the file
+     * @throws IOException if writing fails
+     */
+    private void writeOutput() throws IOException {
+        output.flip();
+        while (output.hasRemaining()) position += channel.write(output);
+        output.clear();
+    }
+
+    /**
+     * Close the encoder, failures are rethrown unchecked
+     */
+    private void closeOrThrow() {
+        try {
+            close();
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Couldn't write session file", e);
+        }
+    }
+
+    /**
+     * Find EMG channel count of a TelemetryWriter file from its first EMG frame
+     * @param raw File written by TelemetryWriter
+     * @return Channel count, 0 if there are no EMG records
+     */
+    private static int countEmgChannels(File raw) {
+        TelemetryReader reader = new TelemetryReader(raw);
+        int channels = 0;
+        try {
+            while (reader.next()) {
+                if (reader.getType() != RecordType.EmgSamples) {
+                    if (channels > 0) break;
+                    continue;
+                }
+                if (reader.getAux() == 0 && channels > 0) break; // Second frame started
+                channels = Math.max(channels, reader.getAux() + reader.getValueCount());
+            }
+        } finally {
+            closeQuietly(reader);
+        }
+        return channels;
+    }
+
+    /**
+     * Close a reader, failures are ignored
+     * @param reader TelemetryReader
+     */
+    private static void closeQuietly(TelemetryReader reader) {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            // Nothing was written through the reader
+        }
+    }
+}
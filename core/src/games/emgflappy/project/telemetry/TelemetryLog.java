@@ -0,0 +1,53 @@
+package games.emgflappy.project.telemetry;
+
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Session telemetry which the game thread logs to, logging must never block or allocate
+ * TelemetryWriter records to a binary file on a writer thread (desktop, android, ios),
+ * GamePlatform.createTelemetry returns null where sessions can't be recorded (html)
+ * Note: only one thread (the game thread) may log
+ */
+public interface TelemetryLog extends Disposable {
+
+    /**
+     * Log start of a new game
+     * @param time Timestamp in nanoseconds (TimeUtils.nanoTime clock)
+     * @param flappyX Flappy position in x dimension
+     * @param flappyY Flappy position in y dimension
+     * @param startPosition Position where the course starts
+     * @param courseIndex Index of the first course element
+     */
+    void logSessionStart(long time, float flappyX, float flappyY, float startPosition, int courseIndex);
+
+    /**
+     * Log one raw EMG frame
+     * @param time Timestamp of the frame in nanoseconds
+     * @param frames Array containing the samples
+     * @param offset Index of the first sample of the frame in frames
+     * @param channels Samples per frame
+     */
+    void logEmg(long time, float[] frames, int offset, int channels);
+
+    /**
+     * Log Flappy state after a physics step
+     * @param time End of the physics step in nanoseconds
+     * @param x Position in x dimension
+     * @param y Position in y dimension
+     * @param velocityX Velocity in x dimension
+     * @param velocityY Velocity in y dimension
+     * @param activation Control activation
+     * @param HP Flappy HP
+     */
+    void logFlappyState(long time, float x, float y, float velocityX, float velocityY, float activation, int HP);
+
+    /**
+     * Log start or end of a Flappy collision
+     * @param time End of the physics step in nanoseconds
+     * @param begin true when the collision started, false when it ended
+     * @param x Flappy position in x dimension
+     * @param y Flappy position in y dimension
+     * @param HP Flappy HP
+     */
+    void logContact(long time, boolean begin, float x, float y, int HP);
+}
@@ -0,0 +1,169 @@
+package games.emgflappy.project.telemetry;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Sequential reader for session telemetry files written by TelemetryWriter
+ * Usage: while (reader.next()) { reader.getType(); reader.getTime(); reader.getValue(0); ... }
+ * Reading stops at the end of the last whole record, so files cut short by a crash can be read
+ * Note: records of unknown types (newer versions) are returned with getType() == null
+ */
+public class TelemetryReader implements Closeable {
+
+    private static final int BufferRecords = 4096; // Records read from the file at once
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final long startNanos;
+    private final long startMillis;
+    private final float[] values;
+    private RecordType type;
+    private int count;
+    private int aux;
+    private long time;
+
+    /**
+     * Open telemetry file
+     * @param file File written by TelemetryWriter
+     * @throws GdxRuntimeException if the file can't be read or it isn't a telemetry file
+     */
+    public TelemetryReader(File file) {
+        try {
+            channel = new FileInputStream(file).getChannel();
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Couldn't open telemetry file " + file, e);
+        }
+        buffer = ByteBuffer.allocateDirect(BufferRecords * TelemetryWriter.RecordSize);
+        values = new float[TelemetryWriter.Values];
+        buffer.limit(0);
+        if (!fill(TelemetryWriter.HeaderSize) || buffer.getInt() != TelemetryWriter.Magic) {
+            closeQuietly();
+            throw new GdxRuntimeException("Not a telemetry file: " + file);
+        }
+        short version = buffer.getShort();
+        short recordSize = buffer.getShort();
+        if (version > TelemetryWriter.Version || recordSize != TelemetryWriter.RecordSize) {
+            closeQuietly();
+            throw new GdxRuntimeException("Unsupported telemetry file version " + version + ": " + file);
+        }
+        startNanos = buffer.getLong();
+        startMillis = buffer.getLong();
+        buffer.position(TelemetryWriter.HeaderSize);
+    }
+
+    /**
+     * Move to the next record
+     * @return false when there are no more whole records
+     */
+    public boolean next() {
+        if (!fill(TelemetryWriter.RecordSize)) return false;
+        byte code = buffer.get();
+        if (code == 0) return false; // Zero filled tail (storage device lost the end of the file)
+        type = RecordType.fromCode(code);
+        count = buffer.get();
+        aux = buffer.getShort();
+        time = buffer.getLong();
+        for (int v = 0; v < TelemetryWriter.Values; v++) values[v] = buffer.getFloat();
+        return true;
+    }
+
+    /**
+     * Get type of the current record
+     * @return RecordType or null if the type is unknown
+     */
+    public RecordType getType() {
+        return type;
+    }
+
+    /**
+     * Get timestamp of the current record
+     * @return Timestamp in nanoseconds (TimeUtils.nanoTime clock of the recording device), use
+     * getStartNanos and getStartMillis to convert it to wall-clock time
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Get type specific integer of the current record (HP, first channel or course index)
+     * @return aux
+     */
+    public int getAux() {
+        return aux;
+    }
+
+    /**
+     * Get amount of values in the current record
+     * @return count
+     */
+    public int getValueCount() {
+        return count;
+    }
+
+    /**
+     * Get value of the current record
+     * @param index Value index, less than getValueCount
+     * @return value
+     */
+    public float getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * Get nanoTime clock reading when the recording started
+     * @return startNanos
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * Get wall-clock time when the recording started
+     * @return Milliseconds since the epoch
+     */
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Make sure that the buffer holds at least the given amount of bytes
+     * @param bytes Bytes needed
+     * @return false if the file ends before that
+     */
+    private boolean fill(int bytes) {
+        if (buffer.remaining() >= bytes) return true;
+        try {
+            buffer.compact();
+            while (buffer.position() < bytes && channel.read(buffer) > 0) {
+                // Read until enough bytes or the end of the file
+            }
+            buffer.flip();
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Couldn't read telemetry file", e);
+        }
+        return buffer.remaining() >= bytes;
+    }
+
+    /**
+     * Close the file after a failure
+     */
+    private void closeQuietly() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Already failing
+        }
+    }
+}
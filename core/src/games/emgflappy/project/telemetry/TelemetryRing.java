@@ -0,0 +1,102 @@
+package games.emgflappy.project.telemetry;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-producer/single-consumer ring buffer for telemetry records
+ * Record fields are stored in primitive arrays, offering never allocates or blocks and the
+ * consumer serializes records straight into a ByteBuffer in the file layout
+ * Note: exactly one thread may offer and exactly one (other) thread may drain
+ */
+final class TelemetryRing {
+
+    private final int mask; // capacity - 1, capacity is a power of two
+    private final byte[] types;
+    private final byte[] counts;
+    private final short[] aux;
+    private final long[] times;
+    private final float[] values; // capacity * TelemetryWriter.Values
+    private final AtomicLong head; // Next record to be drained, written only by the consumer
+    private final AtomicLong tail; // Next record to be offered, written only by the producer
+    private volatile long dropped; // Records rejected because the ring was full, written only by the producer
+
+    /**
+     * Constructor for TelemetryRing
+     * @param capacity Minimum amount of records the ring holds, rounded up to a power of two
+     */
+    TelemetryRing(int capacity) {
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) size <<= 1;
+        mask = size - 1;
+        types = new byte[size];
+        counts = new byte[size];
+        aux = new short[size];
+        times = new long[size];
+        values = new float[size * TelemetryWriter.Values];
+        head = new AtomicLong(0);
+        tail = new AtomicLong(0);
+        dropped = 0;
+    }
+
+    /**
+     * Add one record (producer thread only), values after count are stored as 0
+     * @param type Record type
+     * @param aux Type specific small integer
+     * @param time Timestamp in nanoseconds (TimeUtils.nanoTime clock)
+     * @param src Array containing the values
+     * @param offset Index of the first value in src
+     * @param count Amount of values, at most TelemetryWriter.Values
+     * @return true if the record was added, false if the ring was full and the record was dropped
+     */
+    boolean offer(RecordType type, int aux, long time, float[] src, int offset, int count) {
+        long t = tail.get();
+        if (t - head.get() > mask) {
+            dropped++;
+            return false;
+        }
+        int i = (int) t & mask;
+        int base = i * TelemetryWriter.Values;
+        for (int v = 0; v < TelemetryWriter.Values; v++) values[base + v] = v < count ? src[offset + v] : 0.f;
+        types[i] = type.getCode();
+        counts[i] = (byte) count;
+        this.aux[i] = (short) aux;
+        times[i] = time;
+        tail.lazySet(t + 1); // Publishes the record to the consumer
+        return true;
+    }
+
+    /**
+     * Serialize available records to a buffer (consumer thread only)
+     * @param dst Buffer where whole records are put while they fit
+     * @return Amount of records moved
+     */
+    int drainTo(ByteBuffer dst) {
+        long h = head.get();
+        int count = (int) Math.min(tail.get() - h, dst.remaining() / TelemetryWriter.RecordSize);
+        for (int n = 0; n < count; n++) {
+            int i = (int) (h + n) & mask;
+            dst.put(types[i]).put(counts[i]).putShort(aux[i]).putLong(times[i]);
+            int base = i * TelemetryWriter.Values;
+            for (int v = 0; v < TelemetryWriter.Values; v++) dst.putFloat(values[base + v]);
+        }
+        head.lazySet(h + count); // Frees the slots for the producer
+        return count;
+    }
+
+    /**
+     * Get amount of records waiting to be drained
+     * @return size
+     */
+    int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * Get how many records have been dropped because the consumer didn't keep up
+     * @return dropped
+     */
+    long getDroppedCount() {
+        return dropped;
+    }
+}
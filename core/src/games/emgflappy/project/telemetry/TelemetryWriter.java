@@ -0,0 +1,222 @@
+package games.emgflappy.project.telemetry;
+
+import com.badlogic.gdx.utils.TimeUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only binary session telemetry: the game thread logs fixed-size records to a
+ * TelemetryRing and a writer thread appends them to a FileChannel
+ * Logging never blocks or allocates (records are dropped and counted if the writer falls behind),
+ * the writer hands new records to the OS within WriteInterval so they survive if the process dies
+ * and forces them to the storage device every ForceInterval
+ * File format (big-endian): HeaderSize byte header (magic, version, record size, start time in
+ * nanoseconds and in milliseconds since the epoch) followed by RecordSize byte records
+ * (type code, value count, aux, timestamp and Values floats), a torn last record after a crash
+ * is ignored by TelemetryReader
+ * Note: only one thread (the game thread) may log
+ * JRE only (threads, java.nio.channels), excluded from the html build
+ */
+public class TelemetryWriter implements TelemetryLog {
+
+    public static final int Magic = 0x454d4754; // "EMGT"
+    public static final short Version = 1;
+    public static final int Values = 5; // Floats per record
+    public static final int RecordSize = 1 + 1 + 2 + 8 + Values * 4;
+    public static final int HeaderSize = RecordSize; // Header has the size of a record so that records stay aligned
+
+    private static final int RingCapacity = 16384; // Records, ~2 s of 8 channel EMG at 4 kHz
+    private static final int BufferRecords = 2048; // Records written at once at most
+    private static long WriteInterval = 2000000L; // Nanoseconds the writer sleeps when there is nothing to write
+    private static long ForceInterval = 1000000000L; // Nanoseconds between forcing written records to the storage device
+
+    private final File file;
+    private final TelemetryRing ring;
+    private final Thread thread;
+    private final float[] scratch; // Values of the record being logged (game thread)
+    private volatile boolean running;
+    private volatile IOException failure;
+    private volatile long writtenCount;
+
+    /**
+     * Constructor for TelemetryWriter, call start to begin writing
+     * @param file New file where the session is recorded (an existing file is overwritten)
+     */
+    public TelemetryWriter(File file) {
+        this.file = file;
+        ring = new TelemetryRing(RingCapacity);
+        scratch = new float[Values];
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                write();
+            }
+        }, TelemetryWriter.class.getSimpleName());
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Start the writer thread
+     */
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * Write remaining records and stop the writer thread
+     */
+    @Override
+    public void dispose() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Log start of a new game
+     * @param time Timestamp in nanoseconds (TimeUtils.nanoTime clock)
+     * @param flappyX Flappy position in x dimension
+     * @param flappyY Flappy position in y dimension
+     * @param startPosition Position where the course starts
+     * @param courseIndex Index of the first course element
+     */
+    @Override
+    public void logSessionStart(long time, float flappyX, float flappyY, float startPosition, int courseIndex) {
+        scratch[0] = flappyX;
+        scratch[1] = flappyY;
+        scratch[2] = startPosition;
+        ring.offer(RecordType.SessionStart, courseIndex, time, scratch, 0, 3);
+    }
+
+    /**
+     * Log one raw EMG frame
+     * @param time Timestamp of the frame in nanoseconds
+     * @param frames Array containing the samples
+     * @param offset Index of the first sample of the frame in frames
+     * @param channels Samples per frame
+     */
+    @Override
+    public void logEmg(long time, float[] frames, int offset, int channels) {
+        for (int c = 0; c < channels; c += Values) {
+            ring.offer(RecordType.EmgSamples, c, time, frames, offset + c, Math.min(Values, channels - c));
+        }
+    }
+
+    /**
+     * Log Flappy state after a physics step
+     * @param time End of the physics step in nanoseconds
+     * @param x Position in x dimension
+     * @param y Position in y dimension
+     * @param velocityX Velocity in x dimension
+     * @param velocityY Velocity in y dimension
+     * @param activation Control activation
+     * @param HP Flappy HP
+     */
+    @Override
+    public void logFlappyState(long time, float x, float y, float velocityX, float velocityY, float activation, int HP) {
+        scratch[0] = x;
+        scratch[1] = y;
+        scratch[2] = velocityX;
+        scratch[3] = velocityY;
+        scratch[4] = activation;
+        ring.offer(RecordType.FlappyState, HP, time, scratch, 0, 5);
+    }
+
+    /**
+     * Log start or end of a Flappy collision
+     * @param time End of the physics step in nanoseconds
+     * @param begin true when the collision started, false when it ended
+     * @param x Flappy position in x dimension
+     * @param y Flappy position in y dimension
+     * @param HP Flappy HP
+     */
+    @Override
+    public void logContact(long time, boolean begin, float x, float y, int HP) {
+        scratch[0] = x;
+        scratch[1] = y;
+        ring.offer(begin ? RecordType.ContactBegin : RecordType.ContactEnd, HP, time, scratch, 0, 2);
+    }
+
+    /**
+     * Get how many records have been dropped because the writer didn't keep up
+     * @return Dropped record count
+     */
+    public long getDroppedCount() {
+        return ring.getDroppedCount();
+    }
+
+    /**
+     * Get how many records have been written to the file
+     * @return writtenCount
+     */
+    public long getWrittenCount() {
+        return writtenCount;
+    }
+
+    /**
+     * Get exception which stopped the writer
+     * @return IOException or null
+     */
+    public IOException getFailure() {
+        return failure;
+    }
+
+    /**
+     * Writer thread loop
+     */
+    private void write() {
+        FileChannel channel = null;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BufferRecords * RecordSize);
+        try {
+            channel = new FileOutputStream(file, false).getChannel();
+            buffer.putInt(Magic).putShort(Version).putShort((short) RecordSize);
+            buffer.putLong(TimeUtils.nanoTime()).putLong(TimeUtils.millis());
+            while (buffer.position() < HeaderSize) buffer.put((byte) 0);
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            long forceTime = TimeUtils.nanoTime();
+            boolean unforced = true;
+            while (true) {
+                boolean stopping = !running; // Read before draining so that records logged before dispose are written
+                buffer.clear();
+                int count = ring.drainTo(buffer);
+                if (count > 0) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) channel.write(buffer);
+                    writtenCount += count;
+                    unforced = true;
+                }
+                long now = TimeUtils.nanoTime();
+                if (unforced && now - forceTime >= ForceInterval) {
+                    channel.force(false);
+                    forceTime = now;
+                    unforced = false;
+                }
+                if (count == 0) {
+                    if (stopping) break;
+                    LockSupport.parkNanos(WriteInterval);
+                }
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            running = false;
+            try {
+                if (channel != null) channel.close();
+            } catch (IOException e) {
+                if (failure == null) failure = e;
+            }
+        }
+    }
+}
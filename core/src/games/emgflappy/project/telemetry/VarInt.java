@@ -0,0 +1,63 @@
+package games.emgflappy.project.telemetry;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Variable-length integer coding: 7 bits per byte with the high bit telling that more bytes follow,
+ * zig-zag coding maps small negative numbers to small unsigned numbers (0, -1, 1, -2 -> 0, 1, 2, 3)
+ */
+final class VarInt {
+
+    static final int MaxBytes = 10; // Longest encoding of a long
+
+    private VarInt() {}
+
+    /**
+     * Put unsigned variable-length long
+     * @param buffer Destination
+     * @param value Value interpreted as unsigned
+     */
+    static void put(ByteBuffer buffer, long value) {
+        while ((value & ~0x7fL) != 0) {
+            buffer.put((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Get unsigned variable-length long
+     * @param buffer Source
+     * @return Value
+     */
+    static long get(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    /**
+     * Put signed variable-length long (zig-zag)
+     * @param buffer Destination
+     * @param value Signed value
+     */
+    static void putSigned(ByteBuffer buffer, long value) {
+        put(buffer, (value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Get signed variable-length long (zig-zag)
+     * @param buffer Source
+     * @return Signed value
+     */
+    static long getSigned(ByteBuffer buffer) {
+        long value = get(buffer);
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,41 @@
+package games.emgflappy.project.utils;
+
+/**
+ * CRC-32 (IEEE 802.3, the checksum of java.util.zip.CRC32 and zip files) with a lookup table,
+ * used instead of java.util.zip.CRC32 which GWT doesn't emulate (html)
+ */
+public final class Crc32 {
+
+    private static final int[] Table = createTable();
+
+    private Crc32() {}
+
+    /**
+     * Compute CRC-32 of bytes
+     * @param bytes Array containing the bytes
+     * @param offset Index of the first byte
+     * @param length Amount of bytes
+     * @return CRC-32, identical to java.util.zip.CRC32.getValue cast to int
+     */
+    public static int compute(byte[] bytes, int offset, int length) {
+        int crc = 0xffffffff;
+        for (int i = offset; i < offset + length; i++) {
+            crc = Table[(crc ^ bytes[i]) & 0xff] ^ (crc >>> 8);
+        }
+        return ~crc;
+    }
+
+    /**
+     * Create lookup table for the reflected polynomial 0xedb88320
+     * @return Table of 256 entries
+     */
+    private static int[] createTable() {
+        int[] table = new int[256];
+        for (int n = 0; n < 256; n++) {
+            int c = n;
+            for (int k = 0; k < 8; k++) c = (c & 1) != 0 ? 0xedb88320 ^ (c >>> 1) : c >>> 1;
+            table[n] = c;
+        }
+        return table;
+    }
+}
@@ -0,0 +1,147 @@
+package games.emgflappy.project.utils;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.JsonValue;
+import games.emgflappy.project.input.emg.EmgProcessor;
+import games.emgflappy.project.world.SaveWriter;
+
+/**
+ * Per-patient EMG calibration: rest baseline and maximum voluntary contraction (MVC) envelope for
+ * each channel, stored next to the Options file
+ */
+public final class EmgCalibration implements Json.Serializable {
+
+    private static String CalibrationFilePrefix = "EMGflappy_calibration_";
+    private static String CalibrationFileSuffix = ".json";
+
+    private float[] rest; // Rest envelope per channel (maps to activation 0)
+    private float[] mvc; // MVC envelope per channel (maps to activation 1)
+    private float[] restDeviation; // Standard deviation of the rest envelope per channel (signal quality indicator)
+
+    /**
+     * Constructor for Json deserialization
+     */
+    public EmgCalibration() {
+        this(new float[0], new float[0], new float[0]);
+    }
+
+    /**
+     * Constructor for EmgCalibration
+     * @param rest Rest envelope per channel
+     * @param mvc MVC envelope per channel
+     * @param restDeviation Standard deviation of the rest envelope per channel
+     */
+    public EmgCalibration(float[] rest, float[] mvc, float[] restDeviation) {
+        this.rest = rest;
+        this.mvc = mvc;
+        this.restDeviation = restDeviation;
+    }
+
+    /**
+     * Write EmgCalibration to json
+     * @param json Where calibration is written to
+     */
+    @Override
+    public void write(Json json) {
+        json.writeValue("rest", rest);
+        json.writeValue("mvc", mvc);
+        json.writeValue("restDeviation", restDeviation);
+    }
+
+    /**
+     * Read EmgCalibration from json
+     * @param json Handle to the json
+     * @param jsonData Contains EmgCalibration in json format
+     */
+    @Override
+    public void read(Json json, JsonValue jsonData) {
+        rest = jsonData.get("rest").asFloatArray();
+        mvc = jsonData.get("mvc").asFloatArray();
+        restDeviation = jsonData.has("restDeviation") ? jsonData.get("restDeviation").asFloatArray() : new float[rest.length];
+    }
+
+    /**
+     * Read calibration of a patient
+     * @param patient Patient identifier (Options.Patient)
+     * @return EmgCalibration or null if the patient hasn't been calibrated
+     */
+    public static EmgCalibration read(String patient) {
+        try {
+            FileHandle file = Gdx.files.local(EmgCalibration.fileName(patient));
+            if (!file.exists()) return null;
+            return new Json().fromJson(EmgCalibration.class, file.readString());
+        } catch (Exception e) {
+            Gdx.app.log(EmgCalibration.class.getSimpleName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Write calibration of a patient through the SaveWriter (only the json conversion is done here
+     * when the SaveWriter has its own thread)
+     * @param patient Patient identifier (Options.Patient)
+     * @param writer SaveWriter which writes the file
+     */
+    public void write(String patient, SaveWriter writer) {
+        try {
+            writer.saveText(EmgCalibration.fileName(patient), new Json().toJson(this, EmgCalibration.class));
+        } catch (Exception e) {
+            Gdx.app.log(EmgCalibration.class.getSimpleName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Set normalization of an EmgProcessor, channels missing from the calibration are left as they are
+     * @param processor EmgProcessor which is normalized
+     */
+    public void apply(EmgProcessor processor) {
+        int channels = Math.min(processor.getChannelCount(), getChannelCount());
+        for (int c = 0; c < channels; c++) processor.setNormalization(c, rest[c], mvc[c]);
+    }
+
+    /**
+     * Get amount of calibrated channels
+     * @return channel count
+     */
+    public int getChannelCount() {
+        return Math.min(rest.length, mvc.length);
+    }
+
+    /**
+     * Get rest envelope of a channel
+     * @param channel Channel index
+     * @return rest
+     */
+    public float getRest(int channel) {
+        return rest[channel];
+    }
+
+    /**
+     * Get MVC envelope of a channel
+     * @param channel Channel index
+     * @return mvc
+     */
+    public float getMvc(int channel) {
+        return mvc[channel];
+    }
+
+    /**
+     * Get standard deviation of the rest envelope of a channel
+     * @param channel Channel index
+     * @return restDeviation
+     */
+    public float getRestDeviation(int channel) {
+        return restDeviation[channel];
+    }
+
+    /**
+     * Get calibration file name of a patient
+     * @param patient Patient identifier
+     * @return File name in local storage
+     */
+    private static String fileName(String patient) {
+        return CalibrationFilePrefix + patient.replaceAll("[^A-Za-z0-9_-]", "_") + CalibrationFileSuffix;
+    }
+}
@@ -0,0 +1,85 @@
+package games.emgflappy.project.utils;
+
+/**
+ * Histogram of latencies in nanoseconds with log-spaced bins (LogHistogram), memory is fixed and
+ * recording is O(1)
+ * Bins cover MinLatency - MinLatency * 10^Decades with a constant relative error set by BinsPerDecade,
+ * shorter and longer latencies are counted in the first and the last bin
+ */
+public class LatencyHistogram {
+
+    private static final int BinsPerDecade = 40; // Relative error is about 10^(1/40) - 1 = 6 %
+    private static final long MinLatency = 1000L; // 1 us
+    private static final int Decades = 7; // Up to 10 s
+
+    private final LogHistogram histogram;
+    private long sum;
+    private long min;
+    private long max;
+
+    /**
+     * Constructor for LatencyHistogram
+     */
+    public LatencyHistogram() {
+        histogram = new LogHistogram(MinLatency, BinsPerDecade, Decades);
+        reset();
+    }
+
+    /**
+     * Forget all recorded latencies
+     */
+    public void reset() {
+        histogram.reset();
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = Long.MIN_VALUE;
+    }
+
+    /**
+     * Record one latency
+     * @param nanos Latency in nanoseconds, negative values (clock skew) are counted as 0
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        histogram.add(nanos);
+        sum += nanos;
+        if (nanos < min) min = nanos;
+        if (nanos > max) max = nanos;
+    }
+
+    /**
+     * Estimate percentile of the recorded latencies
+     * @param fraction Percentile as a fraction, e.g. 0.99f
+     * @return Latency in nanoseconds clamped to [min, max], 0 if nothing has been recorded
+     */
+    public long getPercentile(float fraction) {
+        if (histogram.getCount() == 0) return 0;
+        long value = (long) histogram.getPercentile(fraction);
+        return Math.min(Math.max(value, min), max);
+    }
+
+    /**
+     * Get amount of recorded latencies
+     * @return count
+     */
+    public long getCount() {
+        return histogram.getCount();
+    }
+
+    /**
+     * Get mean latency
+     * @return Mean in nanoseconds, 0 if nothing has been recorded
+     */
+    public long getMean() {
+        long count = histogram.getCount();
+        return count > 0 ? sum / count : 0;
+    }
+
+    /**
+     * Get largest recorded latency
+     * @return max in nanoseconds, 0 if nothing has been recorded
+     */
+    public long getMax() {
+        return histogram.getCount() > 0 ? max : 0;
+    }
+}
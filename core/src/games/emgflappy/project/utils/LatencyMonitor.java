@@ -0,0 +1,92 @@
+package games.emgflappy.project.utils;
+
+/**
+ * Measures input-to-motion latency: every input event (touch or EMG sample) carries its ingestion
+ * timestamp, FlappySimulation reports when a physics step applies it to Flappy and EMGflappy
+ * reports when the frame showing the result has been submitted (end of render)
+ * Stages are recorded to separate LatencyHistograms:
+ * InputToPhysics (ingestion -> force applied), PhysicsToFrame (force applied -> frame submitted)
+ * and InputToFrame (ingestion -> frame submitted)
+ * Note: not thread-safe, use from the thread which steps the simulation and renders
+ */
+public class LatencyMonitor {
+
+    public static final int InputToPhysics = 0;
+    public static final int PhysicsToFrame = 1;
+    public static final int InputToFrame = 2;
+    public static final int Stages = 3;
+
+    private static final int MaxPendingEvents = 64; // Events waiting for their frame, more events per frame are only measured to physics
+
+    private final LatencyHistogram[] histograms;
+    private final long[] pendingInputTimes;
+    private final long[] pendingPhysicsTimes;
+    private int pending;
+    private long droppedCount;
+
+    /**
+     * Constructor for LatencyMonitor
+     */
+    public LatencyMonitor() {
+        histograms = new LatencyHistogram[Stages];
+        for (int i = 0; i < Stages; i++) histograms[i] = new LatencyHistogram();
+        pendingInputTimes = new long[MaxPendingEvents];
+        pendingPhysicsTimes = new long[MaxPendingEvents];
+        pending = 0;
+        droppedCount = 0;
+    }
+
+    /**
+     * Call this when a physics step applies an input event to Flappy
+     * @param inputTime Ingestion timestamp of the event in nanoseconds (TimeUtils.nanoTime clock)
+     * @param physicsTime When the event was applied in nanoseconds
+     */
+    public void onInputApplied(long inputTime, long physicsTime) {
+        histograms[InputToPhysics].record(physicsTime - inputTime);
+        if (pending == MaxPendingEvents) {
+            droppedCount++;
+            return;
+        }
+        pendingInputTimes[pending] = inputTime;
+        pendingPhysicsTimes[pending] = physicsTime;
+        pending++;
+    }
+
+    /**
+     * Call this at the end of a render cycle, completes the events applied since the previous frame
+     * @param frameTime When the frame was submitted in nanoseconds
+     */
+    public void onFrameSubmitted(long frameTime) {
+        for (int i = 0; i < pending; i++) {
+            histograms[PhysicsToFrame].record(frameTime - pendingPhysicsTimes[i]);
+            histograms[InputToFrame].record(frameTime - pendingInputTimes[i]);
+        }
+        pending = 0;
+    }
+
+    /**
+     * Get histogram of a stage
+     * @param stage InputToPhysics, PhysicsToFrame or InputToFrame
+     * @return LatencyHistogram
+     */
+    public LatencyHistogram getHistogram(int stage) {
+        return histograms[stage];
+    }
+
+    /**
+     * Get how many events weren't measured to the frame because too many events were applied in one frame
+     * @return droppedCount
+     */
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * Forget all measurements (e.g. when measuring another device)
+     */
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) histogram.reset();
+        pending = 0;
+        droppedCount = 0;
+    }
+}
@@ -0,0 +1,76 @@
+package games.emgflappy.project.utils;
+
+/**
+ * Histogram with log-spaced bins, memory is fixed and adding a value is O(1)
+ * Bins cover minValue - minValue * 10^decades with a constant relative error set by binsPerDecade,
+ * smaller and larger values are counted in the first and the last bin
+ * Used by LatencyHistogram and EmgStatistics which keep their own min, max and mean
+ */
+public class LogHistogram {
+
+    private final long[] bins;
+    private final double minValue;
+    private final double logMin;
+    private final double logStep;
+    private long count;
+
+    /**
+     * Constructor for LogHistogram
+     * @param minValue Smallest value with its own bin, must be positive
+     * @param binsPerDecade Histogram resolution, relative error is about 10^(1/binsPerDecade) - 1
+     * @param decades Amount of decades covered above minValue
+     */
+    public LogHistogram(double minValue, int binsPerDecade, int decades) {
+        bins = new long[binsPerDecade * decades];
+        this.minValue = minValue;
+        logMin = Math.log(minValue);
+        logStep = Math.log(10.0) / binsPerDecade;
+    }
+
+    /**
+     * Forget all values
+     */
+    public void reset() {
+        for (int i = 0; i < bins.length; i++) bins[i] = 0;
+        count = 0;
+    }
+
+    /**
+     * Add value
+     * @param value Value, values up to minValue (also negative ones) are counted in the first bin
+     */
+    public void add(double value) {
+        int bin = value > minValue ? (int) ((Math.log(value) - logMin) / logStep) : 0;
+        bins[Math.min(bin, bins.length - 1)]++;
+        count++;
+    }
+
+    /**
+     * Estimate percentile of the added values, interpolated inside the bin
+     * Note: the estimate may fall outside the range of the added values, callers clamp it to their
+     * min and max
+     * @param fraction Percentile as a fraction, e.g. 0.99f
+     * @return Estimated value, 0 if nothing has been added
+     */
+    public double getPercentile(float fraction) {
+        if (count == 0) return 0.0;
+        double target = Math.min(Math.max(fraction, 0.f), 1.f) * count;
+        long cumulative = 0;
+        for (int b = 0; b < bins.length; b++) {
+            if (bins[b] > 0 && cumulative + bins[b] >= target) {
+                double within = (target - cumulative) / bins[b];
+                return Math.exp(logMin + (b + within) * logStep);
+            }
+            cumulative += bins[b];
+        }
+        return Math.exp(logMin + bins.length * logStep);
+    }
+
+    /**
+     * Get amount of added values
+     * @return count
+     */
+    public long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,213 @@
+package games.emgflappy.project.utils;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.FixtureDef;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.Shape;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Debug counters for native Box2D objects: create and destroy shapes, bodies, fixtures and worlds
+ * through these methods and, when Enabled, the live and created counts of each kind are kept
+ * Leaks are reported (logged and returned by checkLeaks) when the last World is disposed: then no
+ * bodies, fixtures or shapes should be alive anymore
+ * Note: set Enabled before any native object is created and don't change it afterwards, objects
+ * created while disabled are not counted when they are destroyed either
+ * Note: native Box2D objects are created and destroyed only on the game thread, so the counts are
+ * plain fields
+ */
+public final class NativeTracker {
+
+    public static final int Shapes = 0;
+    public static final int Bodies = 1;
+    public static final int Fixtures = 2;
+    public static final int Worlds = 3;
+    public static final int Kinds = 4;
+
+    public static boolean Enabled = false; // Set this to true to count native objects (costs a counter update per native call)
+
+    private static final String[] Names = {"shapes", "bodies", "fixtures", "worlds"};
+    private static final int[] live = new int[Kinds];
+    private static final long[] created = new long[Kinds];
+    private static final Array<Body> bodies = new Array<>(); // Reused when a World is disposed
+
+    private NativeTracker() {}
+
+    /**
+     * Create PolygonShape
+     * @return New PolygonShape, dispose it with disposeShape
+     */
+    public static PolygonShape createPolygonShape() {
+        onCreated(Shapes, 1);
+        return new PolygonShape();
+    }
+
+    /**
+     * Dispose shape created with createPolygonShape
+     * @param shape Shape owned by the caller (not a fixture shape)
+     */
+    public static void disposeShape(Shape shape) {
+        shape.dispose();
+        onDestroyed(Shapes, 1);
+    }
+
+    /**
+     * Create Box2D World
+     * @param gravity World gravity
+     * @param doSleep Whether bodies are allowed to sleep
+     * @return New World, dispose it with disposeWorld
+     */
+    public static World createWorld(Vector2 gravity, boolean doSleep) {
+        onCreated(Worlds, 1);
+        return new World(gravity, doSleep);
+    }
+
+    /**
+     * Dispose World together with its remaining bodies and fixtures, checks leaks if this was the
+     * last World
+     * @param world World created with createWorld
+     */
+    public static void disposeWorld(World world) {
+        if (Enabled) {
+            world.getBodies(bodies);
+            for (Body body : bodies) onDestroyed(Fixtures, body.getFixtureList().size);
+            onDestroyed(Bodies, bodies.size);
+            bodies.clear();
+        }
+        world.dispose();
+        onDestroyed(Worlds, 1);
+        if (Enabled && live[Worlds] == 0) checkLeaks();
+    }
+
+    /**
+     * Create Body
+     * @param world World where the body is created
+     * @param bodyDef Body definition
+     * @return New Body
+     */
+    public static Body createBody(World world, BodyDef bodyDef) {
+        onCreated(Bodies, 1);
+        return world.createBody(bodyDef);
+    }
+
+    /**
+     * Destroy Body together with its fixtures
+     * @param world World which owns the body
+     * @param body Body to be destroyed
+     */
+    public static void destroyBody(World world, Body body) {
+        onDestroyed(Fixtures, body.getFixtureList().size);
+        world.destroyBody(body);
+        onDestroyed(Bodies, 1);
+    }
+
+    /**
+     * Create Fixture
+     * @param body Body which owns the fixture
+     * @param fixtureDef Fixture definition
+     * @return New Fixture
+     */
+    public static Fixture createFixture(Body body, FixtureDef fixtureDef) {
+        onCreated(Fixtures, 1);
+        return body.createFixture(fixtureDef);
+    }
+
+    /**
+     * Create Fixture
+     * @param body Body which owns the fixture
+     * @param shape Shape which is copied to the fixture
+     * @param density Fixture density
+     * @return New Fixture
+     */
+    public static Fixture createFixture(Body body, Shape shape, float density) {
+        onCreated(Fixtures, 1);
+        return body.createFixture(shape, density);
+    }
+
+    /**
+     * Destroy Fixture
+     * @param body Body which owns the fixture
+     * @param fixture Fixture to be destroyed
+     */
+    public static void destroyFixture(Body body, Fixture fixture) {
+        body.destroyFixture(fixture);
+        onDestroyed(Fixtures, 1);
+    }
+
+    /**
+     * Get amount of live native objects
+     * @param kind Shapes, Bodies, Fixtures or Worlds
+     * @return Live count, 0 when tracking is disabled
+     */
+    public static int getLiveCount(int kind) {
+        return live[kind];
+    }
+
+    /**
+     * Get amount of native objects created since the start (or reset)
+     * @param kind Shapes, Bodies, Fixtures or Worlds
+     * @return Created count, 0 when tracking is disabled
+     */
+    public static long getCreatedCount(int kind) {
+        return created[kind];
+    }
+
+    /**
+     * Get name of an object kind
+     * @param kind Shapes, Bodies, Fixtures or Worlds
+     * @return Name for logs and overlays
+     */
+    public static String getName(int kind) {
+        return Names[kind];
+    }
+
+    /**
+     * Check that no native objects are alive, call this when everything should have been disposed
+     * @return true if some objects leaked (they are logged)
+     */
+    public static boolean checkLeaks() {
+        boolean leaked = false;
+        for (int kind = 0; kind < Kinds; kind++) {
+            if (live[kind] != 0) {
+                leaked = true;
+                if (Gdx.app != null) Gdx.app.log(NativeTracker.class.getSimpleName(), "Leaked " + live[kind] + " " + Names[kind]);
+            }
+        }
+        return leaked;
+    }
+
+    /**
+     * Reset all counts (e.g. between tests)
+     */
+    public static void reset() {
+        for (int kind = 0; kind < Kinds; kind++) {
+            live[kind] = 0;
+            created[kind] = 0;
+        }
+    }
+
+    /**
+     * Count created objects
+     * @param kind Object kind
+     * @param count Amount of objects
+     */
+    private static void onCreated(int kind, int count) {
+        if (!Enabled) return;
+        live[kind] += count;
+        created[kind] += count;
+    }
+
+    /**
+     * Count destroyed objects
+     * @param kind Object kind
+     * @param count Amount of objects
+     */
+    private static void onDestroyed(int kind, int count) {
+        if (Enabled) live[kind] -= count;
+    }
+}
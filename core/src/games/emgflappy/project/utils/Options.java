@@ -4,6 +4,7 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
+import games.emgflappy.project.world.SaveWriter;
 
 /**
  * Singleton class containing all options for EMGflappy
@@ -17,6 +18,7 @@ public final class Options implements Json.Serializable {
     public final float MinVolume = 0.f;  // Min volume for libGDX audio playback
     public boolean FixViewPortSizes = false; // Whether to fix viewport size also in x dimension: this will make all the objects have equal sizes on every device (physics work nicer) but it also tends to look rougher
     public DifficultySetting Difficulty = DifficultySetting.Easy; // Difficulty of the game
+    public String Patient = "default"; // Identifier of the current patient, selects the EMG calibration file
 
     private float Volume = 0.1f; // Current audio playback volume
 
@@ -34,6 +36,7 @@ public final class Options implements Json.Serializable {
         json.writeValue("Volume", Volume);
         json.writeValue("FixViewPortSize", FixViewPortSizes);
         json.writeValue("Difficulty", Difficulty.getDifficulty());
+        json.writeValue("Patient", Patient);
     }
 
     /**
@@ -46,6 +49,7 @@ public final class Options implements Json.Serializable {
         Volume = jsonData.getFloat("Volume", 0.5f);
         FixViewPortSizes = jsonData.getBoolean("FixViewPortSize", false);
         Difficulty.setDifficulty(jsonData.getInt("Difficulty", DifficultySetting.Easy.getDifficulty()));
+        Patient = jsonData.getString("Patient", "default");
     }
 
     /**
@@ -104,4 +108,18 @@ public final class Options implements Json.Serializable {
 
     }
 
+    /**
+     * Write Options to a file through the SaveWriter (only the json conversion is done here when
+     * the SaveWriter has its own thread)
+     * @param writer SaveWriter which writes the file
+     */
+    public void writeOptions(SaveWriter writer) {
+        try {
+            Json json = new Json();
+            writer.saveText(Options.OptionsFile, json.toJson(this, Options.class));
+        } catch (Exception e) {
+            Gdx.app.log(Options.class.getSimpleName(), e.getMessage());
+        }
+    }
+
 }
@@ -0,0 +1,48 @@
+package games.emgflappy.project.utils;
+
+/**
+ * Number formatting for overlays and labels without String.format, which GWT doesn't emulate so
+ * it can't be used in code compiled for the html backend
+ */
+public final class TextFormat {
+
+    private static final int MaxDecimals = 9;
+
+    private TextFormat() {}
+
+    /**
+     * Append value with a fixed amount of decimals
+     * @param text StringBuilder where the value is appended
+     * @param value Value to be appended
+     * @param decimals Amount of decimals, 0 - MaxDecimals
+     * @return text
+     */
+    public static StringBuilder appendDecimal(StringBuilder text, double value, int decimals) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) return text.append(value);
+        decimals = Math.max(0, Math.min(decimals, MaxDecimals));
+        long scale = 1;
+        for (int i = 0; i < decimals; i++) scale *= 10;
+        long scaled = Math.round(Math.abs(value) * scale);
+        if (value < 0 && scaled != 0) text.append('-');
+        text.append(scaled / scale);
+        if (decimals > 0) {
+            text.append('.');
+            long fraction = scaled % scale;
+            for (long digit = scale / 10; digit > 1 && fraction < digit; digit /= 10) text.append('0');
+            text.append(fraction);
+        }
+        return text;
+    }
+
+    /**
+     * Append value rounded to significant digits, large values are appended as whole numbers
+     * @param text StringBuilder where the value is appended
+     * @param value Value to be appended
+     * @param digits Amount of significant digits, at least 1
+     * @return text
+     */
+    public static StringBuilder appendSignificant(StringBuilder text, double value, int digits) {
+        int exponent = value == 0 ? 0 : (int) Math.floor(Math.log10(Math.abs(value)));
+        return appendDecimal(text, value, Math.max(1, digits) - 1 - exponent);
+    }
+}
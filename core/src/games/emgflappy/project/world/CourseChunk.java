@@ -0,0 +1,110 @@
+package games.emgflappy.project.world;
+
+import games.emgflappy.project.objects.ObstacleType;
+
+/**
+ * Immutable layout of a part of the course: obstacle descriptors stored in primitive arrays
+ * FlappySimulation creates Box2D bodies from the descriptors a few at a time
+ */
+public final class CourseChunk {
+
+    private final ObstacleType[] types;
+    private final float[] x;
+    private final float[] y;
+    private final float[] height;
+    private final boolean[] flipY;
+    private final float endPosition;
+    private final int courseIndex;
+
+    /**
+     * Constructor for CourseChunk, the arrays are not copied so do not modify them afterwards
+     * @param types ObstacleType of each obstacle
+     * @param x Left edge of each obstacle
+     * @param y Bottom edge of each obstacle
+     * @param height Height of each obstacle
+     * @param flipY Whether each obstacle is flipped in y dimension (upper obstacles)
+     * @param endPosition Position in x dimension where the next chunk starts
+     * @param courseIndex CourseSource index of the first element after this chunk
+     */
+    public CourseChunk(ObstacleType[] types, float[] x, float[] y, float[] height, boolean[] flipY, float endPosition, int courseIndex) {
+        if (x.length != types.length || y.length != types.length || height.length != types.length || flipY.length != types.length) {
+            throw new IllegalArgumentException("CourseChunk arrays must have equal lengths");
+        }
+        this.types = types;
+        this.x = x;
+        this.y = y;
+        this.height = height;
+        this.flipY = flipY;
+        this.endPosition = endPosition;
+        this.courseIndex = courseIndex;
+    }
+
+    /**
+     * Get amount of obstacles in the chunk
+     * @return Obstacle count
+     */
+    public int size() {
+        return types.length;
+    }
+
+    /**
+     * Get ObstacleType of an obstacle
+     * @param index Obstacle index
+     * @return ObstacleType
+     */
+    public ObstacleType getType(int index) {
+        return types[index];
+    }
+
+    /**
+     * Get left edge of an obstacle
+     * @param index Obstacle index
+     * @return x
+     */
+    public float getX(int index) {
+        return x[index];
+    }
+
+    /**
+     * Get bottom edge of an obstacle
+     * @param index Obstacle index
+     * @return y
+     */
+    public float getY(int index) {
+        return y[index];
+    }
+
+    /**
+     * Get height of an obstacle
+     * @param index Obstacle index
+     * @return height
+     */
+    public float getHeight(int index) {
+        return height[index];
+    }
+
+    /**
+     * Check whether an obstacle is flipped in y dimension
+     * @param index Obstacle index
+     * @return flipY
+     */
+    public boolean isFlippedY(int index) {
+        return flipY[index];
+    }
+
+    /**
+     * Get position in x dimension where the next chunk starts
+     * @return endPosition
+     */
+    public float getEndPosition() {
+        return endPosition;
+    }
+
+    /**
+     * Get CourseSource index of the first element after this chunk
+     * @return courseIndex
+     */
+    public int getCourseIndex() {
+        return courseIndex;
+    }
+}
@@ -0,0 +1,128 @@
+package games.emgflappy.project.world;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import games.emgflappy.project.objects.ObstacleType;
+
+import java.nio.ByteBuffer;
+
+/**
+ * CourseSource which replays a pre-generated course from a compact binary file
+ * File format (big-endian): magic, version, seed, element count and then one type byte per
+ * element followed by the height scale (float) for Normal elements
+ * When the file runs out the course continues from its seed, so a file created with
+ * CourseFile.write produces exactly the same course as SeededCourse with the same seed
+ */
+public class CourseFile implements CourseSource {
+
+    private static final int Magic = 0x454d4743; // "EMGC"
+    private static final byte Version = 1;
+    private static final int HeaderSize = 4 + 1 + 8 + 4;
+
+    private final long seed;
+    private final ObstacleType[] types;
+    private final float[] heightScales;
+    private int index;
+    private SeededCourse continuation; // Used after all elements from the file have been consumed
+
+    /**
+     * Constructor for CourseFile
+     * @param seed Seed which was used to generate the elements
+     * @param types ObstacleTypes of the elements
+     * @param heightScales Height scales of the elements
+     */
+    private CourseFile(long seed, ObstacleType[] types, float[] heightScales) {
+        this.seed = seed;
+        this.types = types;
+        this.heightScales = heightScales;
+        index = 0;
+    }
+
+    /**
+     * Pre-generate a course to a file
+     * @param file Where the course is written to
+     * @param seed Seed of the course
+     * @param elements How many course elements are written
+     */
+    public static void write(FileHandle file, long seed, int elements) {
+        SeededCourse course = new SeededCourse(seed);
+        ByteBuffer buffer = ByteBuffer.allocate(HeaderSize + elements * 5);
+        buffer.putInt(Magic).put(Version).putLong(seed).putInt(elements);
+        for (int i = 0; i < elements; i++) {
+            ObstacleType type = course.next();
+            buffer.put((byte) type.ordinal());
+            if (type == ObstacleType.Normal) buffer.putFloat(course.getHeightScale());
+        }
+        file.writeBytes(buffer.array(), 0, buffer.position(), false);
+    }
+
+    /**
+     * Read pre-generated course from a file
+     * @param file File created with CourseFile.write
+     * @return CourseFile
+     * @throws GdxRuntimeException if the file can't be read or its format is invalid
+     */
+    public static CourseFile read(FileHandle file) {
+        ByteBuffer buffer = ByteBuffer.wrap(file.readBytes());
+        if (buffer.remaining() < HeaderSize || buffer.getInt() != Magic || buffer.get() != Version) {
+            throw new GdxRuntimeException("Invalid course file: " + file.path());
+        }
+        long seed = buffer.getLong();
+        int elements = buffer.getInt();
+        if (elements < 0 || elements > buffer.remaining()) {
+            throw new GdxRuntimeException("Invalid course file: " + file.path());
+        }
+        ObstacleType[] types = new ObstacleType[elements];
+        float[] heightScales = new float[elements];
+        ObstacleType[] values = ObstacleType.values();
+        try {
+            for (int i = 0; i < elements; i++) {
+                types[i] = values[buffer.get()];
+                if (types[i] == ObstacleType.Normal) heightScales[i] = buffer.getFloat();
+            }
+        } catch (RuntimeException e) {
+            throw new GdxRuntimeException("Invalid course file: " + file.path(), e);
+        }
+        return new CourseFile(seed, types, heightScales);
+    }
+
+    /**
+     * Advance to the next course element
+     * @return ObstacleType of the element
+     */
+    @Override
+    public ObstacleType next() {
+        index++;
+        if (index <= types.length) return types[index - 1];
+        if (continuation == null) continuation = SeededCourse.fromIndex(seed, types.length);
+        return continuation.next();
+    }
+
+    /**
+     * Get height scale of the current element
+     * @return heightScale
+     */
+    @Override
+    public float getHeightScale() {
+        if (index <= types.length) return index > 0 ? heightScales[index - 1] : 0.f;
+        return continuation.getHeightScale();
+    }
+
+    /**
+     * Get seed of the course
+     * @return seed
+     */
+    @Override
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Get how many elements have been consumed
+     * @return index
+     */
+    @Override
+    public int getIndex() {
+        return index;
+    }
+}
@@ -0,0 +1,51 @@
+package games.emgflappy.project.world;
+
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Generates obstacle layouts (CourseChunks) for FlappySimulation, the simulation only creates
+ * Box2D bodies from them
+ * ThreadedCourseGenerator generates on a worker thread, InlineCourseGenerator generates
+ * synchronously for platforms without threads (html), GamePlatform.createCourseGenerator
+ * selects the implementation
+ * Note: all methods are called from the simulation thread, requests are processed in the order
+ * they are made
+ */
+public interface CourseGenerator extends Disposable {
+
+    /**
+     * Request a new CourseChunk
+     * @param course CourseSource to be used from now on, null to continue the current course (the
+     *               first request must give a course)
+     * @param startPosition Position where the chunk starts, NaN to continue from the previous chunk
+     * @param worldWidth How many world units the obstacles should cover
+     * @param ViewPortSizeX EMGflappy ViewPortSizeX
+     * @param ViewPortSizeY EMGflappy ViewPortSizeY
+     */
+    void request(CourseSource course, float startPosition, float worldWidth, float ViewPortSizeX, float ViewPortSizeY);
+
+    /**
+     * Get the next generated CourseChunk without blocking
+     * @return CourseChunk or null if none is ready
+     */
+    CourseChunk poll();
+
+    /**
+     * Get the next generated CourseChunk, waits for the generator if the chunk has been requested
+     * but is not ready yet
+     * @return CourseChunk or null if there are no outstanding requests
+     */
+    CourseChunk take();
+
+    /**
+     * Discard all requests made so far without waiting for them: chunks which are being generated
+     * or haven't been returned yet are never returned (e.g. when a new game starts)
+     */
+    void cancel();
+
+    /**
+     * Whether some requested CourseChunks haven't been returned by poll or take yet
+     * @return true if take would wait for the generator
+     */
+    boolean hasOutstandingRequests();
+}
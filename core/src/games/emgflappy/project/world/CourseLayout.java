@@ -0,0 +1,70 @@
+package games.emgflappy.project.world;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.BooleanArray;
+import com.badlogic.gdx.utils.FloatArray;
+import games.emgflappy.project.objects.ObstacleType;
+
+/**
+ * Lays out obstacles (positions, heights and types) from course elements, shared by the
+ * CourseGenerator implementations
+ * Layout state is the current CourseSource and the position where the next element is placed, it
+ * is owned by the thread which generates the chunks
+ */
+final class CourseLayout {
+
+    private static float SpaceBetweenObjects = 0.3f; // How much space there is between objects in relation to ViewPortSizeX
+    private static float VerticalGapBetweenObstacles = 0.25f; // How much space there is between Normal Obstacles in y dimension, ([0.15, 0.30] is a good range but this depends on FlappySize, and to disable upper Obstacles set value > 1.0)
+
+    private CourseSource course;
+    private float position;
+
+    /**
+     * Generate obstacle descriptors from course elements starting from position, position is moved
+     * to the end of the chunk
+     * @param course CourseSource to be used from now on, null to continue the current course
+     * @param startPosition Position where the chunk starts, NaN to continue from the previous chunk
+     * @param worldWidth How many world units the obstacles should cover
+     * @param ViewPortSizeX EMGflappy ViewPortSizeX
+     * @param ViewPortSizeY EMGflappy ViewPortSizeY
+     * @return Generated CourseChunk
+     */
+    CourseChunk generate(CourseSource course, float startPosition, float worldWidth, float ViewPortSizeX, float ViewPortSizeY) {
+        if (course != null) this.course = course;
+        if (!Float.isNaN(startPosition)) position = startPosition;
+        Array<ObstacleType> types = new Array<>(ObstacleType.class);
+        FloatArray xs = new FloatArray();
+        FloatArray ys = new FloatArray();
+        FloatArray heights = new FloatArray();
+        BooleanArray flips = new BooleanArray();
+        float endPosition = position + worldWidth;
+        do {
+            ObstacleType type = this.course.next();
+            if (type == ObstacleType.Tunnel) {
+                // Create one Tunnel obstacle
+                float height = ViewPortSizeY * ObstacleType.TunnelObstacleHeight;
+                types.add(type);
+                xs.add(position);
+                ys.add(ViewPortSizeY - height);
+                heights.add(height);
+                flips.add(false);
+            } else {
+                // Create two Normal obstacles with identical x dimensional positions
+                float height = this.course.getHeightScale() * ViewPortSizeY;
+                float y2 = height + ViewPortSizeY * CourseLayout.VerticalGapBetweenObstacles;
+                types.add(type);
+                xs.add(position);
+                ys.add(y2);
+                heights.add(ViewPortSizeY - y2);
+                flips.add(true);
+                types.add(type);
+                xs.add(position);
+                ys.add(0.f);
+                heights.add(height);
+                flips.add(false);
+            }
+            position += ViewPortSizeX * ObstacleType.getObstacleWidthScale(type) + CourseLayout.SpaceBetweenObjects * ViewPortSizeX;
+        } while (position < endPosition);
+        return new CourseChunk(types.toArray(), xs.toArray(), ys.toArray(), heights.toArray(), flips.toArray(), position, this.course.getIndex());
+    }
+}
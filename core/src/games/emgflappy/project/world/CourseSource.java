@@ -0,0 +1,38 @@
+package games.emgflappy.project.world;
+
+import games.emgflappy.project.objects.ObstacleType;
+
+/**
+ * Source of course elements: the sequence of obstacle types and heights which CourseGenerator
+ * lays out in the world
+ * A course element is either a pair of Normal obstacles (with a height scale for the lower
+ * obstacle) or a single Tunnel obstacle
+ * Note: CourseSources are used only by the CourseGenerator (its worker thread in ThreadedCourseGenerator)
+ * after they are handed to it
+ */
+public interface CourseSource {
+
+    /**
+     * Advance to the next course element
+     * @return ObstacleType of the element
+     */
+    ObstacleType next();
+
+    /**
+     * Get height scale of the current element
+     * @return Lower obstacle height in relation to ViewPortSizeY, only used for Normal elements
+     */
+    float getHeightScale();
+
+    /**
+     * Get seed which produces this course
+     * @return seed
+     */
+    long getSeed();
+
+    /**
+     * Get how many elements have been consumed
+     * @return Index of the next element
+     */
+    int getIndex();
+}
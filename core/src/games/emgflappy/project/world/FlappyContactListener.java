@@ -16,6 +16,8 @@ import games.emgflappy.project.utils.Pair;
  */
 public class FlappyContactListener implements ContactListener {
 
+    private Pair<Flappy, FlappyObstacle> contactedObjects = new Pair<>(null, null); // Reused between contacts to avoid allocations
+
     /**
      * Listener for contact start events
      * @param contact Between two FlappyObjects (Flappy and some FlappyObstacle)
@@ -50,6 +52,7 @@ public class FlappyContactListener implements ContactListener {
      * Get FlappyObjects from Contact
      * @param contact Contact information which contains two collided objects
      * @return Pair of Flappy and FlappyObstacle or nulls if the contact was between a BoundaryObject
+     * (the same Pair instance is returned for every contact)
      */
     private Pair<Flappy, FlappyObstacle> getContactedObjects(Contact contact) {
         Flappy flappy = null;
@@ -74,7 +77,8 @@ public class FlappyContactListener implements ContactListener {
                 }
             }
         }
-        return new Pair<>(flappy, opponent);
+        contactedObjects.update(flappy, opponent);
+        return contactedObjects;
     }
 
 
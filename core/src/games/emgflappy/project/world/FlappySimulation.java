@@ -0,0 +1,667 @@
+package games.emgflappy.project.world;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.Box2D;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.Queue;
+import com.badlogic.gdx.utils.TimeUtils;
+import games.emgflappy.project.input.InputEventQueue;
+import games.emgflappy.project.objects.BoundaryObject;
+import games.emgflappy.project.objects.Flappy;
+import games.emgflappy.project.objects.FlappyLightning;
+import games.emgflappy.project.objects.FlappyObject;
+import games.emgflappy.project.objects.FlappyObstacle;
+import games.emgflappy.project.objects.FlappyObstaclePool;
+import games.emgflappy.project.objects.ObjectType;
+import games.emgflappy.project.objects.ObstacleType;
+import games.emgflappy.project.telemetry.TelemetryLog;
+import games.emgflappy.project.utils.LatencyMonitor;
+import games.emgflappy.project.utils.NativeTracker;
+import games.emgflappy.project.utils.Pair;
+
+/**
+ * Headless simulation of EMGflappy: owns Box2D physics, world generation and Flappy state
+ * Note: this class does not use textures, audio or other Gdx globals so it can be run without
+ * a GL context (e.g. batch simulations), rendering is done separately by FlappyWorldRenderer
+ */
+public class FlappySimulation implements Disposable {
+
+    // See for reference: https://box2d.org/documentation/md__d_1__git_hub_box2d_docs_hello.html
+    private static final float TIME_STEP = 1/60f; // Box2D time step
+    private static final long TIME_STEP_NANOS = (long) (TIME_STEP * 1000000000L); // Box2D time step in nanoseconds
+    private static final int VELOCITY_ITERATIONS = 6; // Box2D velocity iterations
+    private static final int POSITION_ITERATIONS = 2; // Box2D position iterations
+    private static final float BOUNDARY_WIDTH = 10000000.f; // Used to create map level boundaries, this needs to be very large value but larger values seem to break something in Box2D collision detection
+
+    private static float GravityY = -10f; // Gravity in y dimension (- downwards, + upwards)
+    private static float GravityX = 0.f; // Gravity in x dimension (- left, + right)
+    private static int MaxObstaclesPerFrame = 4; // How many obstacle bodies are created per frame at most (unless Flappy is about to reach them)
+    private static long MaterializeBudgetNanos = 500000L; // How much time (ns) creating obstacle bodies may take per frame
+    private static float MaterializeAheadScale = 1.5f; // Obstacles closer than MaterializeAheadScale * ViewPortSizeX from Flappy are always created immediately
+    private static float FlappyStartX = 0.f; // Flappy's initial position in x dimension
+    private static float FlappyStartY = 46.f; // Flappy's initial position in y dimension
+
+    private World world;
+    private Vector2 gravity; // Cached gravity vector, updated in place each step
+    private float accumulatedTime;
+    private float gravityScale;
+    private float ViewPortSizeX;
+    private float ViewPortSizeY;
+
+    private Array<FlappyObject> dynamicObjects; // FlappyObjects with non-static bodies, only these are synced after physics steps
+    private Flappy flappy; // Movable character
+    private ObstacleIndex obstacles; // Rest of the FlappyObjects, ordered by x position
+    private Array<FlappyObstacle> nearbyObstacles; // Reused for obstacle range queries
+    private Array<BoundaryObject> worldBoundaries; // Invisible world boundaries
+    private FlappyObstaclePool obstaclePool; // Recycles FlappyObstacles (and their bodies) that are not visible anymore
+    private CourseGenerator generator; // Generates obstacle layouts (on a worker thread where the platform has threads)
+    private float startPosition; // End of the last received CourseChunk
+    private float requestStartPosition; // Start of the next requested CourseChunk, NaN to continue from the previous one
+    private CourseSource requestCourse; // CourseSource for the next requested CourseChunk, null to continue the current one
+    private long courseSeed; // Seed of the current course
+    private int courseIndex; // CourseSource index after the last received CourseChunk
+    private FloatArray requestedWidths; // World widths of the CourseChunks requested but not received yet, in request order
+    private Queue<CourseChunk> pendingChunks; // Received obstacle descriptors which don't have bodies yet
+    private int pendingIndex; // Index of the next obstacle to be created in pendingChunks.first()
+    private float trimDistance; // How far behind Flappy obstacles are kept before they are returned to obstaclePool
+    private InputEventQueue inputEvents; // Press and release events waiting for the physics step they belong to
+    private SimulationListener listener;
+    private LatencyMonitor latencyMonitor; // null when input latency isn't measured
+    private TelemetryLog telemetry; // null when the session isn't recorded
+    private boolean loggedColliding; // Collision state in the latest telemetry record
+
+
+    /**
+     * Constructor for FlappySimulation with a random course
+     * @param ViewPortSizeX EMGflappy ViewPortSizeX
+     * @param ViewPortSizeY EMGflappy ViewPortSizeY, fixed dimension of the game world
+     * @param startPosition Position in x dimension where the first FlappyObstacle is created
+     */
+    public FlappySimulation(float ViewPortSizeX, float ViewPortSizeY, float startPosition) {
+        this(ViewPortSizeX, ViewPortSizeY, startPosition, new SeededCourse(TimeUtils.millis()));
+    }
+
+    /**
+     * Constructor for FlappySimulation which generates the course synchronously (InlineCourseGenerator)
+     * Note: call either initFlappy or restoreFlappy before stepping the simulation
+     * @param ViewPortSizeX EMGflappy ViewPortSizeX
+     * @param ViewPortSizeY EMGflappy ViewPortSizeY, fixed dimension of the game world
+     * @param startPosition Position in x dimension where the first FlappyObstacle is created
+     * @param course CourseSource which defines the obstacle sequence
+     */
+    public FlappySimulation(float ViewPortSizeX, float ViewPortSizeY, float startPosition, CourseSource course) {
+        this(ViewPortSizeX, ViewPortSizeY, startPosition, course, new InlineCourseGenerator());
+    }
+
+    /**
+     * Constructor for FlappySimulation: create Box2D world with world boundaries
+     * Note: call either initFlappy or restoreFlappy before stepping the simulation
+     * @param ViewPortSizeX EMGflappy ViewPortSizeX
+     * @param ViewPortSizeY EMGflappy ViewPortSizeY, fixed dimension of the game world
+     * @param startPosition Position in x dimension where the first FlappyObstacle is created
+     * @param course CourseSource which defines the obstacle sequence
+     * @param generator CourseGenerator which generates obstacle layouts, disposed with the simulation
+     *                  (@see GamePlatform.createCourseGenerator)
+     */
+    public FlappySimulation(float ViewPortSizeX, float ViewPortSizeY, float startPosition, CourseSource course, CourseGenerator generator) {
+        this.ViewPortSizeX = ViewPortSizeX;
+        this.ViewPortSizeY = ViewPortSizeY;
+        this.startPosition = startPosition;
+        Box2D.init();
+        gravity = new Vector2(GravityX, GravityY);
+        world = NativeTracker.createWorld(gravity, true);
+        world.setContactListener(new FlappyContactListener());
+        accumulatedTime = 0.f;
+        gravityScale = 1.f;
+        this.generator = generator;
+        courseSeed = course.getSeed();
+        courseIndex = course.getIndex();
+        requestStartPosition = startPosition;
+        requestCourse = course;
+        obstacles = new ObstacleIndex();
+        nearbyObstacles = new Array<>();
+        dynamicObjects = new Array<>();
+        obstaclePool = new FlappyObstaclePool();
+        requestedWidths = new FloatArray();
+        pendingChunks = new Queue<>();
+        pendingIndex = 0;
+        trimDistance = Float.MAX_VALUE;
+        inputEvents = new InputEventQueue();
+        createWorldBoundaries(ViewPortSizeY);
+    }
+
+    /**
+     * Dispose allocated memory
+     */
+    @Override
+    public void dispose() {
+        generator.dispose();
+        obstaclePool.dispose(); // Every FlappyObstacle in obstacles is created by the pool
+        for (BoundaryObject boundaryObject : worldBoundaries) {
+            boundaryObject.dispose();
+        }
+        if (flappy != null) flappy.dispose();
+        NativeTracker.disposeWorld(world); // Destroys the remaining bodies and fixtures
+    }
+
+    /**
+     * Clear the simulation for a new game while keeping the Box2D World, world boundaries, Flappy
+     * and pooled obstacle bodies: obstacles are returned to the pool and chunks of the previous
+     * course are cancelled without waiting for the CourseGenerator
+     * Note: call initFlappy (or restoreFlappy) and extendWorld afterwards like after the constructor,
+     * they move the existing Flappy back in place
+     * @param startPosition Position in x dimension where the first FlappyObstacle is created
+     * @param course CourseSource of the new game
+     */
+    public void reset(float startPosition, CourseSource course) {
+        generator.cancel();
+        requestedWidths.clear();
+        pendingChunks.clear();
+        pendingIndex = 0;
+        while (obstacles.size() > 0) obstaclePool.free(obstacles.removeFirst());
+        inputEvents.clear();
+        accumulatedTime = 0.f;
+        trimDistance = Float.MAX_VALUE;
+        loggedColliding = false;
+        setStartPosition(startPosition);
+        setCourse(course);
+    }
+
+    /**
+     * Set listener which is notified about simulation events
+     * @param listener SimulationListener or null to remove the listener
+     */
+    public void setListener(SimulationListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Set monitor which is notified when input events are applied to Flappy
+     * @param latencyMonitor LatencyMonitor or null to stop measuring
+     */
+    public void setLatencyMonitor(LatencyMonitor latencyMonitor) {
+        this.latencyMonitor = latencyMonitor;
+    }
+
+    /**
+     * Set writer which records Flappy state after every physics step and collision changes,
+     * a SessionStart record is logged immediately
+     * @param telemetry TelemetryLog or null to stop recording
+     */
+    public void setTelemetry(TelemetryLog telemetry) {
+        this.telemetry = telemetry;
+        loggedColliding = false;
+        if (telemetry != null && flappy != null) {
+            telemetry.logSessionStart(TimeUtils.nanoTime(), flappy.getPositionX(), flappy.getPositionY(), startPosition, courseIndex);
+        }
+    }
+
+    /**
+     * Set scale applied to GravityY, @see DifficultySetting.getGravityScale
+     * @param gravityScale New gravity scale
+     */
+    public void setGravityScale(float gravityScale) {
+        this.gravityScale = gravityScale;
+    }
+
+    /**
+     * Create Flappy to its initial position (after reset the existing Flappy is moved there)
+     */
+    public void initFlappy() {
+        restoreFlappy(FlappyStartX, FlappyStartY, Flappy.getMaxFlappyHP());
+    }
+
+    /**
+     * Create Flappy with a previously stored state (after reset the existing Flappy is moved and
+     * its HP restored instead)
+     * @param x Flappy position in x dimension (left edge)
+     * @param y Flappy position in y dimension (bottom edge)
+     * @param HP Flappy's HP
+     */
+    public void restoreFlappy(float x, float y, int HP) {
+        if (flappy != null) {
+            flappy.respawn(x, y, HP); // After reset
+            return;
+        }
+        flappy = new Flappy(x, y, ViewPortSizeX, ViewPortSizeY);
+        flappy.setHP(HP);
+        addBody(flappy);
+    }
+
+    /**
+     * Continue the game from a WorldSnapshot: Flappy is restored and the course continues from
+     * the snapshot, the obstacles are queued as one pending CourseChunk instead of creating all
+     * bodies here: obstacles near Flappy get their bodies immediately and the rest are created a
+     * few per frame like generated obstacles
+     * The part of the course which was still being generated when the snapshot was captured is
+     * requested again from the course seed and index
+     * Note: call this instead of initFlappy before the first extendWorld
+     * @param snapshot Captured or loaded WorldSnapshot
+     */
+    public void restoreSnapshot(WorldSnapshot snapshot) {
+        setStartPosition(snapshot.getStartPosition());
+        restoreFlappy(snapshot.getFlappyX(), snapshot.getFlappyY(), snapshot.getFlappyHP());
+        setCourse(SeededCourse.fromIndex(snapshot.getCourseSeed(), snapshot.getCourseIndex()));
+        if (snapshot.size() > 0) {
+            pendingChunks.addLast(snapshot.toCourseChunk());
+            materializeObstacles(flappy.getPositionX() + MaterializeAheadScale * ViewPortSizeX);
+        }
+        if (snapshot.getPendingWidth() > 0.f) requestChunk(snapshot.getPendingWidth());
+    }
+
+    /**
+     * Queue activation event, the event takes effect at the first physics step which starts at
+     * its timestamp or after it
+     * @param time Event timestamp in nanoseconds (same clock as the frameNanos given to step)
+     * @param activation Activation in the range of [0, 1]: 1 for touch press, 0 for release
+     */
+    public void queueInput(long time, float activation) {
+        inputEvents.add(time, activation);
+    }
+
+    /**
+     * Queue activation and horizontal speed change (multi-channel EMG), applied like queueInput
+     * @param time Event timestamp in nanoseconds (TimeUtils.nanoTime clock)
+     * @param activation Activation in the range of [0, 1], 0 releases Flappy
+     * @param speed Horizontal speed multiplier, 1 is the normal speed
+     */
+    public void queueInput(long time, float activation, float speed) {
+        inputEvents.add(time, activation, speed);
+    }
+
+    /**
+     * Do a physics update step: runs as many fixed TIME_STEP Box2D steps as fit into the
+     * accumulated time, the remainder is left for the next call and exposed through getAlpha
+     * The accumulated time is the real time which ends at frameNanos, so each Box2D step has a start
+     * timestamp and queued input events are applied exactly at the step they belong to
+     * @param deltaTime Real time elapsed since last call of this method in seconds
+     * @param frameNanos Timestamp of the frame in nanoseconds (TimeUtils.nanoTime)
+     * @return Flappy position in x dimension interpolated with getAlpha (this is the center of the
+     * Flappy in x dimension)
+     */
+    public float step(float deltaTime, long frameNanos) {
+        receiveChunks();
+        materializeObstacles(flappy.getPositionX() + MaterializeAheadScale * ViewPortSizeX);
+        removeNotVisibleObjects(trimDistance);
+        world.setGravity(gravity.set(GravityX, gravityScale * GravityY));
+        float frameTime = Math.min(deltaTime, 0.25f); // Set max value to avoid possible spiral of death on slow devices
+        accumulatedTime += frameTime;
+        float steppedTime = 0.f;
+        int hits = flappy.getHits();
+        long stepStartTime = frameNanos - (long) (accumulatedTime * 1000000000L); // Real time which the next Box2D step starts from
+        while (accumulatedTime >= TIME_STEP) {
+            applyInputEvents(stepStartTime);
+            flappy.applyForce(); // Forces are cleared after each Box2D step, so they are applied once per TIME_STEP
+            storePreviousPositions();
+            world.step(TIME_STEP, VELOCITY_ITERATIONS, POSITION_ITERATIONS);
+            updateFlappyObjects();
+            flappy.update(TIME_STEP);
+            if (telemetry != null) logTelemetry(stepStartTime + TIME_STEP_NANOS);
+            accumulatedTime -= TIME_STEP;
+            steppedTime += TIME_STEP;
+            stepStartTime += TIME_STEP_NANOS;
+        }
+        updateLightnings(steppedTime);
+        if (listener != null && flappy.getHits() != hits) listener.onFlappyHit(flappy);
+        return flappy.getInterpolatedPositionX(getAlpha()) + flappy.getWidth() * 0.5f;
+    }
+
+    /**
+     * Get interpolation factor between the two latest physics steps: how large part of the next
+     * TIME_STEP has already been accumulated but not yet simulated
+     * @return alpha in the range of [0.f, 1.f)
+     */
+    public float getAlpha() {
+        return accumulatedTime / TIME_STEP;
+    }
+
+    /**
+     * Call this method after EMGflappy ViewPort has changed, updated all object sizes to match the
+     * new ViewPort
+     * @param ViewPortSizeX New EMGflappy ViewPortSizeX
+     * @param ViewPortSizeY New EMGflappy ViewPortSizeY
+     */
+    public void onViewPortChanged(float ViewPortSizeX, float ViewPortSizeY) {
+        this.ViewPortSizeX = ViewPortSizeX;
+        this.ViewPortSizeY = ViewPortSizeY;
+        for (int i = 0; i < obstacles.size(); i++) {
+            obstacles.get(i).onViewPortChanged(ViewPortSizeX, ViewPortSizeY);
+        }
+        obstacles.updateMaxWidth();
+        flappy.onViewPortChanged(ViewPortSizeX, ViewPortSizeY);
+    }
+
+    /**
+     * Extend world: request obstacle descriptors for the next part of the course from the
+     * CourseGenerator, their Box2D bodies are created gradually during the following steps
+     * (@see materializeAll)
+     * @param worldWidth How many world units the obstacles should cover, obstacles further than
+     *                   this behind Flappy are removed
+     */
+    public void extendWorld(float worldWidth) {
+        trimDistance = worldWidth;
+        requestChunk(worldWidth);
+    }
+
+    /**
+     * Create bodies for all requested obstacles at once (waits for the CourseGenerator if needed),
+     * call this when the world is created so that the course is complete before the first frame
+     */
+    public void materializeAll() {
+        CourseChunk chunk;
+        while ((chunk = generator.take()) != null) receiveChunk(chunk);
+        while (pendingChunks.size > 0) materializeNext();
+    }
+
+    /**
+     * Create bodies for the received obstacles near Flappy without waiting for the CourseGenerator,
+     * the rest are created within the per-frame budget by step (call this after a restart instead
+     * of materializeAll)
+     */
+    public void materializeAhead() {
+        receiveChunks();
+        materializeObstacles(flappy.getPositionX() + MaterializeAheadScale * ViewPortSizeX);
+    }
+
+    /**
+     * Copy the state needed to continue the game to a WorldSnapshot without creating any bodies
+     * or waiting for the CourseGenerator: obstacles which don't have bodies yet are copied from
+     * their received CourseChunks, chunks still being generated are captured as their world width
+     * (they continue from startPosition and the course index, so they can be generated again)
+     * @param snapshot WorldSnapshot which is overwritten
+     */
+    public void captureSnapshot(WorldSnapshot snapshot) {
+        receiveChunks();
+        float pendingWidth = 0.f;
+        for (int i = 0; i < requestedWidths.size; i++) pendingWidth += requestedWidths.get(i);
+        snapshot.begin(startPosition, courseSeed, courseIndex, flappy.getPositionX(), flappy.getPositionY(), flappy.getHP(), pendingWidth);
+        for (int i = 0; i < obstacles.size(); i++) {
+            FlappyObstacle obstacle = obstacles.get(i);
+            snapshot.addObstacle(obstacle.getObstacleType(), obstacle.getPositionX(), obstacle.getPositionY(), obstacle.getHeight(), obstacle.isFlippedY());
+        }
+        for (int c = 0; c < pendingChunks.size; c++) {
+            CourseChunk chunk = pendingChunks.get(c);
+            for (int i = c == 0 ? pendingIndex : 0; i < chunk.size(); i++) {
+                snapshot.addObstacle(chunk.getType(i), chunk.getX(i), chunk.getY(i), chunk.getHeight(i), chunk.isFlippedY(i));
+            }
+        }
+    }
+
+    /**
+     * Add Normal FlappyObstacle to the world
+     * @param x Position of left edge coordinate
+     * @param y Position of bottom edge coordinate
+     * @param height Height of the object (in world units)
+     * @param flipY Whether the obstacle is an upper obstacle (texture is flipped)
+     * @return Created FlappyObstacle
+     */
+    public FlappyObstacle addObstacle(float x, float y, float height, boolean flipY) {
+        FlappyObstacle obstacle = obstaclePool.obtainObstacle(x, y, height, ViewPortSizeX, flipY);
+        if (obstacle.getBody() == null) addBody(obstacle);
+        obstacles.add(obstacle);
+        return obstacle;
+    }
+
+    /**
+     * Add FlappyLightning (Tunnel obstacle) to the world
+     * @param x Position of left edge coordinate
+     * @param y Position of bottom edge coordinate
+     * @param height Height of the object (in world units)
+     * @return Created FlappyLightning
+     */
+    public FlappyLightning addLightning(float x, float y, float height) {
+        FlappyLightning lightning = obstaclePool.obtainLightning(x, y, height, ViewPortSizeX);
+        if (lightning.getBody() == null) addBody(lightning);
+        obstacles.add(lightning);
+        return lightning;
+    }
+
+    /**
+     * Get Flappy
+     * @return flappy (null before initFlappy or restoreFlappy has been called)
+     */
+    public Flappy getFlappy() {
+        return flappy;
+    }
+
+    /**
+     * Get all FlappyObjects except Flappy
+     * @return obstacles ordered by x position, do not modify
+     */
+    public ObstacleIndex getObstacles() {
+        return obstacles;
+    }
+
+    /**
+     * Get position in x dimension where the next FlappyObstacle is created
+     * Note: chunks still being generated are not included, call materializeAll first to get the
+     * final position
+     * @return startPosition
+     */
+    public float getStartPosition() {
+        return startPosition;
+    }
+
+    /**
+     * Set position in x dimension where the next FlappyObstacle is created
+     * @param startPosition New startPosition
+     */
+    public void setStartPosition(float startPosition) {
+        this.startPosition = startPosition;
+        requestStartPosition = startPosition;
+    }
+
+    /**
+     * Replace the CourseSource used for the following extendWorld calls (e.g. after loading a save)
+     * @param course New CourseSource
+     */
+    public void setCourse(CourseSource course) {
+        requestCourse = course;
+        courseSeed = course.getSeed();
+        courseIndex = course.getIndex();
+    }
+
+    /**
+     * Get seed of the current course
+     * @return courseSeed
+     */
+    public long getCourseSeed() {
+        return courseSeed;
+    }
+
+    /**
+     * Get CourseSource index of the next course element, the course can be continued from here
+     * with SeededCourse.fromIndex(getCourseSeed(), getCourseIndex())
+     * Note: like getStartPosition this doesn't include chunks still being generated
+     * @return courseIndex
+     */
+    public int getCourseIndex() {
+        return courseIndex;
+    }
+
+    /**
+     * Request CourseChunk from the CourseGenerator, it continues from the previous chunk unless
+     * setStartPosition or setCourse has been called since
+     * @param worldWidth How many world units the obstacles should cover
+     */
+    private void requestChunk(float worldWidth) {
+        generator.request(requestCourse, requestStartPosition, worldWidth, ViewPortSizeX, ViewPortSizeY);
+        requestedWidths.add(worldWidth);
+        requestStartPosition = Float.NaN;
+        requestCourse = null;
+    }
+
+    /**
+     * Move CourseChunks generated by the CourseGenerator to pendingChunks
+     */
+    private void receiveChunks() {
+        CourseChunk chunk;
+        while ((chunk = generator.poll()) != null) receiveChunk(chunk);
+    }
+
+    /**
+     * Add received CourseChunk to pendingChunks
+     * @param chunk CourseChunk from the CourseGenerator
+     */
+    private void receiveChunk(CourseChunk chunk) {
+        requestedWidths.removeIndex(0);
+        pendingChunks.addLast(chunk);
+        startPosition = chunk.getEndPosition();
+        courseIndex = chunk.getCourseIndex();
+    }
+
+    /**
+     * Create bodies for pending obstacles: at most MaxObstaclesPerFrame obstacles and
+     * MaterializeBudgetNanos per call, except obstacles before requiredX are always created
+     * @param requiredX Obstacles which start before this position are created regardless of the budget
+     */
+    private void materializeObstacles(float requiredX) {
+        long startTime = TimeUtils.nanoTime();
+        int created = 0;
+        while (pendingChunks.size > 0) {
+            boolean required = pendingChunks.first().getX(pendingIndex) < requiredX;
+            if (!required && (created >= MaxObstaclesPerFrame || TimeUtils.nanoTime() - startTime >= MaterializeBudgetNanos)) break;
+            materializeNext();
+            created++;
+        }
+    }
+
+    /**
+     * Create body for the next pending obstacle
+     */
+    private void materializeNext() {
+        CourseChunk chunk = pendingChunks.first();
+        int i = pendingIndex;
+        if (chunk.getType(i) == ObstacleType.Tunnel) addLightning(chunk.getX(i), chunk.getY(i), chunk.getHeight(i));
+        else addObstacle(chunk.getX(i), chunk.getY(i), chunk.getHeight(i), chunk.isFlippedY(i));
+        pendingIndex++;
+        if (pendingIndex >= chunk.size()) {
+            pendingChunks.removeFirst();
+            pendingIndex = 0;
+        }
+    }
+
+    /**
+     * Add Body for FlappyObject
+     * @param flappyObject FlappyObject for which the physical representation is created for
+     */
+    private void addBody(FlappyObject flappyObject) {
+        BodyDef bodyDef = flappyObject.getBodyDef();
+        Body body = NativeTracker.createBody(world, bodyDef);
+        body.setUserData(new Pair<ObjectType, Object>(ObjectType.FlappyObject, flappyObject));
+        NativeTracker.createFixture(body, flappyObject.getFixtureDef());
+        flappyObject.setBody(body);
+        if (bodyDef.type != BodyDef.BodyType.StaticBody) dynamicObjects.add(flappyObject);
+    }
+
+    /**
+     * Create world boundaries
+     * @param ViewPortSize ViewPortSize, EMGflappy ViewPortSizeY
+     */
+    private void createWorldBoundaries(float ViewPortSize) {
+        worldBoundaries = new Array<>();
+        BoundaryObject lowerBoundary = new BoundaryObject(-BOUNDARY_WIDTH / 2.f, -0.1f, BOUNDARY_WIDTH, 0.1f);
+        BoundaryObject upperBoundary = new BoundaryObject(-BOUNDARY_WIDTH / 2.f, ViewPortSize, BOUNDARY_WIDTH, 0.1f);
+        Body body1 = NativeTracker.createBody(world, lowerBoundary.getBodyDef());
+        Body body2 = NativeTracker.createBody(world, upperBoundary.getBodyDef());
+        body1.setUserData(new Pair<ObjectType, Object>(ObjectType.BoundaryObject, lowerBoundary));
+        body2.setUserData(new Pair<ObjectType, Object>(ObjectType.BoundaryObject, upperBoundary));
+        NativeTracker.createFixture(body1, lowerBoundary.getShape(), 0.f);
+        NativeTracker.createFixture(body2, upperBoundary.getShape(), 0.f);
+        worldBoundaries.add(lowerBoundary);
+        worldBoundaries.add(upperBoundary);
+    }
+
+    /**
+     * Apply queued input events which happened before a Box2D step starts
+     * @param stepStartTime Start timestamp of the Box2D step in nanoseconds
+     */
+    private void applyInputEvents(long stepStartTime) {
+        while (!inputEvents.isEmpty() && inputEvents.peekTime() <= stepStartTime) {
+            long time = inputEvents.peekTime();
+            flappy.setSpeed(inputEvents.peekSpeed());
+            flappy.setActivation(inputEvents.poll());
+            if (latencyMonitor != null) latencyMonitor.onInputApplied(time, TimeUtils.nanoTime());
+        }
+    }
+
+    /**
+     * Record Flappy state after a physics step and collision changes
+     * @param time End of the physics step in nanoseconds
+     */
+    private void logTelemetry(long time) {
+        float x = flappy.getPositionX();
+        float y = flappy.getPositionY();
+        int HP = flappy.getHP();
+        if (flappy.isColliding() != loggedColliding) {
+            loggedColliding = flappy.isColliding();
+            telemetry.logContact(time, loggedColliding, x, y, HP);
+        }
+        Vector2 velocity = flappy.getBody().getLinearVelocity(); // Box2D reuses the returned vector
+        telemetry.logFlappyState(time, x, y, velocity.x, velocity.y, flappy.getActivation(), HP);
+    }
+
+    /**
+     * Store positions of moving FlappyObjects before a physics step (used for interpolation)
+     */
+    private void storePreviousPositions() {
+        for (int i = 0; i < dynamicObjects.size; i++) {
+            dynamicObjects.get(i).storePreviousPosition();
+        }
+    }
+
+    /**
+     * Update FlappyObject positions after physics step
+     * Note: only dynamic and kinematic bodies are synced, static FlappyObstacles never move
+     */
+    private void updateFlappyObjects() {
+        for (int i = 0; i < dynamicObjects.size; i++) {
+            FlappyObject flappyObject = dynamicObjects.get(i);
+            flappyObject.setPositionPhysicsCoordinates(flappyObject.getBody().getPosition());
+        }
+    }
+
+    /**
+     * Update FlappyLightning visibility and strike cycles
+     * @param elapsedTime Simulated time elapsed since previous update in seconds
+     */
+    private void updateLightnings(float elapsedTime) {
+        float flappyStartX = flappy.getPositionX();
+        float flappyEndX = flappyStartX + flappy.getWidth();
+        // Lightnings are visible within ViewPortSizeX / 2 of Flappy, the query range is wider so that
+        // lightnings which Flappy has just passed are also hidden
+        obstacles.query(flappyStartX - ViewPortSizeX, flappyEndX + ViewPortSizeX, nearbyObstacles);
+        for (FlappyObstacle obstacle : nearbyObstacles) {
+            if (obstacle.getType() == ObjectType.FlappyLightning) {
+                FlappyLightning flappyLightning = (FlappyLightning) obstacle;
+                flappyLightning.setVisible(flappyStartX, flappyEndX, ViewPortSizeX);
+                if (flappyLightning.update(elapsedTime) && listener != null) listener.onLightningStrike(flappyLightning);
+            }
+        }
+    }
+
+    /**
+     * Remove FlappyObjects that are not visible anymore, removed FlappyObstacles are returned to
+     * obstaclePool (called each step, so only a few obstacles are removed at a time)
+     * @param worldWidth Width of the game world, this is used to detect which objects are not visible
+     */
+    private void removeNotVisibleObjects(float worldWidth) {
+        float flappyPosition = flappy.getPositionX();
+        while (obstacles.size() > 0 && obstacles.first().getPositionX() + worldWidth < flappyPosition) {
+            obstaclePool.free(obstacles.removeFirst());
+        }
+    }
+
+    /**
+     * Get obstacle pool used by the simulation
+     * @return obstaclePool
+     */
+    public FlappyObstaclePool getObstaclePool() {
+        return obstaclePool;
+    }
+}
@@ -3,59 +3,31 @@ package games.emgflappy.project.world;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.physics.box2d.Body;
-import com.badlogic.gdx.physics.box2d.BodyDef;
-import com.badlogic.gdx.physics.box2d.Box2D;
-import com.badlogic.gdx.physics.box2d.World;
-import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Disposable;
-import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonReader;
 import com.badlogic.gdx.utils.JsonValue;
-import com.badlogic.gdx.utils.Timer;
-import games.emgflappy.project.objects.BoundaryObject;
+import games.emgflappy.project.audio.AudioType;
+import games.emgflappy.project.audio.FlappyAudio;
 import games.emgflappy.project.objects.Flappy;
 import games.emgflappy.project.objects.FlappyLightning;
-import games.emgflappy.project.objects.FlappyObject;
-import games.emgflappy.project.objects.FlappyObstacle;
-import games.emgflappy.project.objects.ObjectType;
 import games.emgflappy.project.objects.ObstacleType;
 import games.emgflappy.project.utils.Options;
-import games.emgflappy.project.utils.Pair;
 
-import java.util.Random;
+import java.nio.ByteBuffer;
 
 /**
  * Class used to create and manage Box2D physics world for EMGFlappy
+ * Physics, world generation and Flappy state live in the headless FlappySimulation, this class
+ * attaches rendering, audio and game saves to it
  */
-public class FlappyWorld implements Disposable {
-
-    // See for reference: https://box2d.org/documentation/md__d_1__git_hub_box2d_docs_hello.html
-    private static final float TIME_STEP = 1/60f; // Box2D time step
-    private static final float FLAPPY_UPDATE_PERIOD = 1/60f; // How often forces are applied to Flappy
-    private static final int VELOCITY_ITERATIONS = 6; // Box2D velocity iterations
-    private static final int POSITION_ITERATIONS = 2; // Box2D position iterations
-    private static final float BOUNDARY_WIDTH = 10000000.f; // Used to create map level boundaries, this needs to be very large value but larger values seem to break something in Box2D collision detection
-    private static final String WorldSaveFile = "EMGflappy_world_save.json";
-    private static final float GraphSizeCorrection = Flappy.getFlappySize() / 2.f + 0.001f; // To account for Flappy's size when calculation FlappyPath upper and lower obstacle sizes are increased (set this value to 0.f to disable the size correction)
-
-    private static float GravityY = -10f; // Gravity in y dimension (- downwards, + upwards)
-    private static float GravityX = 0.f; // Gravity in x dimension (- left, + right)
-    private static float TunnelProbability = 0.15f; // How probable (0.0 - 1.0) it is that a Tunnel is created
-    private static float SpaceBetweenObjects = 0.3f; // How much space there is between objects in relation to ViewPortSizeX
-    private static float VerticalGapBetweenObstacles = 0.25f; // How much space there is between Normal Obstacles in y dimension, ([0.15, 0.30] is a good range but this depends on FlappySize, and to disable upper Obstacles set value > 1.0)
-    private static int MinObstaclesBeforeFirstLightning = 8; // How many Normal obstacles there are before the first lightning at minimum (Note: Normal obstacles are always created in pairs)
-    private World world;
-    private float accumulatedTime;
-
-    private Array<Body> bodies;
-    private Flappy flappy; // Movable character
-    private Array<FlappyObject> flappyObjects; // Rest of the FlappyObjects
-    private Array<BoundaryObject> worldBoundaries; // Invisible world boundaries
-    private Timer timer;
-    private Random rand;
-    private float startPosition;
+public class FlappyWorld implements Disposable, SimulationListener {
+
+    private static final String WorldSaveFile = "EMGflappy_world_save.bin";
+    private static final String WorldJsonFile = "EMGflappy_world_save_debug.json"; // Debug export, not loaded
+    private static final String LegacyWorldSaveFile = "EMGflappy_world_save.json"; // Json save of earlier versions, migrated to WorldSaveFile once
+
+    private FlappySimulation simulation;
+    private FlappyWorldRenderer renderer;
 
 
 
@@ -66,27 +38,43 @@ public class FlappyWorld implements Disposable {
      * @param startPosition Position in x dimension where the first FlappyObstacle is created
      * @param worldWidth Target width of the world
      * @param tryLoad Whether try to load previously stored FlappyWorld
+     * @param course CourseSource which defines the obstacle sequence (e.g. SeededCourse or
+     *               CourseFile), a loaded save continues its own course instead
+     * @param generator CourseGenerator which generates obstacle layouts (@see GamePlatform.createCourseGenerator)
      */
-    public FlappyWorld(float ViewPortSizeX, float ViewPortSizeY, float startPosition, float worldWidth, boolean tryLoad) {
-        this.startPosition = startPosition;
-        Box2D.init();
-        world = new World(new Vector2(GravityX, GravityY), true);
-        world.setContactListener(new FlappyContactListener());
-        accumulatedTime = 0.f;
-        rand = new Random(System.currentTimeMillis());
+    public FlappyWorld(float ViewPortSizeX, float ViewPortSizeY, float startPosition, float worldWidth, boolean tryLoad, CourseSource course, CourseGenerator generator) {
+        simulation = new FlappySimulation(ViewPortSizeX, ViewPortSizeY, startPosition, course, generator);
+        simulation.setListener(this);
         boolean init = true;
-        if (tryLoad) init = !load(ViewPortSizeX, ViewPortSizeY); // When loading fails, init normally
-        if (init) {
-            initWorld(ViewPortSizeX, ViewPortSizeY);
-            extendWorld(worldWidth, ViewPortSizeX, ViewPortSizeY);
-        }
-        timer = new Timer();
-        timer.scheduleTask(new Timer.Task() {
-            @Override
-            public void run() {
-                flappy.applyForce();
-            }
-        }, FLAPPY_UPDATE_PERIOD, FLAPPY_UPDATE_PERIOD);
+        if (tryLoad) init = !load(course); // When loading fails, init normally
+        if (init) init(worldWidth);
+        renderer = new FlappyWorldRenderer();
+    }
+
+    /**
+     * Start a new game in this FlappyWorld: the Box2D World, Flappy and pooled obstacles are
+     * reused, which is much faster than creating a new FlappyWorld
+     * Only obstacles near Flappy get their bodies here (as soon as the CourseGenerator has
+     * generated them), the rest are created within the per-frame budget
+     * @param startPosition Position in x dimension where the first FlappyObstacle is created
+     * @param worldWidth Target width of the world
+     * @param course CourseSource which defines the obstacle sequence
+     */
+    public void reset(float startPosition, float worldWidth, CourseSource course) {
+        simulation.reset(startPosition, course);
+        simulation.initFlappy();
+        simulation.extendWorld(worldWidth);
+        simulation.materializeAhead();
+    }
+
+    /**
+     * Create Flappy and the first part of the course
+     * @param worldWidth Target width of the world
+     */
+    private void init(float worldWidth) {
+        simulation.initFlappy();
+        simulation.extendWorld(worldWidth);
+        simulation.materializeAll();
     }
 
     /**
@@ -94,52 +82,79 @@ public class FlappyWorld implements Disposable {
      */
     @Override
     public void dispose() {
-        timer.clear();
-        timer.stop();
-        for (FlappyObject flappyObject : flappyObjects) {
-            flappyObject.dispose();
-        }
-        for (BoundaryObject boundaryObject : worldBoundaries) {
-            boundaryObject.dispose();
-        }
-        flappy.dispose();
+        simulation.dispose();
     }
 
     /**
      * Do a physics update step
      * @param deltaTime Real time elapsed since last call of this method in seconds
+     * @param frameTime Timestamp of the frame in nanoseconds (TimeUtils.nanoTime)
      * @return Flappy position in x dimension which can be used to set camera to follow Flappy
      * (this is the center of the Flappy in x dimension)
      */
-    public float physicsStep(float deltaTime) {
-        world.setGravity(new Vector2(GravityX, Options.getInstance().Difficulty.getGravityScale() * GravityY));
-        float frameTime = Math.min(deltaTime, 0.25f); // Set max value to avoid possible spiral of death on slow devices
-        accumulatedTime += frameTime;
-        while (accumulatedTime >= TIME_STEP) {
-            world.step(TIME_STEP, VELOCITY_ITERATIONS, POSITION_ITERATIONS);
-            accumulatedTime -= TIME_STEP;
-        }
-        updateFlappyObjects();
-        flappy.applyForce();
-        return flappy.getCenterPosition().x;
+    public float physicsStep(float deltaTime, long frameTime) {
+        simulation.setGravityScale(Options.getInstance().Difficulty.getGravityScale());
+        return simulation.step(deltaTime, frameTime);
     }
 
     /**
-     * Draw FlappyObjects
+     * Press or release Flappy: audio and animation react immediately, the force follows at the
+     * physics step matching the event timestamp
+     * @param pressed Whether the flappy is pressed/touched or not
+     * @param time Event timestamp in nanoseconds (TimeUtils.nanoTime clock)
+     */
+    public void setFlappyPressed(boolean pressed, long time) {
+        setFlappyActivation(pressed ? 1.f : 0.f, time);
+    }
+
+    /**
+     * Set proportional control activation (EMG): FlappyAccelerationY is scaled by the activation
+     * from the physics step matching the event timestamp
+     * @param activation Activation in the range of [0, 1]
+     * @param time Event timestamp in nanoseconds (TimeUtils.nanoTime clock)
+     */
+    public void setFlappyActivation(float activation, long time) {
+        Flappy.setFlappyPressed(activation > 0.f);
+        simulation.queueInput(time, activation);
+    }
+
+    /**
+     * Set proportional control activation and horizontal speed (multi-channel EMG), both follow
+     * from the physics step matching the event timestamp
+     * @param activation Activation in the range of [0, 1]
+     * @param speed Multiplier of Flappy's normal horizontal speed
+     * @param time Event timestamp in nanoseconds (TimeUtils.nanoTime clock)
+     */
+    public void setFlappyActivation(float activation, float speed, long time) {
+        Flappy.setFlappyPressed(activation > 0.f);
+        simulation.queueInput(time, activation, speed);
+    }
+
+    /**
+     * Draw FlappyObjects which are inside the visible region
      * @param batch SpriteBatch where the object should be drawn to
      * @param deltaTime Time elapsed since last render cycle in seconds
+     * @param cameraX Camera position in x dimension
      * @param ViewPortSizeX EMGflappy ViewPortSizeX
      */
-    public void draw(SpriteBatch batch, float deltaTime, float ViewPortSizeX) {
-        // Draw all objects
-        for (FlappyObject flappyObject : flappyObjects) {
-            if (flappyObject.getType() == ObjectType.FlappyLightning) {
-                FlappyLightning flappyLightning = (FlappyLightning) flappyObject;
-                flappyLightning.setVisible(flappy.getPositionX(), flappy.getEndPosition().x, ViewPortSizeX);
-            }
-            flappyObject.draw(batch, deltaTime);
-        }
-        flappy.draw(batch, deltaTime);
+    public void draw(SpriteBatch batch, float deltaTime, float cameraX, float ViewPortSizeX) {
+        renderer.draw(batch, simulation, deltaTime, cameraX, ViewPortSizeX);
+    }
+
+    /**
+     * Get how many sprites were drawn during the latest draw
+     * @return Drawn sprite count
+     */
+    public int getDrawnCount() {
+        return renderer.getDrawnCount();
+    }
+
+    /**
+     * Get how many objects were culled during the latest draw
+     * @return Culled object count
+     */
+    public int getCulledCount() {
+        return renderer.getCulledCount();
     }
 
     /**
@@ -149,48 +164,25 @@ public class FlappyWorld implements Disposable {
      * @param ViewPortSizeY New EMGflappy ViewPortSizeY
      */
     public void onViewPortChanged(float ViewPortSizeX, float ViewPortSizeY) {
-        for (FlappyObject flappyObject : flappyObjects) {
-            flappyObject.onViewPortChanged(ViewPortSizeX, ViewPortSizeY);
-        }
-        flappy.onViewPortChanged(ViewPortSizeX, ViewPortSizeY);
+        simulation.onViewPortChanged(ViewPortSizeX, ViewPortSizeY);
     }
 
     /**
-     * Extend world (create FlappyObstacles)
+     * Extend world (FlappyObstacles are created gradually during the following physics steps)
      * @param worldWidth How many world units the obstacles should cover
      * @param ViewPortSizeX EMGflappy.ViewPortSizeX
      * @param ViewPortSizeY EMGflappy.ViewPortSizeY
      */
     public void extendWorld(float worldWidth, float ViewPortSizeX, float ViewPortSizeY) {
-        removeNotVisibleObjects(worldWidth);
-        float endPosition = startPosition + worldWidth;
-        do {
-            float random = rand.nextFloat();
-            ObstacleType type = ObstacleType.Normal;
-            FlappyObject flappyObject;
-            if (random < FlappyWorld.TunnelProbability && flappyObjects.size > FlappyWorld.MinObstaclesBeforeFirstLightning) {
-                // Create one Tunnel obstacle
-                float height = ViewPortSizeY * ObstacleType.TunnelObstacleHeight;
-                float y = ViewPortSizeY - height;
-                flappyObject = new FlappyLightning(startPosition, y, height, ViewPortSizeX);
-            } else {
-                // Create two Normal obstacles with identical x dimensional positions
-                float rangeMin = 0.3f;
-                float rangeMax = 0.7f;
-                float heightScale = rangeMin + rand.nextFloat() * (rangeMax - rangeMin);
-                float height = heightScale * ViewPortSizeY;
-                float y2 = height + ViewPortSizeY * FlappyWorld.VerticalGapBetweenObstacles;
-                float height2 = ViewPortSizeY - y2;
-                flappyObject = new FlappyObstacle(type, startPosition, 0.f, height, ViewPortSizeX, false);
-                FlappyObject flappyObjectUpper = new FlappyObstacle(type, startPosition, y2, height2, ViewPortSizeX, true);
-                addBody(flappyObjectUpper);
-                flappyObjects.add(flappyObjectUpper);
-            }
-            addBody(flappyObject);
-            flappyObjects.add(flappyObject);
-            startPosition = flappyObject.getEndPosition().x + FlappyWorld.SpaceBetweenObjects * ViewPortSizeX;
-        } while (startPosition < endPosition);
-        world.getBodies(bodies);
+        simulation.extendWorld(worldWidth);
+    }
+
+    /**
+     * Get the headless simulation of this FlappyWorld
+     * @return simulation
+     */
+    public FlappySimulation getSimulation() {
+        return simulation;
     }
 
     /**
@@ -198,7 +190,7 @@ public class FlappyWorld implements Disposable {
      * @return flappy's HP
      */
     public int getFlappyHP() {
-        return flappy.getHP();
+        return simulation.getFlappy().getHP();
     }
 
     /**
@@ -206,7 +198,7 @@ public class FlappyWorld implements Disposable {
      * @return flappy's x coordinate
      */
     public float getFlappyPositionX() {
-        return flappy.getPositionX();
+        return simulation.getFlappy().getPositionX();
     }
 
     /**
@@ -214,164 +206,119 @@ public class FlappyWorld implements Disposable {
      * @return Flappy's hits
      */
     public int getFlappyHits() {
-        return flappy.getHits();
+        return simulation.getFlappy().getHits();
     }
 
     /**
-     * Save FlappyWorld to a json file
-     * (this will save all FlappyObstacle positions, Flappy position and startPosition)
+     * Start feather animation after Flappy has been hit
+     * @param flappy Flappy which was hit
      */
-    public void save() {
-        try {
-            FileHandle file = Gdx.files.local(FlappyWorld.WorldSaveFile);
-            Json json = new Json();
-            String flappyStr = json.toJson(flappy);
-            String objects = json.toJson(flappyObjects);
-            String worldSave = "{startPosition:" + startPosition + ",Flappy:" + flappyStr + ",objects:" + objects + "}";
-            file.writeString(worldSave, false);
-        } catch (Exception e) {
-            Gdx.app.log(FlappyWorld.class.getSimpleName(), e.getMessage());
-        }
+    @Override
+    public void onFlappyHit(Flappy flappy) {
+        renderer.startFeatherAnimation();
     }
 
     /**
-     * Load FlappyWorld from a json file
-     * CAUTION: if the extendWorld implementation is changed this will broke
-     * @param ViewPortSizeX EMGflappy ViewPortSizeX
-     * @param ViewPortSizeY EMGflappy ViewPortSizeY
-     * @return true if loading succeeded, otherwise false
+     * Play thunder after a lightning strike has started
+     * @param lightning FlappyLightning which started striking
      */
-    private boolean load(float ViewPortSizeX, float ViewPortSizeY) {
-        float startPosition_cpy = startPosition;
-        try {
-            FileHandle file = Gdx.files.local(FlappyWorld.WorldSaveFile);
-            String save = file.readString();
-            JsonValue jsonValue = new JsonReader().parse(save);
-            startPosition = jsonValue.getFloat("startPosition");
-
-            JsonValue flappyJSON = jsonValue.child.next;
-            float flappyX = flappyJSON.getFloat("x");
-            float flappyY = flappyJSON.getFloat("y");
-            int HP = flappyJSON.getInt("HP");
-            flappy = new Flappy(flappyX, flappyY, ViewPortSizeX, ViewPortSizeY);
-            flappy.setHP(HP);
-            addBody(flappy);
-
-            flappyObjects = new Array<>();
-            JsonValue objectsJSON = flappyJSON.next;
-            JsonValue object = objectsJSON.child;
-            while (object != null) {
-                String type = object.getString("type");
-                float x = object.getFloat("x");
-                float y = object.getFloat("y");
-                float height = object.getFloat("height");
-                FlappyObject flappyObject;
-                if (type.equals("FlappyObstacle")) {
-                    flappyObject = new FlappyObstacle(ObstacleType.Normal, x, y, height, ViewPortSizeX, y != 0.f);
-                    if (y == 0.f) {
-                        // Add path only for the lower obstacles
-                        float heightScale = height / ViewPortSizeY;
-                    }
-                } else {
-                    flappyObject = new FlappyLightning(x, y, height, ViewPortSizeX);
-                }
-                addBody(flappyObject);
-                flappyObjects.add(flappyObject);
-                object = object.next;
-            }
-            createWorldBoundaries(ViewPortSizeY);
-            bodies = new Array<>();
-            world.getBodies(bodies);
-            return true;
-        } catch (Exception e) {
-            Gdx.app.log(FlappyWorld.class.getSimpleName(), e.getMessage());
-            startPosition = startPosition_cpy;
-            return false;
-        }
+    @Override
+    public void onLightningStrike(FlappyLightning lightning) {
+        FlappyAudio.playSound(AudioType.ThunderAudio);
     }
 
     /**
-     * Initialize FlappyWorld by creating initial objects
-     * @param ViewPortSizeX Initial EMGflappy ViewPortSizeX
-     * @param ViewPortSizeY Initial EMGflappy ViewPortSizeY, this is the fixed dimension
+     * Save FlappyWorld to a binary file
+     * (this will save all FlappyObstacle positions, Flappy position, startPosition and the course
+     * seed and index so the same course continues after loading)
+     * Only a WorldSnapshot is captured here, the SaveWriter encodes and writes it (on its own
+     * thread where the platform has threads)
+     * @param writer SaveWriter created with getSavePath
      */
-    private void initWorld(float ViewPortSizeX, float ViewPortSizeY) {
-        flappy = new Flappy(0.f, 46.f, ViewPortSizeX, ViewPortSizeY);
-        addBody(flappy);
-        // Create other object here
-        flappyObjects = new Array<>();
-
-        // Create invisible world boundaries
-        createWorldBoundaries(ViewPortSizeY);
+    public void save(SaveWriter writer) {
+        writer.saveWorld(simulation, false);
+    }
 
-        bodies = new Array<>();
-        world.getBodies(bodies);
+    /**
+     * Save FlappyWorld periodically, the SaveWriter may delay the write and replace it with a
+     * newer autosave so that frequent autosaves don't write the file each time
+     * @param writer SaveWriter created with getSavePath
+     */
+    public void autosave(SaveWriter writer) {
+        writer.saveWorld(simulation, true);
     }
 
     /**
-     * Add Body for FlappyObject
-     * @param flappyObject FlappyObject for which the physical representation is created for
+     * Get path where FlappyWorld is saved and loaded from
+     * @return World save path in local storage
      */
-    private void addBody(FlappyObject flappyObject) {
-        BodyDef bodyDef = flappyObject.getBodyDef();
-        Body body = world.createBody(bodyDef);
-        body.setUserData(new Pair<ObjectType, Object>(ObjectType.FlappyObject, flappyObject));
-        body.createFixture(flappyObject.getFixtureDef());
-        flappyObject.setBody(body);
+    public static String getSavePath() {
+        return FlappyWorld.WorldSaveFile;
     }
 
     /**
-     * Create world boundaries
-     * @param ViewPortSize ViewPortSize, EMGflappy ViewPortSizeY
+     * Get path where saves can be exported as json for debugging
+     * @return Json export path in local storage
      */
-    private void createWorldBoundaries(float ViewPortSize) {
-        worldBoundaries = new Array<>();
-        BoundaryObject lowerBoundary = new BoundaryObject(-BOUNDARY_WIDTH / 2.f, -0.1f, BOUNDARY_WIDTH, 0.1f);
-        BoundaryObject upperBoundary = new BoundaryObject(-BOUNDARY_WIDTH / 2.f, ViewPortSize, BOUNDARY_WIDTH, 0.1f);
-        Body body1 = world.createBody(lowerBoundary.getBodyDef());
-        Body body2 = world.createBody(upperBoundary.getBodyDef());
-        body1.setUserData(new Pair<ObjectType, Object>(ObjectType.BoundaryObject, lowerBoundary));
-        body2.setUserData(new Pair<ObjectType, Object>(ObjectType.BoundaryObject, upperBoundary));
-        body1.createFixture(lowerBoundary.getShape(), 0.f);
-        body2.createFixture(upperBoundary.getShape(), 0.f);
-        worldBoundaries.add(lowerBoundary);
-        worldBoundaries.add(upperBoundary);
+    public static String getJsonExportPath() {
+        return FlappyWorld.WorldJsonFile;
     }
 
     /**
-     * Update FlappyObject positions after physics step
+     * Load FlappyWorld from a binary file
+     * The whole file is decoded before the simulation is touched, so a damaged save doesn't leave
+     * a partially restored world behind
+     * When there is no binary save but a json save of an earlier version, the json save is
+     * converted to the binary format (written here once) and removed
+     * @param course CourseSource which is continued by json saves made before seeded courses
+     * @return true if loading succeeded, otherwise false
      */
-    private void updateFlappyObjects() {
-        for (Body body : bodies) {
-            Object userData = body.getUserData();
-            if (userData.getClass() == Pair.class) {
-                Pair<ObjectType, Object> pair = (Pair<ObjectType, Object>) userData;
-                if (pair.getFirst() == ObjectType.FlappyObject) {
-                    FlappyObject flappyObject = (FlappyObject) pair.getSecond();
-                    Vector2 pos = body.getPosition();
-                    flappyObject.setPositionPhysicsCoordinates(pos);
-                }
+    private boolean load(CourseSource course) {
+        try {
+            FileHandle file = Gdx.files.local(FlappyWorld.WorldSaveFile);
+            FileHandle legacyFile = Gdx.files.local(FlappyWorld.LegacyWorldSaveFile);
+            WorldSnapshot snapshot = new WorldSnapshot();
+            if (!file.exists() && legacyFile.exists()) {
+                FlappyWorld.readLegacySave(legacyFile.readString(), course, snapshot);
+                ByteBuffer encoded = ByteBuffer.allocate(snapshot.getEncodedSize());
+                snapshot.write(encoded);
+                file.writeBytes(encoded.array(), false);
+                legacyFile.delete();
+            } else {
+                snapshot.read(ByteBuffer.wrap(file.readBytes()));
             }
-
+            simulation.restoreSnapshot(snapshot);
+            return true;
+        } catch (Exception e) {
+            Gdx.app.log(FlappyWorld.class.getSimpleName(), e.getMessage());
+            return false;
         }
     }
 
     /**
-     * Remove FlappyObjects that are not visible anymore
-     * @param worldWidth Width of the game world, this is used to detect which objects are not visible
+     * Decode json save of an earlier version: startPosition, Flappy, objects and since seeded
+     * courses courseSeed and courseIndex
+     * @param save Json save
+     * @param course CourseSource which is continued when the save has no course seed
+     * @param snapshot WorldSnapshot where the save is decoded to
      */
-    private void removeNotVisibleObjects(float worldWidth) {
-        float flappyPosition = flappy.getPositionX();
-        int i = 0;
-        int removeEndIdx = 0;
-        for (FlappyObject flappyObject : flappyObjects) {
-            i++;
-            if (flappyObject.getPositionX() + worldWidth < flappyPosition) {
-                if (flappyObject.getBody() != null) world.destroyBody(flappyObject.getBody());
-                removeEndIdx = i;
-                flappyObject.dispose();
+    private static void readLegacySave(String save, CourseSource course, WorldSnapshot snapshot) {
+        JsonValue jsonValue = new JsonReader().parse(save);
+        JsonValue flappyJSON = jsonValue.get("Flappy");
+        boolean seeded = jsonValue.has("courseSeed");
+        snapshot.begin(jsonValue.getFloat("startPosition"),
+                seeded ? jsonValue.getLong("courseSeed") : course.getSeed(),
+                seeded ? jsonValue.getInt("courseIndex", 0) : course.getIndex(),
+                flappyJSON.getFloat("x"), flappyJSON.getFloat("y"), flappyJSON.getInt("HP"), 0.f);
+        for (JsonValue object = jsonValue.get("objects").child; object != null; object = object.next) {
+            float x = object.getFloat("x");
+            float y = object.getFloat("y");
+            float height = object.getFloat("height");
+            if (object.getString("type").equals("FlappyObstacle")) {
+                snapshot.addObstacle(ObstacleType.Normal, x, y, height, y != 0.f);
+            } else {
+                snapshot.addObstacle(ObstacleType.Tunnel, x, y, height, false);
             }
         }
-        if (removeEndIdx > 0) flappyObjects.removeRange(0, removeEndIdx);
     }
 }
@@ -0,0 +1,161 @@
+package games.emgflappy.project.world;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Array;
+import games.emgflappy.project.EMGflappy;
+import games.emgflappy.project.FlappyTextures;
+import games.emgflappy.project.objects.Flappy;
+import games.emgflappy.project.objects.FlappyLightning;
+import games.emgflappy.project.objects.FlappyObstacle;
+import games.emgflappy.project.objects.ObjectType;
+
+/**
+ * Optional view for FlappySimulation: draws FlappyObjects with EMGflappy textures
+ * Note: requires that EMGflappy textures have been loaded
+ */
+public class FlappyWorldRenderer {
+
+    private static float PressedFrameTime = 0.10f; // How many seconds one Flappy animation frame takes when Flappy is pressed
+    private static float ReleasedFrameTime = 0.25f; // How many seconds one Flappy animation frame takes when Flappy isn't pressed
+    private static float CullingMargin = 1.f; // How many world units outside of the visible x range objects are still drawn
+    private static float AnimationLength = 0.33f * Flappy.getCollisionDamageInterval(); // How long the feather animation is (generally good idea to keep it < CollisionDamageInterval)
+
+    private Texture[] flappyFrames;
+    private Texture obstacleTexture;
+    private Texture obstacleFlippedTexture;
+    private Texture lightningTexture;
+    private Animation<TextureRegion> featherAnimation;
+    private int currentFrame;
+    private float frameTime;
+    private float animationTime;
+    private Array<FlappyObstacle> visibleObstacles; // Reused for visible range queries
+    private int drawnCount;
+    private int culledCount;
+
+    /**
+     * Constructor for FlappyWorldRenderer
+     */
+    public FlappyWorldRenderer() {
+        flappyFrames = new Texture[]{ EMGflappy.getTexture(FlappyTextures.FlappyFrame1),
+                                      EMGflappy.getTexture(FlappyTextures.FlappyFrame2),
+                                      EMGflappy.getTexture(FlappyTextures.FlappyFrame3),
+                                      EMGflappy.getTexture(FlappyTextures.FlappyFrame4)};
+        obstacleTexture = EMGflappy.getTexture(FlappyTextures.NormalObstacle);
+        obstacleFlippedTexture = EMGflappy.getTexture(FlappyTextures.NormalObstacleFlipped);
+        lightningTexture = EMGflappy.getTexture(FlappyTextures.Lightning);
+        currentFrame = 0;
+        frameTime = 0.f;
+        animationTime = FlappyWorldRenderer.AnimationLength + 1.f;
+        visibleObstacles = new Array<>();
+        createAnimation();
+    }
+
+    /**
+     * Draw FlappySimulation, only objects overlapping the visible x range (plus CullingMargin) are
+     * submitted to the SpriteBatch
+     * @param batch SpriteBatch where the objects should be drawn to
+     * @param simulation FlappySimulation which is drawn
+     * @param elapsedTime Time elapsed since last render cycle in seconds
+     * @param cameraX Camera position in x dimension (center of the visible region)
+     * @param ViewPortSizeX EMGflappy ViewPortSizeX, width of the visible region
+     */
+    public void draw(SpriteBatch batch, FlappySimulation simulation, float elapsedTime, float cameraX, float ViewPortSizeX) {
+        float visibleStartX = cameraX - ViewPortSizeX * 0.5f - CullingMargin;
+        float visibleEndX = cameraX + ViewPortSizeX * 0.5f + CullingMargin;
+        ObstacleIndex obstacles = simulation.getObstacles();
+        obstacles.query(visibleStartX, visibleEndX, visibleObstacles);
+        drawnCount = 0;
+        culledCount = obstacles.size() - visibleObstacles.size;
+        for (FlappyObstacle obstacle : visibleObstacles) {
+            if (drawObstacle(batch, obstacle)) drawnCount++;
+        }
+        drawFlappy(batch, simulation.getFlappy(), simulation.getAlpha(), elapsedTime);
+        drawnCount++;
+    }
+
+    /**
+     * Get how many sprites were submitted to the SpriteBatch during the latest draw
+     * @return drawnCount
+     */
+    public int getDrawnCount() {
+        return drawnCount;
+    }
+
+    /**
+     * Get how many objects were culled (outside of the visible x range) during the latest draw
+     * @return culledCount
+     */
+    public int getCulledCount() {
+        return culledCount;
+    }
+
+    /**
+     * Start Flappy feather animation, call this after Flappy has been hit
+     */
+    public void startFeatherAnimation() {
+        if (animationTime >= FlappyWorldRenderer.AnimationLength) animationTime = 0.f;
+    }
+
+    /**
+     * Draw FlappyObstacle or FlappyLightning
+     * @param batch SpriteBatch where the object is drawn to
+     * @param obstacle FlappyObstacle to be drawn
+     * @return true if the obstacle was drawn, false if it's currently hidden (lightning not striking)
+     */
+    private boolean drawObstacle(SpriteBatch batch, FlappyObstacle obstacle) {
+        Texture texture;
+        if (obstacle.getType() == ObjectType.FlappyLightning) {
+            if (!((FlappyLightning) obstacle).isStriking()) return false;
+            texture = lightningTexture;
+        } else {
+            texture = obstacle.isFlippedY() ? obstacleFlippedTexture : obstacleTexture;
+        }
+        batch.draw(texture, obstacle.getPositionX(), obstacle.getPositionY(), obstacle.getWidth(), obstacle.getHeight());
+        return true;
+    }
+
+    /**
+     * Draw Flappy and its feather animation
+     * @param batch SpriteBatch where Flappy is drawn to
+     * @param flappy Flappy to be drawn
+     * @param alpha Interpolation factor between the two latest physics steps
+     * @param elapsedTime Time elapsed since last render cycle in seconds
+     */
+    private void drawFlappy(SpriteBatch batch, Flappy flappy, float alpha, float elapsedTime) {
+        frameTime += elapsedTime;
+        if (frameTime >= (Flappy.isFlappyPressed() ? PressedFrameTime : ReleasedFrameTime)) {
+            currentFrame = currentFrame + 1 < flappyFrames.length ? currentFrame + 1 : 0;
+            frameTime = 0.f;
+        }
+        float x = flappy.getInterpolatedPositionX(alpha);
+        float y = flappy.getInterpolatedPositionY(alpha);
+        batch.draw(flappyFrames[currentFrame], x, y, flappy.getWidth(), flappy.getHeight());
+
+        animationTime += elapsedTime;
+        if (animationTime < FlappyWorldRenderer.AnimationLength) {
+            TextureRegion currentAnimationFrame = featherAnimation.getKeyFrame(animationTime, false);
+            batch.draw(currentAnimationFrame, x, y, flappy.getWidth(), flappy.getHeight());
+        }
+    }
+
+    /**
+     * Create feather animation
+     */
+    private void createAnimation() {
+        Texture texture = EMGflappy.getTexture(FlappyTextures.FeatherAnimation);
+        TextureRegion[][] tmp = TextureRegion.split(texture, texture.getWidth() / FlappyTextures.FeatherAnimationSpriteSheetColumns,
+                texture.getHeight() / FlappyTextures.FeatherAnimationSpriteSheetRows);
+        int size = FlappyTextures.FeatherAnimationSpriteSheetRows * FlappyTextures.FeatherAnimationSpriteSheetColumns;
+        TextureRegion[] animationRegion = new TextureRegion[size];
+        int index = 0;
+        for (int i = 0; i < FlappyTextures.FeatherAnimationSpriteSheetRows; i++) {
+            for (int j = 0; j < FlappyTextures.FeatherAnimationSpriteSheetColumns; j++) {
+                animationRegion[index++] = tmp[i][j];
+            }
+        }
+        featherAnimation = new Animation<>(FlappyWorldRenderer.AnimationLength / size, animationRegion);
+    }
+}
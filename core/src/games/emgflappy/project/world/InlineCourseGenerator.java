@@ -0,0 +1,79 @@
+package games.emgflappy.project.world;
+
+import com.badlogic.gdx.utils.Queue;
+
+/**
+ * CourseGenerator which generates each CourseChunk immediately in request on the calling thread,
+ * used on platforms without threads (html)
+ * Generating only computes obstacle descriptors, FlappySimulation still creates their bodies a few
+ * per frame
+ */
+public class InlineCourseGenerator implements CourseGenerator {
+
+    private final CourseLayout layout;
+    private final Queue<CourseChunk> chunks;
+
+    /**
+     * Constructor for InlineCourseGenerator
+     */
+    public InlineCourseGenerator() {
+        layout = new CourseLayout();
+        chunks = new Queue<>();
+    }
+
+    /**
+     * Discard chunks which haven't been polled
+     */
+    @Override
+    public void dispose() {
+        chunks.clear();
+    }
+
+    /**
+     * Generate a new CourseChunk
+     * @param course CourseSource to be used from now on, null to continue the current course
+     * @param startPosition Position where the chunk starts, NaN to continue from the previous chunk
+     * @param worldWidth How many world units the obstacles should cover
+     * @param ViewPortSizeX EMGflappy ViewPortSizeX
+     * @param ViewPortSizeY EMGflappy ViewPortSizeY
+     */
+    @Override
+    public void request(CourseSource course, float startPosition, float worldWidth, float ViewPortSizeX, float ViewPortSizeY) {
+        chunks.addLast(layout.generate(course, startPosition, worldWidth, ViewPortSizeX, ViewPortSizeY));
+    }
+
+    /**
+     * Get the next generated CourseChunk
+     * @return CourseChunk or null if all chunks have been returned
+     */
+    @Override
+    public CourseChunk poll() {
+        return chunks.size > 0 ? chunks.removeFirst() : null;
+    }
+
+    /**
+     * Get the next generated CourseChunk, never waits because chunks are generated in request
+     * @return CourseChunk or null if all chunks have been returned
+     */
+    @Override
+    public CourseChunk take() {
+        return poll();
+    }
+
+    /**
+     * Discard chunks which haven't been polled
+     */
+    @Override
+    public void cancel() {
+        chunks.clear();
+    }
+
+    /**
+     * Chunks are generated in request, so nothing is ever outstanding
+     * @return false
+     */
+    @Override
+    public boolean hasOutstandingRequests() {
+        return false;
+    }
+}
@@ -0,0 +1,158 @@
+package games.emgflappy.project.world;
+
+import com.badlogic.gdx.utils.Array;
+import games.emgflappy.project.objects.FlappyObstacle;
+
+/**
+ * Spatial index for FlappyObstacles: a ring buffer ordered by the left edge (x) of the obstacles
+ * Range queries are O(log n + k) and removing obstacles from the front is O(1)
+ * Note: obstacles are expected to be added in x order (world is generated from left to right),
+ * out of order additions are supported but they cost O(n)
+ */
+public class ObstacleIndex {
+
+    private static final int InitialCapacity = 64;
+
+    private FlappyObstacle[] items;
+    private int head; // Index of the first (leftmost) obstacle in items
+    private int size;
+    private float maxWidth; // Width of the widest obstacle, needed to find obstacles which start left of the query range
+
+    /**
+     * Constructor for ObstacleIndex
+     */
+    public ObstacleIndex() {
+        items = new FlappyObstacle[InitialCapacity];
+        head = 0;
+        size = 0;
+        maxWidth = 0.f;
+    }
+
+    /**
+     * Add obstacle to the index
+     * @param obstacle FlappyObstacle to be added
+     */
+    public void add(FlappyObstacle obstacle) {
+        if (size == items.length) grow();
+        int i = size;
+        // Shift larger obstacles right, this only loops when obstacles are added out of order
+        while (i > 0 && get(i - 1).getPositionX() > obstacle.getPositionX()) {
+            items[physicalIndex(i)] = get(i - 1);
+            i--;
+        }
+        items[physicalIndex(i)] = obstacle;
+        size++;
+        maxWidth = Math.max(maxWidth, obstacle.getWidth());
+    }
+
+    /**
+     * Get obstacle by its order in the index
+     * @param index Index in the range of [0, size), 0 is the leftmost obstacle
+     * @return FlappyObstacle
+     */
+    public FlappyObstacle get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        return items[physicalIndex(index)];
+    }
+
+    /**
+     * Get the leftmost obstacle
+     * @return FlappyObstacle or null if the index is empty
+     */
+    public FlappyObstacle first() {
+        return size > 0 ? items[head] : null;
+    }
+
+    /**
+     * Remove the leftmost obstacle in O(1)
+     * @return Removed FlappyObstacle
+     */
+    public FlappyObstacle removeFirst() {
+        if (size == 0) throw new IllegalStateException("ObstacleIndex is empty");
+        FlappyObstacle obstacle = items[head];
+        items[head] = null;
+        head = (head + 1) % items.length;
+        size--;
+        return obstacle;
+    }
+
+    /**
+     * Remove all obstacles
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) items[physicalIndex(i)] = null;
+        head = 0;
+        size = 0;
+        maxWidth = 0.f;
+    }
+
+    /**
+     * Get amount of obstacles in the index
+     * @return size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Find obstacles which overlap the range [x0, x1] in x dimension
+     * @param x0 Start of the range
+     * @param x1 End of the range
+     * @param out Array where the overlapping obstacles are stored to, cleared first (reuse the
+     *            same Array to avoid allocations)
+     * @return out
+     */
+    public Array<FlappyObstacle> query(float x0, float x1, Array<FlappyObstacle> out) {
+        out.clear();
+        for (int i = lowerBound(x0 - maxWidth); i < size; i++) {
+            FlappyObstacle obstacle = items[physicalIndex(i)];
+            if (obstacle.getPositionX() > x1) break;
+            if (obstacle.getPositionX() + obstacle.getWidth() >= x0) out.add(obstacle);
+        }
+        return out;
+    }
+
+    /**
+     * Recompute the width of the widest obstacle, call this after obstacle sizes have changed
+     * (e.g. after a ViewPort change)
+     */
+    public void updateMaxWidth() {
+        maxWidth = 0.f;
+        for (int i = 0; i < size; i++) maxWidth = Math.max(maxWidth, items[physicalIndex(i)].getWidth());
+    }
+
+    /**
+     * Binary search for the first obstacle whose left edge is at x or right of it
+     * @param x Position in x dimension
+     * @return Index of the first obstacle with getPositionX() >= x, size if there is none
+     */
+    public int lowerBound(float x) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (items[physicalIndex(mid)].getPositionX() < x) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Map index in x order to index in the items array
+     * @param index Index in x order
+     * @return Index in items
+     */
+    private int physicalIndex(int index) {
+        return (head + index) % items.length;
+    }
+
+    /**
+     * Double the capacity of the ring buffer
+     */
+    private void grow() {
+        FlappyObstacle[] newItems = new FlappyObstacle[items.length * 2];
+        for (int i = 0; i < size; i++) newItems[i] = items[physicalIndex(i)];
+        items = newItems;
+        head = 0;
+    }
+}
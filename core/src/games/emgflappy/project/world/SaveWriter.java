@@ -0,0 +1,48 @@
+package games.emgflappy.project.world;
+
+import com.badlogic.gdx.utils.Disposable;
+import games.emgflappy.project.utils.LatencyHistogram;
+
+/**
+ * Writes game saves (world saves and text files such as Options) to local storage
+ * ThreadedSaveWriter writes on a writer thread so that saving doesn't stall the game thread,
+ * SyncSaveWriter writes immediately for platforms without threads (html),
+ * GamePlatform.createSaveWriter selects the implementation
+ * Note: only one thread (the game thread) may submit saves
+ */
+public interface SaveWriter extends Disposable {
+
+    /**
+     * Capture the state of the simulation and write it as a world save, capturing never waits for
+     * the CourseGenerator
+     * @param simulation FlappySimulation to be saved
+     * @param autosave Whether this is a periodic save whose write may be delayed (and replaced by
+     *                 a newer autosave), other saves (pause) are written immediately
+     */
+    void saveWorld(FlappySimulation simulation, boolean autosave);
+
+    /**
+     * Write a text file
+     * @param path Destination path in local storage
+     * @param content File content
+     */
+    void saveText(String path, String content);
+
+    /**
+     * Wait until every submitted save has been written (e.g. when the game is paused and may be
+     * killed next)
+     */
+    void flush();
+
+    /**
+     * Get game thread time spent in saveWorld per save
+     * @return LatencyHistogram, read from the game thread
+     */
+    LatencyHistogram getCaptureTimes();
+
+    /**
+     * Get time spent writing per world save (encoding, writing and syncing the file)
+     * @return LatencyHistogram, values may lag behind by a save
+     */
+    LatencyHistogram getWriteTimes();
+}
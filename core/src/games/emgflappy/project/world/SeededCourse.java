@@ -0,0 +1,93 @@
+package games.emgflappy.project.world;
+
+import games.emgflappy.project.objects.ObstacleType;
+
+import java.util.Random;
+
+/**
+ * CourseSource which generates an endless course from a seed
+ * The same seed produces the same sequence of course elements on every platform:
+ * java.util.Random is fully specified and the course is computed with single float operations,
+ * which give the same results on SSE2 JVMs and ART without strictfp (redundant since Java 17)
+ */
+public class SeededCourse implements CourseSource {
+
+    private static float TunnelProbability = 0.15f; // How probable (0.0 - 1.0) it is that a Tunnel is created
+    private static int MinObstaclesBeforeFirstLightning = 8; // How many Normal obstacles there are before the first lightning at minimum (Note: Normal obstacles are always created in pairs)
+    private static float MinHeightScale = 0.3f; // Min height of the lower Normal obstacle in relation to ViewPortSizeY
+    private static float MaxHeightScale = 0.7f; // Max height of the lower Normal obstacle in relation to ViewPortSizeY
+
+    private final long seed;
+    private final Random rand;
+    private int index;
+    private int generatedObstacles;
+    private float heightScale;
+
+    /**
+     * Constructor for SeededCourse
+     * @param seed Seed of the course
+     */
+    public SeededCourse(long seed) {
+        this.seed = seed;
+        rand = new Random(seed);
+        index = 0;
+        generatedObstacles = 0;
+        heightScale = 0.f;
+    }
+
+    /**
+     * Create SeededCourse which continues from a specific element (e.g. after loading a save)
+     * @param seed Seed of the course
+     * @param index Index of the next element
+     * @return SeededCourse
+     */
+    public static SeededCourse fromIndex(long seed, int index) {
+        SeededCourse course = new SeededCourse(seed);
+        while (course.getIndex() < index) course.next();
+        return course;
+    }
+
+    /**
+     * Advance to the next course element
+     * @return ObstacleType of the element
+     */
+    @Override
+    public ObstacleType next() {
+        index++;
+        float random = rand.nextFloat();
+        if (random < SeededCourse.TunnelProbability && generatedObstacles > SeededCourse.MinObstaclesBeforeFirstLightning) {
+            generatedObstacles++;
+            return ObstacleType.Tunnel;
+        }
+        heightScale = MinHeightScale + rand.nextFloat() * (MaxHeightScale - MinHeightScale);
+        generatedObstacles += 2;
+        return ObstacleType.Normal;
+    }
+
+    /**
+     * Get height scale of the current element
+     * @return heightScale
+     */
+    @Override
+    public float getHeightScale() {
+        return heightScale;
+    }
+
+    /**
+     * Get seed of the course
+     * @return seed
+     */
+    @Override
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Get how many elements have been consumed
+     * @return index
+     */
+    @Override
+    public int getIndex() {
+        return index;
+    }
+}
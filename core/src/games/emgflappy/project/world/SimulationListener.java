@@ -0,0 +1,23 @@
+package games.emgflappy.project.world;
+
+import games.emgflappy.project.objects.Flappy;
+import games.emgflappy.project.objects.FlappyLightning;
+
+/**
+ * Listener for FlappySimulation events, used to attach audio and animations to the headless
+ * simulation
+ */
+public interface SimulationListener {
+
+    /**
+     * Called after Flappy has taken damage during a simulation step
+     * @param flappy Flappy which was hit
+     */
+    void onFlappyHit(Flappy flappy);
+
+    /**
+     * Called when a FlappyLightning starts striking
+     * @param lightning FlappyLightning which started striking
+     */
+    void onLightningStrike(FlappyLightning lightning);
+}
@@ -0,0 +1,114 @@
+package games.emgflappy.project.world;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.TimeUtils;
+import games.emgflappy.project.utils.LatencyHistogram;
+
+import java.nio.ByteBuffer;
+
+/**
+ * SaveWriter which writes game saves immediately on the calling thread through FileHandles,
+ * used on platforms without threads (html)
+ * Files are written in one FileHandle write, a failure is logged and the previous save is kept
+ * when the backend leaves it intact
+ * Note: only one thread (the game thread) may submit saves
+ */
+public class SyncSaveWriter implements SaveWriter {
+
+    private final String worldPath;
+    private final String jsonPath; // Debug export of world saves, null when not exported
+    private final WorldSnapshot snapshot;
+    private ByteBuffer encoded;
+    private final StringBuilder json;
+    private final LatencyHistogram captureTimes;
+    private final LatencyHistogram writeTimes;
+
+    /**
+     * Constructor for SyncSaveWriter
+     * @param worldPath Path in local storage where world saves are written
+     * @param jsonPath Path in local storage where world saves are also written as json for
+     *                 debugging, null to write only the binary save
+     */
+    public SyncSaveWriter(String worldPath, String jsonPath) {
+        this.worldPath = worldPath;
+        this.jsonPath = jsonPath;
+        snapshot = new WorldSnapshot();
+        encoded = ByteBuffer.allocate(WorldSnapshot.HeaderSize);
+        json = new StringBuilder();
+        captureTimes = new LatencyHistogram();
+        writeTimes = new LatencyHistogram();
+    }
+
+    /**
+     * Nothing to release, every save has been written when it returned
+     */
+    @Override
+    public void dispose() {
+    }
+
+    /**
+     * Capture the state of the simulation and write it
+     * @param simulation FlappySimulation to be saved
+     * @param autosave Ignored, every save is written immediately
+     */
+    @Override
+    public void saveWorld(FlappySimulation simulation, boolean autosave) {
+        long startTime = TimeUtils.nanoTime();
+        simulation.captureSnapshot(snapshot);
+        long writeTime = TimeUtils.nanoTime();
+        captureTimes.record(writeTime - startTime);
+        if (encoded.capacity() < snapshot.getEncodedSize()) encoded = ByteBuffer.allocate(snapshot.getEncodedSize() * 2);
+        encoded.clear();
+        snapshot.write(encoded);
+        try {
+            Gdx.files.local(worldPath).writeBytes(encoded.array(), 0, encoded.position(), false);
+            if (jsonPath != null) {
+                json.setLength(0);
+                snapshot.toJson(json);
+                Gdx.files.local(jsonPath).writeString(json.toString(), false, "UTF-8");
+            }
+        } catch (Exception e) {
+            Gdx.app.log(SyncSaveWriter.class.getSimpleName(), e.getMessage());
+        }
+        writeTimes.record(TimeUtils.nanoTime() - writeTime);
+    }
+
+    /**
+     * Write a text file
+     * @param path Destination path in local storage
+     * @param content File content
+     */
+    @Override
+    public void saveText(String path, String content) {
+        try {
+            Gdx.files.local(path).writeString(content, false, "UTF-8");
+        } catch (Exception e) {
+            Gdx.app.log(SyncSaveWriter.class.getSimpleName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Nothing to wait for, every save has been written when it returned
+     */
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * Get time spent capturing the snapshot per save
+     * @return LatencyHistogram
+     */
+    @Override
+    public LatencyHistogram getCaptureTimes() {
+        return captureTimes;
+    }
+
+    /**
+     * Get time spent encoding and writing per world save
+     * @return LatencyHistogram
+     */
+    @Override
+    public LatencyHistogram getWriteTimes() {
+        return writeTimes;
+    }
+}
@@ -0,0 +1,175 @@
+package games.emgflappy.project.world;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * CourseGenerator which generates obstacle layouts (positions, heights and types) on a worker thread
+ * Generated CourseChunks are handed to the simulation thread through a lock-free queue, the
+ * simulation thread only creates Box2D bodies from them
+ * Note: generation state (CourseLayout) is owned by the worker thread, requests are processed in the
+ * order they are made
+ * Requests carry the generation they were made in, cancel starts a new generation so that stale
+ * requests are skipped by the worker and their chunks are dropped by poll without waiting
+ * JRE only (threads), excluded from the html build
+ */
+public class ThreadedCourseGenerator implements CourseGenerator {
+
+    private final ConcurrentLinkedQueue<Request> requests; // Simulation thread -> worker
+    private final ConcurrentLinkedQueue<Request> generated; // Worker -> simulation thread, requests with their chunks
+    private final Thread worker;
+    private volatile boolean running;
+    private volatile Throwable failure;
+    private volatile int generation; // Written only by the simulation thread
+    private int requestedCount; // Simulation thread only
+    private int receivedCount; // Simulation thread only
+
+    private final CourseLayout layout; // Accessed only by the worker thread
+
+    /**
+     * Generation request, the worker sets chunk before handing it back
+     */
+    private static final class Request {
+        final int generation;
+        final CourseSource course; // null to continue the current course
+        final float startPosition; // NaN to continue from the end of the previous chunk
+        final float worldWidth;
+        final float ViewPortSizeX;
+        final float ViewPortSizeY;
+        CourseChunk chunk; // Written by the worker before the request is queued to generated
+
+        Request(int generation, CourseSource course, float startPosition, float worldWidth, float ViewPortSizeX, float ViewPortSizeY) {
+            this.generation = generation;
+            this.course = course;
+            this.startPosition = startPosition;
+            this.worldWidth = worldWidth;
+            this.ViewPortSizeX = ViewPortSizeX;
+            this.ViewPortSizeY = ViewPortSizeY;
+        }
+    }
+
+    /**
+     * Constructor for ThreadedCourseGenerator, starts the worker thread
+     */
+    public ThreadedCourseGenerator() {
+        requests = new ConcurrentLinkedQueue<>();
+        generated = new ConcurrentLinkedQueue<>();
+        generation = 0;
+        layout = new CourseLayout();
+        requestedCount = 0;
+        receivedCount = 0;
+        running = true;
+        worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                work();
+            }
+        }, ThreadedCourseGenerator.class.getSimpleName());
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Stop the worker thread, pending requests are discarded
+     */
+    @Override
+    public void dispose() {
+        running = false;
+        LockSupport.unpark(worker);
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Request a new CourseChunk (call from the simulation thread)
+     * @param course CourseSource to be used from now on, null to continue the current course (the
+     *               first request must give a course)
+     * @param startPosition Position where the chunk starts, NaN to continue from the previous chunk
+     * @param worldWidth How many world units the obstacles should cover
+     * @param ViewPortSizeX EMGflappy ViewPortSizeX
+     * @param ViewPortSizeY EMGflappy ViewPortSizeY
+     */
+    @Override
+    public void request(CourseSource course, float startPosition, float worldWidth, float ViewPortSizeX, float ViewPortSizeY) {
+        requests.offer(new Request(generation, course, startPosition, worldWidth, ViewPortSizeX, ViewPortSizeY));
+        requestedCount++;
+        LockSupport.unpark(worker);
+    }
+
+    /**
+     * Get the next generated CourseChunk without blocking (call from the simulation thread)
+     * @return CourseChunk or null if none is ready
+     */
+    @Override
+    public CourseChunk poll() {
+        if (failure != null) throw new GdxRuntimeException("Course generation failed", failure);
+        Request request;
+        while ((request = generated.poll()) != null) {
+            if (request.generation != generation) continue; // Cancelled
+            receivedCount++;
+            return request.chunk;
+        }
+        return null;
+    }
+
+    /**
+     * Get the next generated CourseChunk, waits for the worker if the chunk has been requested
+     * but is not ready yet (call from the simulation thread)
+     * @return CourseChunk or null if there are no outstanding requests
+     */
+    @Override
+    public CourseChunk take() {
+        while (receivedCount < requestedCount) {
+            CourseChunk chunk = poll();
+            if (chunk != null) return chunk;
+            Thread.yield();
+        }
+        return null;
+    }
+
+    /**
+     * Discard all requests made so far without waiting for the worker (call from the simulation
+     * thread)
+     */
+    @Override
+    public void cancel() {
+        generation++;
+        requestedCount = 0;
+        receivedCount = 0;
+    }
+
+    /**
+     * Whether some requested CourseChunks haven't been returned by poll or take yet (call from the
+     * simulation thread)
+     * @return true if take would wait for the worker
+     */
+    @Override
+    public boolean hasOutstandingRequests() {
+        return receivedCount < requestedCount;
+    }
+
+    /**
+     * Worker thread loop
+     */
+    private void work() {
+        try {
+            while (running) {
+                Request request = requests.poll();
+                if (request == null) {
+                    LockSupport.park(this);
+                    continue;
+                }
+                if (request.generation != generation) continue; // Cancelled before it was generated
+                request.chunk = layout.generate(request.course, request.startPosition, request.worldWidth, request.ViewPortSizeX, request.ViewPortSizeY);
+                generated.offer(request);
+            }
+        } catch (Throwable t) {
+            failure = t;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package games.emgflappy.project.world;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.TimeUtils;
+import games.emgflappy.project.utils.LatencyHistogram;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * SaveWriter which writes game saves on a writer thread so that saving doesn't stall the game thread
+ * World saves are double buffered: the game thread captures a WorldSnapshot into a free buffer
+ * and hands it over, the writer thread encodes it in the binary save format and writes it while
+ * the other buffer is free for the next capture (a snapshot which hasn't been written yet is
+ * replaced by a newer one)
+ * Every file is written to a temporary file first and then renamed over the old file, so a crash
+ * during saving leaves the previous save intact
+ * Autosaves are written at most once per MinWriteInterval, a newer autosave only replaces the
+ * pending snapshot meanwhile, other saves (pause) are written immediately and flush waits for them
+ * Note: only one thread (the game thread) may submit saves
+ * JRE only (threads, java.io), excluded from the html build
+ */
+public class ThreadedSaveWriter implements SaveWriter {
+
+    private static final String TempSuffix = ".tmp";
+    private static long MinWriteInterval = 1000000000L; // Nanoseconds between autosave writes at least
+
+    /**
+     * Text file waiting to be written
+     */
+    private static final class TextSave {
+        final File file;
+        final String content;
+
+        TextSave(File file, String content) {
+            this.file = file;
+            this.content = content;
+        }
+    }
+
+    private final File worldFile;
+    private final File jsonFile; // Debug export of world saves, null when not exported
+    private final AtomicReference<WorldSnapshot> pending; // Captured snapshot waiting for the writer
+    private final AtomicReference<WorldSnapshot> spare; // Snapshot free for the next capture, the second buffer is created when the first one is in use
+    private final ConcurrentLinkedQueue<TextSave> textSaves;
+    private final AtomicBoolean writeNow; // Write the pending snapshot without waiting for MinWriteInterval
+    private final AtomicLong submitted; // Saves submitted by the game thread
+    private final AtomicLong written; // Saves written (or failed) by the writer thread
+    private volatile Thread flushing; // Thread waiting in flush, null when nobody waits
+    private ByteBuffer encoded; // Writer thread only
+    private final StringBuilder json; // Writer thread only
+    private final LatencyHistogram captureTimes; // Game thread only
+    private final LatencyHistogram writeTimes; // Writer thread only
+    private final Thread thread;
+    private volatile boolean running;
+    private volatile IOException failure;
+
+    /**
+     * Constructor for ThreadedSaveWriter, starts the writer thread
+     * @param worldFile File where world saves are written
+     * @param jsonFile File where world saves are also written as json for debugging, null to
+     *                 write only the binary save
+     */
+    public ThreadedSaveWriter(File worldFile, File jsonFile) {
+        this.worldFile = worldFile;
+        this.jsonFile = jsonFile;
+        pending = new AtomicReference<>();
+        spare = new AtomicReference<>(new WorldSnapshot());
+        textSaves = new ConcurrentLinkedQueue<>();
+        writeNow = new AtomicBoolean();
+        submitted = new AtomicLong();
+        written = new AtomicLong();
+        encoded = ByteBuffer.allocate(WorldSnapshot.HeaderSize);
+        json = new StringBuilder();
+        captureTimes = new LatencyHistogram();
+        writeTimes = new LatencyHistogram();
+        running = true;
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                write();
+            }
+        }, ThreadedSaveWriter.class.getSimpleName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Write pending saves and stop the writer thread
+     */
+    @Override
+    public void dispose() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Capture the state of the simulation and queue it to be written
+     * @param simulation FlappySimulation to be saved
+     * @param autosave Whether this is a periodic save which may wait for MinWriteInterval, other
+     *                 saves are written immediately
+     */
+    @Override
+    public void saveWorld(FlappySimulation simulation, boolean autosave) {
+        long startTime = TimeUtils.nanoTime();
+        WorldSnapshot snapshot = spare.getAndSet(null);
+        if (snapshot == null) snapshot = pending.getAndSet(null); // Not written yet, superseded by this capture
+        if (snapshot == null) snapshot = new WorldSnapshot();
+        simulation.captureSnapshot(snapshot);
+        WorldSnapshot previous = pending.getAndSet(snapshot);
+        if (previous != null) spare.set(previous);
+        submitted.incrementAndGet();
+        if (!autosave) writeNow.set(true);
+        captureTimes.record(TimeUtils.nanoTime() - startTime);
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Queue a text file to be written
+     * @param path Destination path in local storage
+     * @param content File content
+     */
+    @Override
+    public void saveText(String path, String content) {
+        saveText(Gdx.files.local(path).file(), content);
+    }
+
+    /**
+     * Queue a text file to be written
+     * @param file Destination file
+     * @param content File content
+     */
+    public void saveText(File file, String content) {
+        textSaves.offer(new TextSave(file, content));
+        submitted.incrementAndGet();
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Wait until every submitted save has been written, a pending autosave is written immediately
+     */
+    @Override
+    public void flush() {
+        long target = submitted.get();
+        flushing = Thread.currentThread();
+        writeNow.set(true);
+        LockSupport.unpark(thread);
+        while (written.get() < target && thread.isAlive()) LockSupport.park(this);
+        flushing = null;
+    }
+
+    /**
+     * Get game thread time spent in saveWorld per save (capturing the snapshot)
+     * @return LatencyHistogram, read from the game thread
+     */
+    @Override
+    public LatencyHistogram getCaptureTimes() {
+        return captureTimes;
+    }
+
+    /**
+     * Get writer thread time spent per world save (encoding, writing and syncing the file)
+     * @return LatencyHistogram which the writer thread records to, values read from other threads
+     * may lag behind by a save
+     */
+    @Override
+    public LatencyHistogram getWriteTimes() {
+        return writeTimes;
+    }
+
+    /**
+     * Get the latest exception from writing
+     * @return IOException or null
+     */
+    public IOException getFailure() {
+        return failure;
+    }
+
+    /**
+     * Writer thread loop
+     */
+    private void write() {
+        long worldWriteTime = TimeUtils.nanoTime() - MinWriteInterval;
+        while (true) {
+            boolean stopping = !running; // Read before taking saves so that saves made before dispose are written
+            long target = submitted.get(); // Saves submitted before this are written in this round unless an autosave is delayed
+            boolean wrote = false;
+            long delay = MinWriteInterval - (TimeUtils.nanoTime() - worldWriteTime);
+            WorldSnapshot snapshot = stopping || writeNow.getAndSet(false) || delay <= 0 ? pending.getAndSet(null) : null;
+            if (snapshot != null) {
+                worldWriteTime = TimeUtils.nanoTime();
+                if (encoded.capacity() < snapshot.getEncodedSize()) encoded = ByteBuffer.allocate(snapshot.getEncodedSize() * 2);
+                encoded.clear();
+                snapshot.write(encoded);
+                if (jsonFile != null) {
+                    json.setLength(0);
+                    snapshot.toJson(json);
+                }
+                spare.compareAndSet(null, snapshot);
+                writeAtomically(worldFile, encoded.array(), encoded.position());
+                if (jsonFile != null) writeAtomically(jsonFile, json.toString());
+                writeTimes.record(TimeUtils.nanoTime() - worldWriteTime);
+                wrote = true;
+            }
+            TextSave text;
+            while ((text = textSaves.poll()) != null) {
+                writeAtomically(text.file, text.content);
+                wrote = true;
+            }
+            if (pending.get() == null) {
+                written.set(target);
+                Thread waiter = flushing;
+                if (waiter != null) LockSupport.unpark(waiter);
+            }
+            if (!wrote) {
+                if (stopping) break;
+                if (delay > 0 && pending.get() != null) LockSupport.parkNanos(this, delay);
+                else LockSupport.park(this);
+            }
+        }
+    }
+
+    /**
+     * Write text file through a temporary file which replaces the destination when it is complete
+     * @param file Destination file
+     * @param content File content
+     */
+    private void writeAtomically(File file, String content) {
+        try {
+            byte[] bytes = content.getBytes("UTF-8");
+            writeAtomically(file, bytes, bytes.length);
+        } catch (IOException e) {
+            failure = e;
+            if (Gdx.app != null) Gdx.app.log(ThreadedSaveWriter.class.getSimpleName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Write file through a temporary file which replaces the destination when it is complete
+     * @param file Destination file
+     * @param content Array containing the file content
+     * @param length Bytes of content written
+     */
+    private void writeAtomically(File file, byte[] content, int length) {
+        File temp = new File(file.getPath() + TempSuffix);
+        try {
+            FileOutputStream out = new FileOutputStream(temp, false);
+            try {
+                out.write(content, 0, length);
+                out.getFD().sync();
+            } finally {
+                out.close();
+            }
+            if (!temp.renameTo(file)) {
+                // Some platforms don't replace existing files on rename
+                if (!file.delete() || !temp.renameTo(file)) throw new IOException("Couldn't replace " + file);
+            }
+        } catch (IOException e) {
+            failure = e;
+            if (Gdx.app != null) Gdx.app.log(ThreadedSaveWriter.class.getSimpleName(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package games.emgflappy.project.world;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import games.emgflappy.project.objects.ObstacleType;
+import games.emgflappy.project.utils.Crc32;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Compact copy of the FlappyWorld state needed to continue a game: Flappy, obstacle descriptors,
+ * startPosition and the course position
+ * Snapshots are captured on the game thread with FlappySimulation.captureSnapshot (only
+ * primitives are copied, arrays are reused and grown when needed) and encoded elsewhere
+ * Obstacles are the ones which have bodies or have been received from the CourseGenerator,
+ * chunks still being generated are stored only as pendingWidth: the course continues from
+ * startPosition and the course seed and index, so restoring regenerates them from SeededCourse
+ * Binary save format (big-endian): HeaderSize byte header (magic, version, oldest compatible
+ * version, header size, record size, startPosition, course seed and index, Flappy x, y and HP,
+ * obstacle count and since version 2 pendingWidth) followed by RecordSize byte obstacle records
+ * (ObstacleType code, flags, x, y, height) and a CRC32 of everything before it
+ * Newer versions may only append fields to the header and to the records, readers skip the parts
+ * they don't know, CompatibleVersion is raised when older readers can't read the file anymore
+ * Restoring doesn't create a body per record: FlappySimulation.restoreSnapshot queues the records
+ * as one pending CourseChunk, only obstacles near Flappy get their bodies immediately and the rest
+ * are created within the per-frame budget, a snapshot captured right after restoring contains the
+ * same obstacles because pending chunks are captured too
+ */
+public final class WorldSnapshot {
+
+    public static final int Magic = 0x454d4753; // "EMGS"
+    public static final short Version = 2;
+    public static final short CompatibleVersion = 1; // Oldest reader version which can read files written by this version
+    public static final int HeaderSize = 4 + 2 + 2 + 2 + 2 + 4 + 8 + 4 + 4 + 4 + 4 + 4 + 4;
+
+    private static final int MinHeaderSize = HeaderSize - 4; // Version 1 header without pendingWidth
+    public static final int RecordSize = 1 + 1 + 4 + 4 + 4;
+
+    private static final int InitialCapacity = 64; // Obstacles
+    private static final int FlipY = 1; // Record flag
+
+    private float startPosition;
+    private long courseSeed;
+    private int courseIndex;
+    private float flappyX;
+    private float flappyY;
+    private int flappyHP;
+    private float pendingWidth;
+    private int size;
+    private ObstacleType[] types;
+    private float[] x;
+    private float[] y;
+    private float[] height;
+    private boolean[] flipY;
+
+    /**
+     * Constructor for WorldSnapshot
+     */
+    public WorldSnapshot() {
+        types = new ObstacleType[InitialCapacity];
+        x = new float[InitialCapacity];
+        y = new float[InitialCapacity];
+        height = new float[InitialCapacity];
+        flipY = new boolean[InitialCapacity];
+    }
+
+    /**
+     * Start capturing a new state, removes previous obstacles
+     * @param startPosition Position in x dimension where the next FlappyObstacle is created
+     * @param courseSeed Seed of the current course
+     * @param courseIndex CourseSource index of the next course element
+     * @param flappyX Flappy position in x dimension
+     * @param flappyY Flappy position in y dimension
+     * @param flappyHP Flappy HP
+     * @param pendingWidth World width requested from the CourseGenerator but not received yet
+     */
+    void begin(float startPosition, long courseSeed, int courseIndex, float flappyX, float flappyY, int flappyHP, float pendingWidth) {
+        this.startPosition = startPosition;
+        this.courseSeed = courseSeed;
+        this.courseIndex = courseIndex;
+        this.flappyX = flappyX;
+        this.flappyY = flappyY;
+        this.flappyHP = flappyHP;
+        this.pendingWidth = pendingWidth;
+        size = 0;
+    }
+
+    /**
+     * Add obstacle descriptor
+     * @param type ObstacleType, Tunnel obstacles are FlappyLightnings
+     * @param x Position of left edge coordinate
+     * @param y Position of bottom edge coordinate
+     * @param height Height of the object (in world units)
+     * @param flipY Whether the obstacle is an upper obstacle
+     */
+    void addObstacle(ObstacleType type, float x, float y, float height, boolean flipY) {
+        if (size == types.length) grow();
+        types[size] = type;
+        this.x[size] = x;
+        this.y[size] = y;
+        this.height[size] = height;
+        this.flipY[size] = flipY;
+        size++;
+    }
+
+    /**
+     * Encode the snapshot as json (for debugging, saves are loaded from the binary format)
+     * @param out Where the json is appended to
+     * @return out
+     */
+    public StringBuilder toJson(StringBuilder out) {
+        out.append("{version:").append(Version).append(",startPosition:").append(startPosition);
+        out.append(",Flappy:{type:Flappy,x:").append(flappyX).append(",y:").append(flappyY).append(",HP:").append(flappyHP).append('}');
+        out.append(",objects:[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) out.append(',');
+            out.append("{type:").append(types[i] == ObstacleType.Tunnel ? "FlappyLightning" : "FlappyObstacle");
+            out.append(",x:").append(x[i]).append(",y:").append(y[i]).append(",height:").append(height[i]).append(",flipY:").append(flipY[i]).append('}');
+        }
+        out.append("],courseSeed:").append(courseSeed).append(",courseIndex:").append(courseIndex);
+        out.append(",pendingWidth:").append(pendingWidth).append('}');
+        return out;
+    }
+
+    /**
+     * Get size of the binary encoding
+     * @return Bytes needed by write
+     */
+    public int getEncodedSize() {
+        return HeaderSize + size * RecordSize + 4;
+    }
+
+    /**
+     * Encode the snapshot in the binary save format
+     * @param buffer Heap buffer with at least getEncodedSize bytes remaining
+     */
+    public void write(ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.putInt(Magic).putShort(Version).putShort(CompatibleVersion);
+        buffer.putShort((short) HeaderSize).putShort((short) RecordSize);
+        buffer.putFloat(startPosition).putLong(courseSeed).putInt(courseIndex);
+        buffer.putFloat(flappyX).putFloat(flappyY).putInt(flappyHP);
+        buffer.putInt(size).putFloat(pendingWidth);
+        for (int i = 0; i < size; i++) {
+            buffer.put((byte) types[i].ordinal()).put((byte) (flipY[i] ? FlipY : 0));
+            buffer.putFloat(x[i]).putFloat(y[i]).putFloat(height[i]);
+        }
+        buffer.putInt(Crc32.compute(buffer.array(), buffer.arrayOffset() + start, buffer.position() - start));
+    }
+
+    /**
+     * Decode snapshot from the binary save format, replaces the current state
+     * Obstacles of types unknown to this version are skipped
+     * @param buffer Heap buffer positioned at the start of the encoding
+     * @throws GdxRuntimeException if the data is not a save, it is damaged or it was written by
+     * an incompatible version
+     */
+    public void read(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < MinHeaderSize + 4 || buffer.getInt() != Magic) throw new GdxRuntimeException("Not a world save");
+        short version = buffer.getShort();
+        short compatibleVersion = buffer.getShort();
+        int headerSize = buffer.getShort() & 0xffff;
+        int recordSize = buffer.getShort() & 0xffff;
+        if (compatibleVersion > Version || headerSize < MinHeaderSize || recordSize < RecordSize) {
+            throw new GdxRuntimeException("Unsupported world save version " + version);
+        }
+        float startPosition = buffer.getFloat();
+        long courseSeed = buffer.getLong();
+        int courseIndex = buffer.getInt();
+        float flappyX = buffer.getFloat();
+        float flappyY = buffer.getFloat();
+        int flappyHP = buffer.getInt();
+        int count = buffer.getInt();
+        float pendingWidth = headerSize >= HeaderSize ? buffer.getFloat() : 0.f;
+        long end = (long) headerSize + (long) count * recordSize;
+        if (count < 0 || buffer.limit() - start - 4 < end) throw new GdxRuntimeException("World save is truncated");
+        if (buffer.getInt(start + (int) end) != Crc32.compute(buffer.array(), buffer.arrayOffset() + start, (int) end)) throw new GdxRuntimeException("World save is damaged");
+        begin(startPosition, courseSeed, courseIndex, flappyX, flappyY, flappyHP, pendingWidth);
+        ObstacleType[] knownTypes = ObstacleType.values();
+        for (int i = 0; i < count; i++) {
+            buffer.position(start + headerSize + i * recordSize);
+            int type = buffer.get() & 0xff;
+            int flags = buffer.get();
+            float x = buffer.getFloat();
+            float y = buffer.getFloat();
+            float height = buffer.getFloat();
+            if (type < knownTypes.length) addObstacle(knownTypes[type], x, y, height, (flags & FlipY) != 0);
+        }
+        buffer.position(start + (int) end + 4);
+    }
+
+    /**
+     * Create CourseChunk of the obstacles so that FlappySimulation can create their bodies
+     * @return CourseChunk which continues from startPosition and courseIndex
+     */
+    CourseChunk toCourseChunk() {
+        return new CourseChunk(Arrays.copyOf(types, size), Arrays.copyOf(x, size), Arrays.copyOf(y, size),
+                Arrays.copyOf(height, size), Arrays.copyOf(flipY, size), startPosition, courseIndex);
+    }
+
+    /**
+     * Get amount of obstacles
+     * @return size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get position in x dimension where the next FlappyObstacle is created
+     * @return startPosition
+     */
+    public float getStartPosition() {
+        return startPosition;
+    }
+
+    /**
+     * Get seed of the course
+     * @return courseSeed
+     */
+    public long getCourseSeed() {
+        return courseSeed;
+    }
+
+    /**
+     * Get CourseSource index of the next course element
+     * @return courseIndex
+     */
+    public int getCourseIndex() {
+        return courseIndex;
+    }
+
+    /**
+     * Get Flappy position in x dimension
+     * @return flappyX
+     */
+    public float getFlappyX() {
+        return flappyX;
+    }
+
+    /**
+     * Get Flappy position in y dimension
+     * @return flappyY
+     */
+    public float getFlappyY() {
+        return flappyY;
+    }
+
+    /**
+     * Get Flappy HP
+     * @return flappyHP
+     */
+    public int getFlappyHP() {
+        return flappyHP;
+    }
+
+    /**
+     * Get world width which was still being generated when the snapshot was captured, its
+     * obstacles continue from startPosition and the course index
+     * @return pendingWidth, 0 if everything requested had been received
+     */
+    public float getPendingWidth() {
+        return pendingWidth;
+    }
+
+    /**
+     * Get ObstacleType of an obstacle
+     * @param index Obstacle index, less than size
+     * @return ObstacleType
+     */
+    public ObstacleType getType(int index) {
+        return types[index];
+    }
+
+    /**
+     * Get left edge coordinate of an obstacle
+     * @param index Obstacle index, less than size
+     * @return x
+     */
+    public float getX(int index) {
+        return x[index];
+    }
+
+    /**
+     * Get bottom edge coordinate of an obstacle
+     * @param index Obstacle index, less than size
+     * @return y
+     */
+    public float getY(int index) {
+        return y[index];
+    }
+
+    /**
+     * Get height of an obstacle
+     * @param index Obstacle index, less than size
+     * @return height
+     */
+    public float getHeight(int index) {
+        return height[index];
+    }
+
+    /**
+     * Whether an obstacle is an upper obstacle
+     * @param index Obstacle index, less than size
+     * @return flipY
+     */
+    public boolean isFlippedY(int index) {
+        return flipY[index];
+    }
+
+    /**
+     * Double the obstacle capacity
+     */
+    private void grow() {
+        int capacity = types.length * 2;
+        ObstacleType[] newTypes = new ObstacleType[capacity];
+        float[] newX = new float[capacity];
+        float[] newY = new float[capacity];
+        float[] newHeight = new float[capacity];
+        boolean[] newFlipY = new boolean[capacity];
+        System.arraycopy(types, 0, newTypes, 0, size);
+        System.arraycopy(x, 0, newX, 0, size);
+        System.arraycopy(y, 0, newY, 0, size);
+        System.arraycopy(height, 0, newHeight, 0, size);
+        System.arraycopy(flipY, 0, newFlipY, 0, size);
+        types = newTypes;
+        x = newX;
+        y = newY;
+        height = newHeight;
+        flipY = newFlipY;
+    }
+}
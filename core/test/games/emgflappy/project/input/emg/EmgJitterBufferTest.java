@@ -0,0 +1,132 @@
+package games.emgflappy.project.input.emg;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that EmgJitterBuffer plays frames out in frame index order at the sampling rate after the
+ * playout delay, repeats the previous frame for lost frames, drops late frames and restarts
+ * playout after running empty
+ */
+public class EmgJitterBufferTest {
+
+    private static final int Channels = 2;
+    private static final int SampleRate = 1000;
+    private static final long Interval = 1000000000L / SampleRate;
+    private static final float DelaySeconds = 0.02f;
+    private static final long Delay = 20 * Interval;
+    private static final long StartTime = 1000000000L;
+
+    private EmgJitterBuffer jitterBuffer;
+    private float[] frames;
+
+    @Before
+    public void setUp() {
+        jitterBuffer = new EmgJitterBuffer(Channels, SampleRate, DelaySeconds);
+        frames = new float[64 * Channels];
+    }
+
+    @Test
+    public void framesAreReleasedAfterTheDelayAtTheSamplingRate() {
+        for (int i = 0; i < 10; i++) put(i, StartTime);
+        assertEquals(0, jitterBuffer.take(StartTime + Delay - 1, frames, 64));
+        assertEquals(1, jitterBuffer.take(StartTime + Delay, frames, 64));
+        assertFrame(0, 0);
+        assertEquals(4, jitterBuffer.take(StartTime + Delay + 4 * Interval, frames, 64));
+        for (int i = 0; i < 4; i++) assertFrame(i, i + 1);
+        assertEquals(2, jitterBuffer.take(StartTime + Delay + 9 * Interval, frames, 2)); // maxFrames limits
+        assertEquals(3, jitterBuffer.take(StartTime + Delay + 9 * Interval, frames, 64));
+        assertFrame(2, 9);
+    }
+
+    @Test
+    public void reorderedFramesArePlayedOutInOrder() {
+        long[] arrival = {0, 3, 2, 1, 7, 6, 5, 4};
+        for (long frame : arrival) put(frame, StartTime + frame * Interval / 2);
+        assertEquals(8, jitterBuffer.take(StartTime + Delay + 7 * Interval, frames, 64));
+        for (int i = 0; i < 8; i++) assertFrame(i, i);
+        assertEquals(0, jitterBuffer.getLostCount());
+        assertEquals(0, jitterBuffer.getLateCount());
+    }
+
+    @Test
+    public void lostFramesRepeatThePreviousFrame() {
+        put(0, StartTime);
+        put(1, StartTime);
+        put(3, StartTime); // Frame 2 is lost
+        assertEquals(4, jitterBuffer.take(StartTime + Delay + 3 * Interval, frames, 64));
+        assertFrame(0, 0);
+        assertFrame(1, 1);
+        assertFrame(2, 1);
+        assertFrame(3, 3);
+        assertEquals(1, jitterBuffer.getLostCount());
+    }
+
+    @Test
+    public void lateFramesAreDropped() {
+        put(0, StartTime);
+        put(1, StartTime);
+        assertEquals(1, jitterBuffer.take(StartTime + Delay, frames, 64));
+        put(0, StartTime + Delay); // Already played out
+        put(2, StartTime + Delay);
+        assertEquals(2, jitterBuffer.take(StartTime + Delay + 2 * Interval, frames, 64));
+        assertFrame(0, 1);
+        assertFrame(1, 2);
+        assertEquals(1, jitterBuffer.getLateCount());
+    }
+
+    @Test
+    public void playoutRestartsAfterRunningEmpty() {
+        put(0, StartTime);
+        assertEquals(1, jitterBuffer.take(StartTime + Delay + 5 * Interval, frames, 64));
+        long restart = StartTime + Delay + 10 * Interval;
+        put(1, restart);
+        put(2, restart);
+        assertEquals(0, jitterBuffer.take(restart + Delay - 1, frames, 64)); // Buffered again for the delay
+        assertEquals(2, jitterBuffer.take(restart + Delay + Interval, frames, 64));
+        assertFrame(0, 1);
+        assertFrame(1, 2);
+        assertEquals(0, jitterBuffer.getLostCount());
+    }
+
+    @Test
+    public void ringTakeTimestampsFramesWithTheirPlayoutTime() {
+        for (int i = 0; i < 5; i++) put(i, StartTime);
+        EmgSampleRing ring = new EmgSampleRing(16, Channels);
+        assertEquals(5, jitterBuffer.take(StartTime + Delay + 10 * Interval, ring, 64));
+        long[] times = new long[5];
+        assertEquals(5, ring.drain(frames, times, 5));
+        for (int i = 0; i < 5; i++) {
+            assertFrame(i, i);
+            assertEquals(StartTime + Delay + i * Interval, times[i]);
+        }
+    }
+
+    /**
+     * Put one frame whose samples are frameIndex * 10 + channel
+     * @param frameIndex Frame index
+     * @param arrivalTime Arrival time in nanoseconds
+     */
+    private void put(long frameIndex, long arrivalTime) {
+        ByteBuffer src = ByteBuffer.allocate(Channels * 4);
+        for (int c = 0; c < Channels; c++) src.putFloat(frameIndex * 10 + c);
+        src.flip();
+        jitterBuffer.put(frameIndex, src, arrivalTime);
+        assertEquals(0, src.remaining());
+    }
+
+    /**
+     * Check samples of a played out frame
+     * @param index Index of the frame in frames
+     * @param frameIndex Expected frame index
+     */
+    private void assertFrame(int index, long frameIndex) {
+        for (int c = 0; c < Channels; c++) {
+            assertEquals("Frame " + index + " channel " + c, frameIndex * 10 + c, frames[index * Channels + c], 0.f);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package games.emgflappy.project.input.emg;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks EmgMixer mappings from channel activations to lift and speed: the average mapping, the
+ * agonist / antagonist pairs for every channel count and clamping of the outputs
+ */
+public class EmgMixerTest {
+
+    private static final int SampleRate = 1000;
+    private static final float Epsilon = 1e-5f;
+    private static final float MinSpeed = 0.5f; // EmgMixer.MinSpeed
+    private static final float MaxSpeed = 2.f; // EmgMixer.MaxSpeed
+
+    @Test
+    public void averageLiftsWithTheMeanAndKeepsTheSpeed() {
+        EmgMixer mixer = EmgMixer.average(3);
+        mixer.mix(processor(0.3f, 0.6f, 0.9f));
+        assertEquals(0.6f, mixer.getOutput(EmgMixer.Lift), Epsilon);
+        assertEquals(1.f, mixer.getOutput(EmgMixer.Speed), Epsilon);
+    }
+
+    @Test
+    public void restingMixerHasNeutralOutputs() {
+        EmgMixer mixer = new EmgMixer(2);
+        assertEquals(0.f, mixer.getOutput(EmgMixer.Lift), 0.f);
+        assertEquals(1.f, mixer.getOutput(EmgMixer.Speed), 0.f);
+        mixer.mix(processor(1.f, 1.f));
+        assertEquals(0.f, mixer.getOutput(EmgMixer.Lift), 0.f);
+        assertEquals(1.f, mixer.getOutput(EmgMixer.Speed), 0.f);
+    }
+
+    @Test
+    public void twoChannelPairsRaiseAndLowerLift() {
+        EmgMixer mixer = EmgMixer.pairs(2);
+        mixer.mix(processor(0.8f, 0.3f));
+        assertEquals(0.5f, mixer.getOutput(EmgMixer.Lift), Epsilon);
+        mixer.mix(processor(0.2f, 0.7f)); // Antagonist stronger: lift is clamped to 0
+        assertEquals(0.f, mixer.getOutput(EmgMixer.Lift), 0.f);
+        assertEquals(1.f, mixer.getOutput(EmgMixer.Speed), 0.f);
+    }
+
+    @Test
+    public void fourChannelPairsControlLiftAndSpeed() {
+        EmgMixer mixer = EmgMixer.pairs(4);
+        mixer.mix(processor(1.f, 0.f, 1.f, 0.f));
+        assertEquals(1.f, mixer.getOutput(EmgMixer.Lift), Epsilon);
+        assertEquals(MaxSpeed, mixer.getOutput(EmgMixer.Speed), Epsilon);
+        mixer.mix(processor(0.f, 0.f, 0.f, 1.f));
+        assertEquals(MinSpeed, mixer.getOutput(EmgMixer.Speed), Epsilon);
+        mixer.mix(processor(0.f, 0.f, 0.5f, 0.5f));
+        assertEquals(1.f + 0.5f * (MaxSpeed - 1.f) + 0.5f * (MinSpeed - 1.f), mixer.getOutput(EmgMixer.Speed), Epsilon);
+    }
+
+    @Test
+    public void everyChannelIsMappedForAnyChannelCount() {
+        for (int channels = 2; channels <= 9; channels++) {
+            EmgMixer mixer = EmgMixer.pairs(channels);
+            float[] agonistSums = new float[EmgMixer.Outputs];
+            float[] antagonistSums = new float[EmgMixer.Outputs];
+            for (int c = 0; c < channels; c++) {
+                int mapped = 0;
+                for (int o = 0; o < EmgMixer.Outputs; o++) {
+                    float weight = mixer.getWeight(o, c);
+                    if (weight == 0.f) continue;
+                    mapped++;
+                    if (c % 2 == 0) agonistSums[o] += weight;
+                    else antagonistSums[o] += weight;
+                    assertEquals("Channel " + c + " of " + channels + " sign", c % 2 == 0, weight > 0.f);
+                }
+                assertEquals("Channel " + c + " of " + channels + " outputs", 1, mapped);
+            }
+            // Agonists and antagonists of an output are averaged: their weights sum to the full range
+            assertEquals(1.f, agonistSums[EmgMixer.Lift], Epsilon);
+            assertEquals(-1.f, antagonistSums[EmgMixer.Lift], Epsilon);
+            if (channels >= 3) assertEquals(MaxSpeed - 1.f, agonistSums[EmgMixer.Speed], Epsilon);
+            if (channels >= 4) assertEquals(MinSpeed - 1.f, antagonistSums[EmgMixer.Speed], Epsilon);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pairsNeedTwoChannels() {
+        EmgMixer.pairs(1);
+    }
+
+    @Test
+    public void customWeightsAndOffsetsAreClamped() {
+        EmgMixer mixer = new EmgMixer(2);
+        mixer.setOffset(EmgMixer.Lift, 0.25f);
+        mixer.setWeight(EmgMixer.Lift, 1, 0.5f);
+        mixer.setWeight(EmgMixer.Speed, 0, 10.f);
+        mixer.mix(processor(0.f, 1.f));
+        assertEquals(0.75f, mixer.getOutput(EmgMixer.Lift), Epsilon);
+        assertEquals(1.f, mixer.getOutput(EmgMixer.Speed), Epsilon);
+        mixer.mix(processor(1.f, 1.f));
+        assertEquals(MaxSpeed, mixer.getOutput(EmgMixer.Speed), 0.f);
+    }
+
+    /**
+     * Create EmgProcessor whose channels have the given activations: each channel is normalized
+     * so that the zero envelope of a silent frame maps to its activation
+     * @param activations Activation per channel in the range of [0, 1]
+     * @return EmgProcessor
+     */
+    private static EmgProcessor processor(float... activations) {
+        EmgProcessor processor = new EmgProcessor(activations.length, SampleRate);
+        for (int c = 0; c < activations.length; c++) processor.setNormalization(c, -activations[c], 1.f - activations[c]);
+        processor.process(new float[activations.length], 0);
+        for (int c = 0; c < activations.length; c++) assertEquals(activations[c], processor.getActivation(c), Epsilon);
+        return processor;
+    }
+}
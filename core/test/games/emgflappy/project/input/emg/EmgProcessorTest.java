@@ -0,0 +1,104 @@
+package games.emgflappy.project.input.emg;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Feeds sine waves through EmgProcessor: the band-pass biquads must keep frequencies between the
+ * cutoffs and remove the rest, and the envelope must be the RMS or the mean of the rectified
+ * signal over the window, normalized with the rest and MVC levels
+ */
+public class EmgProcessorTest {
+
+    private static final int SampleRate = 2000;
+    private static final float LowCutoff = 20.f;
+    private static final float HighCutoff = 450.f;
+    private static final float WindowSeconds = 0.1f; // 200 samples, a whole number of periods of the test signals
+    private static final float Amplitude = 2.f;
+    private static final int SettleSamples = SampleRate; // Filter transients have decayed after this
+
+    @Test
+    public void passbandSineHasRmsEnvelope() {
+        EmgProcessor processor = new EmgProcessor(1, SampleRate, LowCutoff, HighCutoff, WindowSeconds, true);
+        feedSine(processor, 100.f);
+        assertEquals(Amplitude / (float) Math.sqrt(2.0), processor.getEnvelope(0), 0.02f * Amplitude);
+    }
+
+    @Test
+    public void passbandSineHasRectifiedMeanEnvelope() {
+        EmgProcessor processor = new EmgProcessor(1, SampleRate, LowCutoff, HighCutoff, WindowSeconds, false);
+        feedSine(processor, 100.f);
+        assertEquals(2.f * Amplitude / (float) Math.PI, processor.getEnvelope(0), 0.02f * Amplitude);
+    }
+
+    @Test
+    public void bandPassRemovesDriftAndHighFrequencies() {
+        EmgProcessor processor = new EmgProcessor(1, SampleRate, LowCutoff, HighCutoff, WindowSeconds, true);
+        feedSine(processor, 0.f); // Constant offset (electrode drift)
+        assertTrue("DC envelope " + processor.getEnvelope(0), processor.getEnvelope(0) < 0.01f * Amplitude);
+        processor.reset();
+        feedSine(processor, 5.f); // Motion artifact
+        assertTrue("5 Hz envelope " + processor.getEnvelope(0), processor.getEnvelope(0) < 0.1f * Amplitude);
+        processor.reset();
+        feedSine(processor, 900.f);
+        assertTrue("900 Hz envelope " + processor.getEnvelope(0), processor.getEnvelope(0) < 0.05f * Amplitude);
+    }
+
+    @Test
+    public void channelsAreFilteredIndependently() {
+        EmgProcessor processor = new EmgProcessor(2, SampleRate, LowCutoff, HighCutoff, WindowSeconds, true);
+        float[] frame = new float[2];
+        for (int i = 0; i < SettleSamples; i++) {
+            frame[0] = sine(100.f, i);
+            frame[1] = sine(5.f, i);
+            processor.process(frame, 0);
+        }
+        assertEquals(Amplitude / (float) Math.sqrt(2.0), processor.getEnvelope(0), 0.02f * Amplitude);
+        assertTrue(processor.getEnvelope(1) < 0.1f * Amplitude);
+    }
+
+    @Test
+    public void activationIsNormalizedAndClamped() {
+        float rms = Amplitude / (float) Math.sqrt(2.0);
+        EmgProcessor processor = new EmgProcessor(1, SampleRate, LowCutoff, HighCutoff, WindowSeconds, true);
+        processor.setNormalization(0, 0.5f * rms, 1.5f * rms);
+        float mean = feedSine(processor, 100.f);
+        assertEquals(0.5f, processor.getActivation(0), 0.03f);
+        assertEquals(processor.getActivation(0), mean, 0.f);
+
+        processor.setNormalization(0, 0.f, 0.5f * rms);
+        feedSine(processor, 100.f);
+        assertEquals(1.f, processor.getActivation(0), 0.f);
+        processor.setNormalization(0, 2.f * rms, 3.f * rms);
+        feedSine(processor, 100.f);
+        assertEquals(0.f, processor.getActivation(0), 0.f);
+    }
+
+    /**
+     * Process SettleSamples samples of a sine wave (0 Hz gives a constant)
+     * @param processor EmgProcessor with one channel
+     * @param frequency Frequency in Hz
+     * @return Mean activation returned for the last sample
+     */
+    private static float feedSine(EmgProcessor processor, float frequency) {
+        float[] frame = new float[1];
+        float mean = 0.f;
+        for (int i = 0; i < SettleSamples; i++) {
+            frame[0] = frequency == 0.f ? Amplitude : sine(frequency, i);
+            mean = processor.process(frame, 0);
+        }
+        return mean;
+    }
+
+    /**
+     * Sample of a sine wave with Amplitude
+     * @param frequency Frequency in Hz
+     * @param sample Sample index
+     * @return Sample
+     */
+    private static float sine(float frequency, int sample) {
+        return Amplitude * (float) Math.sin(2.0 * Math.PI * frequency * sample / SampleRate);
+    }
+}
@@ -0,0 +1,132 @@
+package games.emgflappy.project.input.emg;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that EmgSampleRing keeps frames in order across many wraparounds, rejects frames when it
+ * is full and hands every frame from a producer thread to a consumer thread exactly once
+ */
+public class EmgSampleRingTest {
+
+    private static final int Channels = 3;
+    private static final int Capacity = 16;
+    private static final int ThreadedFrames = 1000000;
+    private static final long TimeoutMillis = 30000;
+
+    @Test
+    public void framesStayInOrderAcrossWraparound() {
+        EmgSampleRing ring = new EmgSampleRing(Capacity, Channels);
+        float[] frame = new float[Channels];
+        float[] frames = new float[Capacity * Channels];
+        long[] times = new long[Capacity];
+        long next = 0; // Next frame to be offered
+        long expected = 0; // Next frame to be drained
+        for (int round = 0; round < 100; round++) {
+            int offered = round % Capacity + 1; // Uneven batches so that wraparound happens at every slot
+            for (int i = 0; i < offered; i++) {
+                fill(frame, 0, next);
+                assertTrue(ring.offer(next * 10, frame, 0));
+                next++;
+            }
+            assertEquals(offered, ring.size());
+            int drained = ring.drain(frames, times, Capacity);
+            assertEquals(offered, drained);
+            for (int i = 0; i < drained; i++) {
+                assertFrame(frames, i, expected);
+                assertEquals(expected * 10, times[i]);
+                expected++;
+            }
+        }
+        assertEquals(0, ring.getDroppedCount());
+    }
+
+    @Test
+    public void fullRingDropsNewFrames() {
+        EmgSampleRing ring = new EmgSampleRing(Capacity - 1, Channels); // Rounded up to Capacity
+        assertEquals(Capacity, ring.capacity());
+        float[] frame = new float[Channels];
+        for (int i = 0; i < Capacity; i++) {
+            fill(frame, 0, i);
+            assertTrue(ring.offer(i, frame, 0));
+        }
+        fill(frame, 0, Capacity);
+        assertFalse(ring.offer(Capacity, frame, 0));
+        assertEquals(1, ring.getDroppedCount());
+
+        float[] frames = new float[Capacity * Channels];
+        long[] times = new long[Capacity];
+        assertEquals(2, ring.drain(frames, times, 2)); // Frees two slots
+        assertTrue(ring.offer(Capacity, frame, 0));
+        assertEquals(Capacity - 1, ring.drain(frames, times, Capacity));
+        for (int i = 0; i < Capacity - 1; i++) assertFrame(frames, i, i + 2);
+    }
+
+    @Test
+    public void producerAndConsumerThreadsSeeEveryFrameOnce() throws InterruptedException {
+        final EmgSampleRing ring = new EmgSampleRing(Capacity, Channels);
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                float[] frame = new float[Channels];
+                for (long i = 0; i < ThreadedFrames; i++) {
+                    fill(frame, 0, i);
+                    while (!ring.offer(i, frame, 0)) Thread.yield();
+                }
+            }
+        });
+        producer.setDaemon(true);
+        producer.start();
+        float[] frames = new float[Capacity * Channels];
+        long[] times = new long[Capacity];
+        long expected = 0;
+        long deadline = System.currentTimeMillis() + TimeoutMillis;
+        while (expected < ThreadedFrames && System.currentTimeMillis() < deadline) {
+            int drained = ring.drain(frames, times, Capacity);
+            if (drained == 0) Thread.yield();
+            for (int i = 0; i < drained; i++) {
+                assertEquals(expected, times[i]);
+                assertFrame(frames, i, expected);
+                expected++;
+            }
+        }
+        producer.join(TimeoutMillis);
+        assertEquals(ThreadedFrames, expected);
+        assertEquals(0, ring.size());
+    }
+
+    /**
+     * Fill a frame with samples derived from the frame number
+     * @param frames Interleaved samples
+     * @param index Index of the frame in frames
+     * @param frameNumber Frame number
+     */
+    private static void fill(float[] frames, int index, long frameNumber) {
+        for (int c = 0; c < Channels; c++) frames[index * Channels + c] = sample(frameNumber, c);
+    }
+
+    /**
+     * Check samples of a frame
+     * @param frames Interleaved samples
+     * @param index Index of the frame in frames
+     * @param frameNumber Expected frame number
+     */
+    private static void assertFrame(float[] frames, int index, long frameNumber) {
+        for (int c = 0; c < Channels; c++) {
+            assertEquals("Frame " + frameNumber + " channel " + c, sample(frameNumber, c), frames[index * Channels + c], 0.f);
+        }
+    }
+
+    /**
+     * Sample value of a frame, exact in float for the frame numbers used here
+     * @param frameNumber Frame number
+     * @param channel Channel index
+     * @return Sample
+     */
+    private static float sample(long frameNumber, int channel) {
+        return (frameNumber % 1000000) * 4 + channel;
+    }
+}
@@ -0,0 +1,162 @@
+package games.emgflappy.project.input.emg;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Sends packets to NetworkEmgSource over the loopback interface: frames must come out in frame
+ * index order only after the jitter buffer's playout delay, and a TCP stream with garbage and an
+ * oversized packet must resynchronize to the next packet
+ */
+public class NetworkEmgSourceTest {
+
+    private static final int Channels = 2;
+    private static final int SampleRate = 1000;
+    private static final int FramesPerPacket = 10;
+    private static final long JitterDelayNanos = 30000000L; // NetworkEmgSource.JitterDelay
+    private static final long TimeoutNanos = 5000000000L;
+
+    private NetworkEmgSource source;
+
+    @After
+    public void tearDown() throws IOException {
+        if (source != null) source.close();
+    }
+
+    @Test
+    public void udpPacketsAreReorderedAndReleasedAfterTheDelay() throws IOException {
+        int port = getFreeUdpPort();
+        source = NetworkEmgSource.udp(port, Channels, SampleRate);
+        source.open();
+        DatagramChannel sender = DatagramChannel.open();
+        try {
+            sender.connect(new InetSocketAddress("localhost", port));
+            long sendTime = System.nanoTime();
+            int[] order = {0, 2, 1, 3};
+            for (int p : order) sender.write(packet(p * FramesPerPacket, FramesPerPacket, Channels));
+
+            float[] frames = new float[4 * FramesPerPacket * Channels];
+            float[] batch = new float[4 * FramesPerPacket * Channels];
+            int count = 0;
+            long firstFrameTime = 0;
+            long deadline = System.nanoTime() + TimeoutNanos;
+            while (count < 4 * FramesPerPacket && System.nanoTime() < deadline) {
+                int read = source.read(batch, 4 * FramesPerPacket - count);
+                if (read > 0 && count == 0) firstFrameTime = System.nanoTime();
+                System.arraycopy(batch, 0, frames, count * Channels, read * Channels);
+                count += read;
+            }
+            assertEquals(4 * FramesPerPacket, count);
+            assertTrue("Frames were released before the playout delay", firstFrameTime - sendTime >= JitterDelayNanos);
+            for (int i = 0; i < count; i++) assertFrame(frames, i, i);
+            assertEquals(0, source.getJitterBuffer().getLostCount());
+            assertEquals(0, source.getMalformedCount());
+        } finally {
+            sender.close();
+        }
+    }
+
+    @Test
+    public void tcpStreamResynchronizesAfterGarbageAndOversizedPackets() throws IOException {
+        ServerSocketChannel server = ServerSocketChannel.open();
+        try {
+            server.socket().bind(new InetSocketAddress("localhost", 0));
+            source = NetworkEmgSource.tcp("localhost", server.socket().getLocalPort(), Channels, SampleRate);
+            source.open();
+            SocketChannel bridge = server.accept();
+            try {
+                write(bridge, packet(0, FramesPerPacket, Channels));
+                write(bridge, ByteBuffer.wrap(new byte[] {0x45, 0x4d, 0x47, 0x55, 0x55, 0x55, 0x55})); // Garbage with a partial magic
+                ByteBuffer oversized = ByteBuffer.allocate(NetworkEmgSource.HeaderSize).order(ByteOrder.BIG_ENDIAN);
+                oversized.putInt(NetworkEmgSource.Magic).putLong(1000).putShort((short) Channels).putShort((short) 0xffff).flip();
+                write(bridge, oversized); // Doesn't fit the receive buffer, must not stall the stream
+                write(bridge, packet(FramesPerPacket, FramesPerPacket, Channels));
+
+                EmgSampleRing ring = new EmgSampleRing(64, Channels);
+                int count = 0;
+                long deadline = System.nanoTime() + TimeoutNanos;
+                while (count < 2 * FramesPerPacket && System.nanoTime() < deadline) {
+                    int read = source.read(ring, 2 * FramesPerPacket - count);
+                    assertTrue("Connection closed", read >= 0);
+                    count += read;
+                }
+                assertEquals(2 * FramesPerPacket, count);
+                float[] frames = new float[count * Channels];
+                long[] times = new long[count];
+                assertEquals(count, ring.drain(frames, times, count));
+                for (int i = 0; i < count; i++) assertFrame(frames, i, i);
+                for (int i = 1; i < count; i++) assertEquals("Frames are timestamped at the sampling rate", 1000000000L / SampleRate, times[i] - times[i - 1]);
+                assertEquals(2, source.getMalformedCount());
+            } finally {
+                bridge.close();
+            }
+        } finally {
+            server.close();
+        }
+    }
+
+    /**
+     * Build a packet whose samples are frameIndex * 10 + channel
+     * @param firstFrame Frame index of the first frame
+     * @param frameCount Amount of frames
+     * @param channels Samples per frame
+     * @return Packet ready to be written
+     */
+    private static ByteBuffer packet(long firstFrame, int frameCount, int channels) {
+        ByteBuffer packet = ByteBuffer.allocate(NetworkEmgSource.HeaderSize + frameCount * channels * 4).order(ByteOrder.BIG_ENDIAN);
+        packet.putInt(NetworkEmgSource.Magic).putLong(firstFrame).putShort((short) channels).putShort((short) frameCount);
+        for (int i = 0; i < frameCount; i++) {
+            for (int c = 0; c < channels; c++) packet.putFloat((firstFrame + i) * 10 + c);
+        }
+        packet.flip();
+        return packet;
+    }
+
+    /**
+     * Check samples of a frame
+     * @param frames Interleaved samples
+     * @param index Index of the frame in frames
+     * @param frameIndex Expected frame index
+     */
+    private static void assertFrame(float[] frames, int index, long frameIndex) {
+        for (int c = 0; c < Channels; c++) {
+            assertEquals("Frame " + index + " channel " + c, frameIndex * 10 + c, frames[index * Channels + c], 0.f);
+        }
+    }
+
+    /**
+     * Write the whole buffer to a blocking channel
+     * @param channel Destination channel
+     * @param buffer Data to be written
+     * @throws IOException if writing fails
+     */
+    private static void write(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+
+    /**
+     * Find a UDP port which is not in use
+     * @return Port number
+     * @throws IOException if no socket can be opened
+     */
+    private static int getFreeUdpPort() throws IOException {
+        DatagramSocket socket = new DatagramSocket(0);
+        try {
+            return socket.getLocalPort();
+        } finally {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package games.emgflappy.project.telemetry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Encodes a session long enough to span several blocks with SessionEncoder and decodes it with
+ * SessionDecoder: every record must come back in timestamp order within the quantization error,
+ * predictors must restart at block boundaries and seek must land on the first record at or after
+ * the target through the block index (or the scanned index when the trailer is missing)
+ */
+public class SessionCodecTest {
+
+    private static final int Channels = 8;
+    private static final int Frames = 40000; // EMG section fills several blocks
+    private static final int StateEvery = 4; // Frames between Flappy state records
+    private static final int ContactEvery = 5000; // Frames between contact records
+    private static final long StartTime = 7000000000L;
+    private static final long FrameInterval = 250000L; // 4 kHz
+    private static final float EmgQuantum = SessionEncoder.DefaultEmgQuantum;
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("session", ".bin");
+        SessionEncoder encoder = new SessionEncoder(file, Channels, EmgQuantum, StartTime, 1234L);
+        encoder.logSessionStart(StartTime - 1, 1.f, 2.f, 3.f, 9);
+        float[] frame = new float[Channels];
+        for (int i = 0; i < Frames; i++) {
+            for (int c = 0; c < Channels; c++) frame[c] = sample(i, c);
+            encoder.logEmg(emgTime(i), frame, 0);
+            if (i % StateEvery == 0) encoder.logFlappyState(emgTime(i) + 1, i * 0.01f, 25.f - i * 0.001f, 3.f, -i * 0.002f, i % 400 < 200 ? 1.f : 0.f, 3 - i / 15000);
+            if (i % ContactEvery == ContactEvery - 1) encoder.logContact(emgTime(i) + 2, (i / ContactEvery) % 2 == 0, i, -i, 3);
+        }
+        encoder.close();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void recordsSurviveBlockBoundaries() throws IOException {
+        SessionDecoder decoder = new SessionDecoder(file);
+        try {
+            assertTrue("Session should span several blocks", decoder.getBlockCount() >= 3);
+            assertEquals(Channels, decoder.getChannelCount());
+            assertEquals(StartTime, decoder.getStartNanos());
+            assertEquals(1234L, decoder.getStartMillis());
+            assertTrue(decoder.next());
+            assertEquals(RecordType.SessionStart, decoder.getType());
+            assertEquals(9, decoder.getAux());
+            assertEquals(3.f, decoder.getValue(2), 0.f);
+            assertEquals(Frames, readFrom(decoder, 0));
+        } finally {
+            decoder.close();
+        }
+    }
+
+    @Test
+    public void seekUsesTheBlockIndex() throws IOException {
+        SessionDecoder decoder = new SessionDecoder(file);
+        try {
+            assertSeeks(decoder);
+        } finally {
+            decoder.close();
+        }
+    }
+
+    @Test
+    public void filesWithoutIndexAreScanned() throws IOException {
+        RandomAccessFile access = new RandomAccessFile(file, "rw");
+        try {
+            access.setLength(access.length() - 1); // Trailer damaged as if the encoder never closed the file
+        } finally {
+            access.close();
+        }
+        SessionDecoder decoder = new SessionDecoder(file);
+        try {
+            assertTrue(decoder.getBlockCount() >= 3);
+            assertSeeks(decoder);
+            decoder.seek(Long.MIN_VALUE);
+            assertTrue(decoder.next());
+            assertEquals(RecordType.SessionStart, decoder.getType());
+            assertEquals(Frames, readFrom(decoder, 0));
+        } finally {
+            decoder.close();
+        }
+    }
+
+    /**
+     * Seek to frames at the start, inside and at the boundaries of blocks and past the end
+     * @param decoder SessionDecoder
+     */
+    private static void assertSeeks(SessionDecoder decoder) {
+        int[] targets = {0, 1, 7777, 12345, 20000, 31111, Frames - 1};
+        for (int frame : targets) {
+            decoder.seek(emgTime(frame));
+            assertTrue(decoder.next());
+            assertEquals("Seek to frame " + frame, RecordType.EmgSamples, decoder.getType());
+            assertEquals("Seek to frame " + frame, emgTime(frame), decoder.getTime());
+            assertEmg(decoder, frame);
+        }
+        decoder.seek(emgTime(100) + 1); // Between an EMG frame and the state record after it
+        assertTrue(decoder.next());
+        assertEquals(RecordType.FlappyState, decoder.getType());
+        assertEquals(emgTime(100) + 1, decoder.getTime());
+        decoder.seek(emgTime(Frames));
+        assertFalse(decoder.next());
+    }
+
+    /**
+     * Read records from a frame to the end and check them against what setUp logged
+     * @param decoder SessionDecoder positioned before the EMG record of the frame
+     * @param firstFrame Frame number of the first EMG record
+     * @return Amount of EMG records read
+     */
+    private static int readFrom(SessionDecoder decoder, int firstFrame) {
+        int frame = firstFrame;
+        long previousTime = Long.MIN_VALUE;
+        while (decoder.next()) {
+            assertTrue("Records are in timestamp order", decoder.getTime() >= previousTime);
+            previousTime = decoder.getTime();
+            RecordType type = decoder.getType();
+            if (type == RecordType.EmgSamples) {
+                assertEquals(emgTime(frame), decoder.getTime());
+                assertEmg(decoder, frame);
+                frame++;
+                continue;
+            }
+            int i = frame - 1; // Frame logged right before the record
+            if (type == RecordType.FlappyState) {
+                assertEquals(0, i % StateEvery);
+                assertEquals(emgTime(i) + 1, decoder.getTime());
+                assertEquals(i * 0.01f, decoder.getValue(0), SessionEncoder.StateQuantum);
+                assertEquals(25.f - i * 0.001f, decoder.getValue(1), SessionEncoder.StateQuantum);
+                assertEquals(3.f, decoder.getValue(2), SessionEncoder.StateQuantum);
+                assertEquals(-i * 0.002f, decoder.getValue(3), SessionEncoder.StateQuantum);
+                assertEquals(i % 400 < 200 ? 1.f : 0.f, decoder.getValue(4), SessionEncoder.ActivationQuantum);
+                assertEquals(3 - i / 15000, decoder.getAux());
+            } else {
+                assertEquals(ContactEvery - 1, i % ContactEvery);
+                assertEquals((i / ContactEvery) % 2 == 0 ? RecordType.ContactBegin : RecordType.ContactEnd, type);
+                assertEquals(emgTime(i) + 2, decoder.getTime());
+                assertEquals(i, decoder.getValue(0), 0.f);
+            }
+        }
+        return frame - firstFrame;
+    }
+
+    /**
+     * Check samples of the current EMG record
+     * @param decoder SessionDecoder positioned at an EMG record
+     * @param frame Expected frame number
+     */
+    private static void assertEmg(SessionDecoder decoder, int frame) {
+        assertEquals(Channels, decoder.getValueCount());
+        for (int c = 0; c < Channels; c++) {
+            assertEquals("Frame " + frame + " channel " + c, sample(frame, c), decoder.getValue(c), EmgQuantum);
+        }
+    }
+
+    /**
+     * Timestamp of an EMG frame
+     * @param frame Frame number
+     * @return Nanoseconds
+     */
+    private static long emgTime(int frame) {
+        return StartTime + frame * FrameInterval;
+    }
+
+    /**
+     * EMG sample of a frame, a noisy sine in volts like surface EMG
+     * @param frame Frame number
+     * @param channel Channel index
+     * @return Sample
+     */
+    private static float sample(int frame, int channel) {
+        return 1e-3f * (float) Math.sin(frame * 0.05 + channel) + 1e-5f * ((frame * 7919 + channel * 104729) % 13);
+    }
+}
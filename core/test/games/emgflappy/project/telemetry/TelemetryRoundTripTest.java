@@ -0,0 +1,185 @@
+package games.emgflappy.project.telemetry;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Writes a session with TelemetryWriter and reads it back with TelemetryReader: every record must
+ * come back in order, and a file cut in the middle of the last record (crash while writing) or
+ * with a zero filled tail must be read up to the last whole record
+ */
+public class TelemetryRoundTripTest {
+
+    private static final int Channels = 7; // More than TelemetryWriter.Values, so EMG frames take two records
+    private static final int Frames = 1000;
+    private static final long StartTime = 5000000000L;
+    private static final long FrameInterval = 250000L;
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("telemetry", ".bin");
+        TelemetryWriter writer = new TelemetryWriter(file);
+        writer.start();
+        writer.logSessionStart(StartTime, 10.f, 20.f, 30.f, 4);
+        float[] frame = new float[Channels];
+        for (int i = 0; i < Frames; i++) {
+            for (int c = 0; c < Channels; c++) frame[c] = sample(i, c);
+            writer.logEmg(time(i), frame, 0, Channels);
+            if (i % 10 == 0) writer.logFlappyState(time(i), i, i + 1, i + 2, i + 3, 0.5f, 3);
+        }
+        writer.logContact(time(Frames), true, 1.f, 2.f, 2);
+        writer.dispose();
+        assertNull(writer.getFailure());
+        assertEquals(0, writer.getDroppedCount());
+        assertEquals(expectedRecords(), writer.getWrittenCount());
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void everyRecordIsReadBack() throws IOException {
+        TelemetryReader reader = new TelemetryReader(file);
+        try {
+            assertEquals(expectedRecords(), readSession(reader, true));
+            assertFalse(reader.next());
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void tornLastRecordIsIgnored() throws IOException {
+        truncate(file.length() - TelemetryWriter.RecordSize / 2);
+        TelemetryReader reader = new TelemetryReader(file);
+        try {
+            assertEquals(expectedRecords() - 1, readSession(reader, false));
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void zeroFilledTailIsIgnored() throws IOException {
+        RandomAccessFile access = new RandomAccessFile(file, "rw");
+        try {
+            access.seek(file.length());
+            access.write(new byte[3 * TelemetryWriter.RecordSize]); // Length was updated but the data never reached the device
+        } finally {
+            access.close();
+        }
+        TelemetryReader reader = new TelemetryReader(file);
+        try {
+            assertEquals(expectedRecords(), readSession(reader, true));
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test(expected = GdxRuntimeException.class)
+    public void fileCutInsideTheHeaderIsRejected() throws IOException {
+        truncate(TelemetryWriter.HeaderSize - 1);
+        new TelemetryReader(file);
+    }
+
+    /**
+     * Read records and check them against what setUp logged
+     * @param reader TelemetryReader positioned after the header
+     * @param complete Whether the final contact record is expected
+     * @return Amount of records read
+     */
+    private static int readSession(TelemetryReader reader, boolean complete) {
+        assertTrue(reader.getStartNanos() > 0);
+        assertTrue(reader.getStartMillis() > 0);
+        int records = 0;
+        assertTrue(reader.next());
+        records++;
+        assertEquals(RecordType.SessionStart, reader.getType());
+        assertEquals(StartTime, reader.getTime());
+        assertEquals(4, reader.getAux());
+        assertEquals(3, reader.getValueCount());
+        assertEquals(30.f, reader.getValue(2), 0.f);
+        for (int i = 0; i < Frames; i++) {
+            for (int first = 0; first < Channels; first += TelemetryWriter.Values) {
+                if (!reader.next()) return records;
+                records++;
+                assertEquals(RecordType.EmgSamples, reader.getType());
+                assertEquals(time(i), reader.getTime());
+                assertEquals(first, reader.getAux());
+                assertEquals(Math.min(TelemetryWriter.Values, Channels - first), reader.getValueCount());
+                for (int v = 0; v < reader.getValueCount(); v++) assertEquals(sample(i, first + v), reader.getValue(v), 0.f);
+            }
+            if (i % 10 == 0) {
+                if (!reader.next()) return records;
+                records++;
+                assertEquals(RecordType.FlappyState, reader.getType());
+                assertEquals(3, reader.getAux());
+                assertEquals(i + 3, reader.getValue(3), 0.f);
+            }
+        }
+        if (reader.next()) {
+            records++;
+            assertTrue("Contact record in a truncated file", complete);
+            assertEquals(RecordType.ContactBegin, reader.getType());
+            assertEquals(time(Frames), reader.getTime());
+        }
+        return records;
+    }
+
+    /**
+     * Amount of records logged in setUp
+     * @return Record count
+     */
+    private static int expectedRecords() {
+        int recordsPerFrame = (Channels + TelemetryWriter.Values - 1) / TelemetryWriter.Values;
+        return 1 + Frames * recordsPerFrame + Frames / 10 + 1;
+    }
+
+    /**
+     * Cut the file
+     * @param length New length in bytes
+     * @throws IOException if the file can't be written
+     */
+    private void truncate(long length) throws IOException {
+        RandomAccessFile access = new RandomAccessFile(file, "rw");
+        try {
+            access.setLength(length);
+        } finally {
+            access.close();
+        }
+    }
+
+    /**
+     * Timestamp of a frame
+     * @param frame Frame number
+     * @return Nanoseconds
+     */
+    private static long time(int frame) {
+        return StartTime + frame * FrameInterval;
+    }
+
+    /**
+     * Sample of a frame
+     * @param frame Frame number
+     * @param channel Channel index
+     * @return Sample
+     */
+    private static float sample(int frame, int channel) {
+        return frame * 0.25f - channel;
+    }
+}
@@ -0,0 +1,124 @@
+package games.emgflappy.project.telemetry;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks VarInt round trips at the edges of the long range and of every 7 bit group, and the
+ * zig-zag mapping of signed values
+ */
+public class VarIntTest {
+
+    @Test
+    public void unsignedValuesRoundTrip() {
+        for (int bits = 0; bits < 64; bits++) {
+            long power = 1L << bits;
+            assertUnsigned(power);
+            assertUnsigned(power - 1);
+            assertUnsigned(power + 1);
+        }
+        assertUnsigned(Long.MAX_VALUE);
+        assertUnsigned(Long.MIN_VALUE);
+        assertUnsigned(-1L);
+    }
+
+    @Test
+    public void encodedLengthGrowsEverySevenBits() {
+        assertEquals(1, unsignedLength(0));
+        assertEquals(1, unsignedLength(0x7f));
+        assertEquals(2, unsignedLength(0x80));
+        assertEquals(2, unsignedLength(0x3fff));
+        assertEquals(3, unsignedLength(0x4000));
+        assertEquals(9, unsignedLength(Long.MAX_VALUE));
+        assertEquals(VarInt.MaxBytes, unsignedLength(-1L)); // All 64 bits set
+    }
+
+    @Test
+    public void zigZagMapsSmallMagnitudesToSmallCodes() {
+        long[] values = {0, -1, 1, -2, 2, -64, 63, -65, 64};
+        long[] codes = {0, 1, 2, 3, 4, 127, 126, 129, 128};
+        for (int i = 0; i < values.length; i++) {
+            ByteBuffer buffer = ByteBuffer.allocate(VarInt.MaxBytes);
+            VarInt.putSigned(buffer, values[i]);
+            buffer.flip();
+            assertEquals("Code of " + values[i], codes[i], VarInt.get(buffer));
+        }
+    }
+
+    @Test
+    public void signedExtremesRoundTrip() {
+        long[] values = {Long.MIN_VALUE, Long.MIN_VALUE + 1, Long.MAX_VALUE, Long.MAX_VALUE - 1,
+                Integer.MIN_VALUE, Integer.MAX_VALUE, 0, -1, 1};
+        for (long value : values) {
+            ByteBuffer buffer = ByteBuffer.allocate(VarInt.MaxBytes);
+            VarInt.putSigned(buffer, value);
+            buffer.flip();
+            assertEquals(value, VarInt.getSigned(buffer));
+            assertEquals("Whole encoding of " + value + " is read", 0, buffer.remaining());
+        }
+        // Zig-zag codes of the extremes use all 64 bits
+        assertEquals(VarInt.MaxBytes, signedLength(Long.MIN_VALUE));
+        assertEquals(VarInt.MaxBytes, signedLength(Long.MAX_VALUE));
+        assertEquals(-1L, signedCode(Long.MIN_VALUE));
+        assertEquals(-2L, signedCode(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void consecutiveValuesDecodeInOrder() {
+        long[] values = {5, Long.MIN_VALUE, -300, Long.MAX_VALUE, 0};
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * VarInt.MaxBytes);
+        for (long value : values) VarInt.putSigned(buffer, value);
+        buffer.flip();
+        for (long value : values) assertEquals(value, VarInt.getSigned(buffer));
+        assertEquals(0, buffer.remaining());
+    }
+
+    /**
+     * Check unsigned round trip
+     * @param value Value interpreted as unsigned
+     */
+    private static void assertUnsigned(long value) {
+        ByteBuffer buffer = ByteBuffer.allocate(VarInt.MaxBytes);
+        VarInt.put(buffer, value);
+        buffer.flip();
+        assertEquals(value, VarInt.get(buffer));
+        assertEquals("Whole encoding of " + value + " is read", 0, buffer.remaining());
+    }
+
+    /**
+     * Get unsigned encoding length
+     * @param value Value interpreted as unsigned
+     * @return Bytes
+     */
+    private static int unsignedLength(long value) {
+        ByteBuffer buffer = ByteBuffer.allocate(VarInt.MaxBytes);
+        VarInt.put(buffer, value);
+        return buffer.position();
+    }
+
+    /**
+     * Get signed encoding length
+     * @param value Signed value
+     * @return Bytes
+     */
+    private static int signedLength(long value) {
+        ByteBuffer buffer = ByteBuffer.allocate(VarInt.MaxBytes);
+        VarInt.putSigned(buffer, value);
+        return buffer.position();
+    }
+
+    /**
+     * Get zig-zag code of a signed value
+     * @param value Signed value
+     * @return Code as an unsigned long
+     */
+    private static long signedCode(long value) {
+        ByteBuffer buffer = ByteBuffer.allocate(VarInt.MaxBytes);
+        VarInt.putSigned(buffer, value);
+        buffer.flip();
+        return VarInt.get(buffer);
+    }
+}
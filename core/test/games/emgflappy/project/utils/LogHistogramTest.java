@@ -0,0 +1,90 @@
+package games.emgflappy.project.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares LogHistogram percentile estimates with exact percentiles of the same values, the
+ * estimate must stay within the relative error of one bin
+ */
+public class LogHistogramTest {
+
+    private static final double MinValue = 1.0;
+    private static final int BinsPerDecade = 20;
+    private static final int Decades = 5;
+    private static final double RelativeError = Math.pow(10.0, 1.0 / BinsPerDecade) - 1.0;
+    private static final float[] Fractions = {0.01f, 0.1f, 0.5f, 0.9f, 0.95f, 0.99f, 0.999f};
+
+    @Test
+    public void percentilesOfUniformValues() {
+        double[] values = new double[10000];
+        for (int i = 0; i < values.length; i++) values[i] = i + 1;
+        assertPercentiles(values);
+    }
+
+    @Test
+    public void percentilesOfLogNormalValues() {
+        Random random = new Random(3);
+        double[] values = new double[100000];
+        for (int i = 0; i < values.length; i++) values[i] = Math.exp(4.0 + 1.5 * random.nextGaussian()); // Latency-like long tail
+        for (int i = 0; i < values.length; i++) values[i] = Math.min(Math.max(values[i], MinValue), MinValue * 0.99e5);
+        assertPercentiles(values);
+    }
+
+    @Test
+    public void emptyHistogramHasZeroPercentiles() {
+        LogHistogram histogram = new LogHistogram(MinValue, BinsPerDecade, Decades);
+        assertEquals(0.0, histogram.getPercentile(0.5f), 0.0);
+        histogram.add(50.0);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0.0, histogram.getPercentile(0.99f), 0.0);
+    }
+
+    @Test
+    public void valuesOutsideTheRangeGoToTheEdgeBins() {
+        LogHistogram histogram = new LogHistogram(MinValue, BinsPerDecade, Decades);
+        histogram.add(-5.0);
+        histogram.add(0.0);
+        histogram.add(1e9);
+        assertEquals(3, histogram.getCount());
+        assertTrue(histogram.getPercentile(0.5f) <= MinValue * (1.0 + RelativeError));
+        assertTrue(histogram.getPercentile(1.f) >= MinValue * Math.pow(10.0, Decades) / (1.0 + RelativeError));
+    }
+
+    @Test
+    public void percentilesGrowWithTheFraction() {
+        LogHistogram histogram = new LogHistogram(MinValue, BinsPerDecade, Decades);
+        Random random = new Random(5);
+        for (int i = 0; i < 1000; i++) histogram.add(1.0 + random.nextDouble() * 500.0);
+        double previous = histogram.getPercentile(-1.f); // Clamped to 0
+        for (int p = 1; p <= 100; p++) {
+            double percentile = histogram.getPercentile(p / 100.f);
+            assertTrue("Percentile " + p, percentile >= previous);
+            previous = percentile;
+        }
+        assertEquals(histogram.getPercentile(1.f), histogram.getPercentile(2.f), 0.0);
+    }
+
+    /**
+     * Check estimated percentiles against the exact ones
+     * @param values Values within the histogram range
+     */
+    private static void assertPercentiles(double[] values) {
+        LogHistogram histogram = new LogHistogram(MinValue, BinsPerDecade, Decades);
+        for (double value : values) histogram.add(value);
+        assertEquals(values.length, histogram.getCount());
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (float fraction : Fractions) {
+            double exact = sorted[Math.max((int) Math.ceil(fraction * sorted.length) - 1, 0)];
+            double estimate = histogram.getPercentile(fraction);
+            assertEquals("p" + fraction * 100, 1.0, estimate / exact, RelativeError);
+        }
+    }
+}
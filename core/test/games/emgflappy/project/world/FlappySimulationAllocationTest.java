@@ -0,0 +1,80 @@
+package games.emgflappy.project.world;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Checks that stepping the simulation doesn't allocate heap memory once the world has been created
+ * and the JIT has warmed up, allocations in the game loop cause GC pauses on low-end devices
+ */
+public class FlappySimulationAllocationTest {
+
+    private static final float FrameTime = 1/60f;
+    private static final long FrameNanos = (long) (FrameTime * 1000000000L);
+    private static final int WarmUpFrames = 20000;
+    private static final int MeasuredFrames = 3000;
+    private static final int MaxSettleWindows = 20; // MeasuredFrames windows run after warm-up until one doesn't allocate
+
+    private FlappySimulation simulation;
+    private long frameTime;
+
+    @Before
+    public void setUp() {
+        simulation = new FlappySimulation(80.f, 50.f, 30.f, new SeededCourse(1));
+        simulation.initFlappy();
+        simulation.extendWorld(500.f);
+        simulation.materializeAll();
+        frameTime = 0;
+    }
+
+    @After
+    public void tearDown() {
+        simulation.dispose();
+    }
+
+    @Test
+    public void steppingDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long thread = Thread.currentThread().getId();
+        int frame = 0;
+        while (frame < WarmUpFrames) stepFrame(frame++);
+        // Background JIT compilation may still deoptimize and recompile step (which briefly
+        // allocates objects escape analysis otherwise removes), wait for a window without that
+        for (int w = 0; w < MaxSettleWindows && allocatedInWindow(threads, thread, frame) != 0; w++) frame += MeasuredFrames;
+        frame += MeasuredFrames;
+        assertEquals("Bytes allocated in " + MeasuredFrames + " frames", 0, allocatedInWindow(threads, thread, frame));
+    }
+
+    /**
+     * Step MeasuredFrames frames and measure how much the current thread allocated
+     * @param threads ThreadMXBean with allocated memory measurement enabled
+     * @param thread Id of the current thread
+     * @param firstFrame Frame number of the first frame
+     * @return Allocated bytes
+     */
+    private long allocatedInWindow(com.sun.management.ThreadMXBean threads, long thread, int firstFrame) {
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < MeasuredFrames; i++) stepFrame(firstFrame + i);
+        return threads.getThreadAllocatedBytes(thread) - before;
+    }
+
+    /**
+     * Step one frame with uneven frame times and periodic touch input
+     * @param frame Frame number
+     */
+    private void stepFrame(int frame) {
+        float deltaTime = FrameTime + (frame % 3) * 0.003f;
+        frameTime += (long) (deltaTime * 1000000000L);
+        if (frame % 40 == 0) simulation.queueInput(frameTime - FrameNanos / 2, 1.f);
+        if (frame % 40 == 15) simulation.queueInput(frameTime - FrameNanos / 2, 0.f);
+        simulation.step(deltaTime, frameTime);
+    }
+}
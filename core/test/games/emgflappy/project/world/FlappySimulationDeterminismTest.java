@@ -0,0 +1,70 @@
+package games.emgflappy.project.world;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the same course, input events and frame times always give the same Flappy
+ * trajectory, sessions can then be replayed and compared
+ */
+public class FlappySimulationDeterminismTest {
+
+    private static final long CourseSeed = 7;
+    private static final int Frames = 1200;
+
+    private FlappySimulation first;
+    private FlappySimulation second;
+
+    @Before
+    public void setUp() {
+        first = createSimulation();
+        second = createSimulation();
+    }
+
+    @After
+    public void tearDown() {
+        first.dispose();
+        second.dispose();
+    }
+
+    @Test
+    public void sameInputGivesIdenticalTrajectory() {
+        Random random = new Random(1);
+        long frameTime = 0;
+        for (int frame = 0; frame < Frames; frame++) {
+            float deltaTime = 1/60f + random.nextFloat() * 0.02f; // Uneven frame times, several substeps per frame at times
+            long previousFrameTime = frameTime;
+            frameTime += (long) (deltaTime * 1000000000L);
+            if (random.nextInt(8) == 0) {
+                long eventTime = previousFrameTime + (long) (random.nextFloat() * (frameTime - previousFrameTime));
+                float activation = random.nextFloat();
+                float speed = 0.5f + random.nextFloat() * 1.5f;
+                first.queueInput(eventTime, activation, speed);
+                second.queueInput(eventTime, activation, speed);
+            }
+            first.step(deltaTime, frameTime);
+            second.step(deltaTime, frameTime);
+            String message = "Frame " + frame;
+            assertEquals(message, Float.floatToRawIntBits(first.getFlappy().getPositionX()), Float.floatToRawIntBits(second.getFlappy().getPositionX()));
+            assertEquals(message, Float.floatToRawIntBits(first.getFlappy().getPositionY()), Float.floatToRawIntBits(second.getFlappy().getPositionY()));
+            assertEquals(message, first.getFlappy().getHP(), second.getFlappy().getHP());
+        }
+    }
+
+    /**
+     * Create simulation with the shared course
+     * @return FlappySimulation ready to be stepped
+     */
+    private static FlappySimulation createSimulation() {
+        FlappySimulation simulation = new FlappySimulation(80.f, 50.f, 30.f, new SeededCourse(CourseSeed));
+        simulation.initFlappy();
+        simulation.extendWorld(500.f);
+        simulation.materializeAll();
+        return simulation;
+    }
+}
@@ -0,0 +1,131 @@
+package games.emgflappy.project.world;
+
+import games.emgflappy.project.utils.NativeTracker;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that restarting a game fits in a frame and reuses the Box2D World, Flappy and pooled
+ * obstacle bodies: live native object counts must stay flat over many restarts, and chunks
+ * requested for a previous game must never show up in the next one
+ */
+public class FlappySimulationRestartTest {
+
+    private static final float FrameTime = 1/60f;
+    private static final long FrameNanos = (long) (FrameTime * 1000000000L);
+    private static final float WorldWidth = 500.f;
+    private static final float StartPosition = 30.f;
+    private static final long CourseSeed = 11;
+    private static final int WarmUpRestarts = 20;
+    private static final int MeasuredRestarts = 100;
+    private static final int FramesPerGame = 300; // Enough for every requested obstacle to get its body
+
+    private FlappySimulation simulation;
+    private long frameTime;
+
+    @Before
+    public void setUp() {
+        NativeTracker.reset();
+        NativeTracker.Enabled = true;
+        simulation = new FlappySimulation(80.f, 50.f, StartPosition, new SeededCourse(CourseSeed), new ThreadedCourseGenerator());
+        simulation.initFlappy();
+        simulation.extendWorld(WorldWidth);
+        simulation.materializeAll();
+        frameTime = 0;
+    }
+
+    @After
+    public void tearDown() {
+        simulation.dispose();
+        assertFalse("Native objects leaked", NativeTracker.checkLeaks());
+        NativeTracker.Enabled = false;
+        NativeTracker.reset();
+    }
+
+    @Test
+    public void restartStaysWithinFrameBudget() {
+        long[] restartTimes = new long[MeasuredRestarts];
+        for (int i = 0; i < WarmUpRestarts + MeasuredRestarts; i++) {
+            long restartTime = restart();
+            if (i >= WarmUpRestarts) restartTimes[i - WarmUpRestarts] = restartTime;
+            playGame();
+        }
+        Arrays.sort(restartTimes);
+        long p95 = restartTimes[(int) (MeasuredRestarts * 0.95f)];
+        assertTrue("95th percentile restart took " + p95 / 1000 + " us", p95 < FrameNanos);
+    }
+
+    @Test
+    public void liveNativeCountsStayFlat() {
+        int[] warmCounts = null;
+        for (int i = 0; i < WarmUpRestarts + MeasuredRestarts; i++) {
+            restart();
+            playGame();
+            if (i == WarmUpRestarts - 1) warmCounts = getLiveCounts();
+        }
+        int[] counts = getLiveCounts();
+        for (int kind = 0; kind < NativeTracker.Kinds; kind++) {
+            assertEquals("Live " + NativeTracker.getName(kind), warmCounts[kind], counts[kind]);
+        }
+    }
+
+    @Test
+    public void restartDropsChunksOfThePreviousGame() {
+        for (int i = 0; i < MeasuredRestarts; i++) {
+            simulation.extendWorld(WorldWidth); // Still outstanding when the next restart cancels it
+            restart();
+            simulation.materializeAll(); // A stale chunk would be received first
+            assertEquals("First obstacle after restart " + i, StartPosition, simulation.getObstacles().get(0).getPositionX(), 0.f);
+        }
+    }
+
+    /**
+     * Restart the game like FlappyWorld.reset and EMGflappy.restart
+     * @return Nanoseconds spent restarting
+     */
+    private long restart() {
+        long startTime = System.nanoTime();
+        simulation.reset(StartPosition, new SeededCourse(CourseSeed));
+        simulation.initFlappy();
+        simulation.extendWorld(WorldWidth);
+        simulation.materializeAhead();
+        return System.nanoTime() - startTime;
+    }
+
+    /**
+     * Play FramesPerGame frames with periodic touch input
+     */
+    private void playGame() {
+        playFrames(FramesPerGame);
+    }
+
+    /**
+     * Step frames with periodic touch input
+     * @param frames Amount of frames
+     */
+    private void playFrames(int frames) {
+        for (int frame = 0; frame < frames; frame++) {
+            frameTime += FrameNanos;
+            if (frame % 30 == 0) simulation.queueInput(frameTime - FrameNanos / 2, 1.f);
+            if (frame % 30 == 12) simulation.queueInput(frameTime - FrameNanos / 2, 0.f);
+            simulation.step(FrameTime, frameTime);
+        }
+    }
+
+    /**
+     * Get live count of every native object kind
+     * @return Live counts indexed by kind
+     */
+    private static int[] getLiveCounts() {
+        int[] counts = new int[NativeTracker.Kinds];
+        for (int kind = 0; kind < NativeTracker.Kinds; kind++) counts[kind] = NativeTracker.getLiveCount(kind);
+        return counts;
+    }
+}
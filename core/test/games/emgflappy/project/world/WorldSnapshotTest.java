@@ -0,0 +1,173 @@
+package games.emgflappy.project.world;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import games.emgflappy.project.objects.ObstacleType;
+import games.emgflappy.project.utils.Crc32;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the binary world save format: a saved world must restore to the same state, damaged
+ * saves must be rejected and saves of newer versions must be read by skipping the fields and
+ * obstacle types this version doesn't know
+ */
+public class WorldSnapshotTest {
+
+    private static final float ViewPortSizeX = 80.f;
+    private static final float ViewPortSizeY = 50.f;
+    private static final float StartPosition = 30.f;
+    private static final float WorldWidth = 500.f;
+    private static final int PlayedFrames = 600;
+
+    @Test
+    public void writeReadRestoreCaptureRoundTrip() {
+        FlappySimulation simulation = new FlappySimulation(ViewPortSizeX, ViewPortSizeY, StartPosition, new SeededCourse(5));
+        WorldSnapshot saved = new WorldSnapshot();
+        try {
+            simulation.initFlappy();
+            simulation.extendWorld(WorldWidth);
+            simulation.materializeAll();
+            for (int frame = 0; frame < PlayedFrames; frame++) {
+                if (frame % 30 == 0) simulation.queueInput(frame * 16666667L, frame % 60 == 0 ? 1.f : 0.f);
+                simulation.step(1/60f, (frame + 1) * 16666667L);
+            }
+            simulation.captureSnapshot(saved);
+        } finally {
+            simulation.dispose();
+        }
+        assertTrue(saved.size() > 0);
+        byte[] encoded = encode(saved);
+
+        WorldSnapshot loaded = new WorldSnapshot();
+        loaded.read(ByteBuffer.wrap(encoded));
+        FlappySimulation restored = new FlappySimulation(ViewPortSizeX, ViewPortSizeY, StartPosition, new SeededCourse(99));
+        WorldSnapshot captured = new WorldSnapshot();
+        try {
+            restored.restoreSnapshot(loaded);
+            restored.captureSnapshot(captured);
+        } finally {
+            restored.dispose();
+        }
+        assertArrayEquals("Snapshot captured after restoring", encoded, encode(captured));
+    }
+
+    @Test
+    public void damagedSavesAreRejected() {
+        byte[] encoded = encode(createSnapshot());
+        for (int i = 0; i < encoded.length; i++) {
+            byte[] damaged = encoded.clone();
+            damaged[i] ^= 0x10;
+            assertRejected("Byte " + i + " damaged", damaged);
+        }
+        byte[] truncated = new byte[encoded.length - 1];
+        System.arraycopy(encoded, 0, truncated, 0, truncated.length);
+        assertRejected("Truncated", truncated);
+    }
+
+    @Test
+    public void newerVersionsAreReadBySkippingUnknownFields() {
+        WorldSnapshot original = createSnapshot();
+        int extraHeader = 8;
+        int extraRecord = 3;
+        int headerSize = WorldSnapshot.HeaderSize + extraHeader;
+        int recordSize = WorldSnapshot.RecordSize + extraRecord;
+        int count = original.size() + 1; // One obstacle of a type unknown to this version
+        ByteBuffer buffer = ByteBuffer.allocate(headerSize + count * recordSize + 4);
+        buffer.putInt(WorldSnapshot.Magic).putShort((short) (WorldSnapshot.Version + 1)).putShort(WorldSnapshot.Version);
+        buffer.putShort((short) headerSize).putShort((short) recordSize);
+        buffer.putFloat(original.getStartPosition()).putLong(original.getCourseSeed()).putInt(original.getCourseIndex());
+        buffer.putFloat(original.getFlappyX()).putFloat(original.getFlappyY()).putInt(original.getFlappyHP());
+        buffer.putInt(count).putFloat(original.getPendingWidth()).putLong(-1L);
+        for (int i = 0; i < count; i++) {
+            if (i == 1) {
+                buffer.put((byte) 200).put((byte) 0).putFloat(-1.f).putFloat(-1.f).putFloat(-1.f).put(new byte[extraRecord]);
+                continue;
+            }
+            int o = i < 1 ? i : i - 1;
+            buffer.put((byte) original.getType(o).ordinal()).put((byte) (original.isFlippedY(o) ? 1 : 0));
+            buffer.putFloat(original.getX(o)).putFloat(original.getY(o)).putFloat(original.getHeight(o));
+            buffer.put(new byte[] {7, 7, 7});
+        }
+        buffer.putInt(Crc32.compute(buffer.array(), 0, buffer.position()));
+
+        WorldSnapshot read = new WorldSnapshot();
+        buffer.flip();
+        read.read(buffer);
+        assertFalse(buffer.hasRemaining());
+        assertArrayEquals(encode(original), encode(read));
+    }
+
+    @Test
+    public void version1SavesHaveNoPendingWidth() {
+        WorldSnapshot original = createSnapshot();
+        byte[] current = encode(original);
+        int headerSize = WorldSnapshot.HeaderSize - 4;
+        ByteBuffer buffer = ByteBuffer.allocate(current.length - 4);
+        buffer.put(current, 0, headerSize);
+        buffer.putShort(4, (short) 1).putShort(6, (short) 1).putShort(8, (short) headerSize);
+        buffer.put(current, WorldSnapshot.HeaderSize, original.size() * WorldSnapshot.RecordSize);
+        buffer.putInt(Crc32.compute(buffer.array(), 0, buffer.position()));
+
+        WorldSnapshot read = new WorldSnapshot();
+        buffer.flip();
+        read.read(buffer);
+        assertEquals(0.f, read.getPendingWidth(), 0.f);
+        assertEquals(original.size(), read.size());
+        for (int i = 0; i < read.size(); i++) assertEquals(original.getX(i), read.getX(i), 0.f);
+    }
+
+    @Test
+    public void incompatibleVersionsAreRejected() {
+        byte[] encoded = encode(createSnapshot());
+        ByteBuffer buffer = ByteBuffer.wrap(encoded);
+        buffer.putShort(6, (short) (WorldSnapshot.Version + 1)); // Oldest compatible reader is newer than this one
+        buffer.putInt(encoded.length - 4, Crc32.compute(encoded, 0, encoded.length - 4));
+        assertRejected("Incompatible version", encoded);
+    }
+
+    /**
+     * Create snapshot with both obstacle types
+     * @return WorldSnapshot
+     */
+    private static WorldSnapshot createSnapshot() {
+        WorldSnapshot snapshot = new WorldSnapshot();
+        snapshot.begin(210.5f, 42L, 17, 40.25f, 22.f, 3, 12.5f);
+        snapshot.addObstacle(ObstacleType.Normal, 50.f, 30.f, 20.f, true);
+        snapshot.addObstacle(ObstacleType.Normal, 50.f, 0.f, 17.5f, false);
+        snapshot.addObstacle(ObstacleType.Tunnel, 90.f, 10.f, 40.f, false);
+        return snapshot;
+    }
+
+    /**
+     * Encode snapshot in the binary save format
+     * @param snapshot WorldSnapshot
+     * @return Encoded bytes
+     */
+    private static byte[] encode(WorldSnapshot snapshot) {
+        ByteBuffer buffer = ByteBuffer.allocate(snapshot.getEncodedSize());
+        snapshot.write(buffer);
+        assertFalse(buffer.hasRemaining());
+        return buffer.array();
+    }
+
+    /**
+     * Check that reading fails
+     * @param message Assertion message
+     * @param encoded Encoded save
+     */
+    private static void assertRejected(String message, byte[] encoded) {
+        try {
+            new WorldSnapshot().read(ByteBuffer.wrap(encoded));
+            fail(message + " was read");
+        } catch (GdxRuntimeException e) {
+            // Expected
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.badlogic.gdx.backends.lwjgl.LwjglApplication;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
 
 import games.emgflappy.project.EMGflappy;
+import games.emgflappy.project.ThreadedGamePlatform;
 
 public class DesktopLauncher {
 	public static void main (String[] arg) {
@@ -14,6 +15,7 @@ public class DesktopLauncher {
 		config.addIcon("desktop_icons/flappy_icon64.png", Files.FileType.Internal);
 		config.addIcon("desktop_icons/flappy_icon32.png", Files.FileType.Internal);
 		config.addIcon("desktop_icons/flappy_icon16.png", Files.FileType.Internal);
+		EMGflappy.Platform = new ThreadedGamePlatform();
 		new LwjglApplication(new EMGflappy(), config);
 	}
 }
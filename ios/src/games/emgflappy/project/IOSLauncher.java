@@ -12,6 +12,7 @@ public class IOSLauncher extends IOSApplication.Delegate {
     @Override
     protected IOSApplication createApplication() {
         IOSApplicationConfiguration config = new IOSApplicationConfiguration();
+        EMGflappy.Platform = new ThreadedGamePlatform();
         return new IOSApplication(new EMGflappy(), config);
     }
 